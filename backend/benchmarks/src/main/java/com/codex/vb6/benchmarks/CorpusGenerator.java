@@ -0,0 +1,209 @@
+package com.codex.vb6.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a deterministic VB6 source tree: one directory per project with its .vbp, .frm and
+ * .bas files, plus a {@code Shared} directory of modules referenced by every project.
+ *
+ * <p>Module routines form call chains {@code chainDepth} deep, events call into local and shared
+ * modules and show sibling forms, and every few routines carry one line of
+ * {@code longLineLength} characters. The same config and seed always produce identical bytes.
+ */
+public final class CorpusGenerator {
+    private static final String CRLF = "\r\n";
+
+    public record Config(int projects, int formsPerProject, int modulesPerProject, int sharedModules,
+                         int routinesPerModule, int eventsPerForm, int callsPerRoutine,
+                         int chainDepth, int longLineLength, long seed) {
+        public static Config small() {
+            return new Config(4, 3, 3, 2, 20, 8, 4, 8, 400, 42);
+        }
+
+        public static Config medium() {
+            return new Config(40, 6, 6, 4, 40, 12, 6, 24, 2_000, 42);
+        }
+
+        public static Config large() {
+            return new Config(200, 10, 10, 8, 60, 16, 8, 64, 8_000, 42);
+        }
+
+        public static Config named(String size) {
+            return switch (size) {
+                case "small" -> small();
+                case "medium" -> medium();
+                case "large" -> large();
+                default -> throw new IllegalArgumentException("Unknown corpus size: " + size);
+            };
+        }
+    }
+
+    private CorpusGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: CorpusGenerator <root-dir> [small|medium|large]");
+            System.exit(1);
+        }
+        generate(Path.of(args[0]), Config.named(args.length == 2 ? args[1] : "small"));
+    }
+
+    public static void generate(Path root, Config config) throws IOException {
+        SplittableRandom random = new SplittableRandom(config.seed());
+        Path shared = root.resolve("Shared");
+        Files.createDirectories(shared);
+        for (int s = 0; s < config.sharedModules(); s++) {
+            String name = "Shared" + s;
+            write(shared.resolve(name + ".bas"), module(name, config, random, -1));
+        }
+        for (int p = 0; p < config.projects(); p++) {
+            Path dir = root.resolve(String.format("Proj%03d", p));
+            Files.createDirectories(dir);
+            writeProject(dir, p, config, random);
+        }
+    }
+
+    private static void writeProject(Path dir, int project, Config config, SplittableRandom random) throws IOException {
+        StringBuilder vbp = new StringBuilder();
+        vbp.append("Type=Exe").append(CRLF);
+        for (int f = 0; f < config.formsPerProject(); f++) {
+            String name = formName(project, f);
+            vbp.append("Form=").append(name).append(".frm").append(CRLF);
+            write(dir.resolve(name + ".frm"), form(project, f, config, random));
+        }
+        for (int m = 0; m < config.modulesPerProject(); m++) {
+            String name = moduleName(project, m);
+            vbp.append("Module=").append(name).append("; ").append(name).append(".bas").append(CRLF);
+            write(dir.resolve(name + ".bas"), module(name, config, random, project));
+        }
+        // Forward slashes so the shared modules resolve on every platform the benchmarks run on.
+        for (int s = 0; s < config.sharedModules(); s++) {
+            vbp.append("Module=Shared").append(s).append("; ../Shared/Shared").append(s).append(".bas").append(CRLF);
+        }
+        vbp.append("Startup=\"").append(formName(project, 0)).append('"').append(CRLF);
+        vbp.append("Name=\"Proj").append(project).append('"').append(CRLF);
+        write(dir.resolve(String.format("Proj%03d.vbp", project)), vbp);
+    }
+
+    private static CharSequence form(int project, int index, Config config, SplittableRandom random) {
+        String name = formName(project, index);
+        StringBuilder out = new StringBuilder();
+        out.append("VERSION 5.00").append(CRLF);
+        out.append("Begin VB.Form ").append(name).append(CRLF);
+        out.append("   Caption         =   \"").append(name).append('"').append(CRLF);
+        for (int e = 1; e < config.eventsPerForm(); e++) {
+            out.append("   Begin VB.CommandButton cmdAction").append(e).append(CRLF);
+            out.append("      Caption         =   \"Action ").append(e).append('"').append(CRLF);
+            out.append("      Height          =   375").append(CRLF);
+            out.append("      TabIndex        =   ").append(e).append(CRLF);
+            out.append("   End").append(CRLF);
+        }
+        out.append("End").append(CRLF);
+        out.append("Attribute VB_Name = \"").append(name).append('"').append(CRLF);
+        out.append("Option Explicit").append(CRLF).append(CRLF);
+
+        for (int e = 0; e < config.eventsPerForm(); e++) {
+            String event = e == 0 ? "Form_Load" : "cmdAction" + e + "_Click";
+            out.append("Private Sub ").append(event).append("()").append(CRLF);
+            out.append("    ' handler ").append(e).append(CRLF);
+            for (int c = 0; c < config.callsPerRoutine(); c++) {
+                appendFormCall(out, project, config, random);
+            }
+            if (e % 4 == 3) {
+                appendLongLine(out, config.longLineLength(), random);
+            }
+            out.append("End Sub").append(CRLF).append(CRLF);
+        }
+        return out;
+    }
+
+    private static void appendFormCall(StringBuilder out, int project, Config config, SplittableRandom random) {
+        out.append("    ");
+        switch (random.nextInt(5)) {
+            case 0 -> out.append(formName(project, random.nextInt(config.formsPerProject()))).append(".Show");
+            case 1 -> out.append("Load ").append(formName(project, random.nextInt(config.formsPerProject())));
+            case 2 -> out.append("Call ").append(moduleName(project, random.nextInt(config.modulesPerProject())))
+                    .append(".Proc").append(random.nextInt(config.routinesPerModule())).append("(Me.hWnd)");
+            case 3 -> out.append("MsgBox(\"Done \" & Len(txtInput.Text))");
+            default -> appendSharedCall(out, config, random);
+        }
+        out.append(CRLF);
+    }
+
+    // project < 0 marks a shared module, which only calls within itself.
+    private static CharSequence module(String name, Config config, SplittableRandom random, int project) {
+        StringBuilder out = new StringBuilder();
+        out.append("Attribute VB_Name = \"").append(name).append('"').append(CRLF);
+        out.append("Option Explicit").append(CRLF).append(CRLF);
+        for (int r = 0; r < config.routinesPerModule(); r++) {
+            boolean function = r % 3 == 1;
+            out.append(r % 5 == 4 ? "Private " : "Public ").append(function ? "Function " : "Sub ")
+                    .append("Proc").append(r).append("(ByVal value As Long)").append(function ? " As Long" : "")
+                    .append(CRLF);
+            out.append("    Dim result As Long").append(CRLF);
+            if ((r + 1) % config.chainDepth() != 0 && r + 1 < config.routinesPerModule()) {
+                out.append("    Call Proc").append(r + 1).append("(value + 1)").append(CRLF);
+            }
+            for (int c = 1; c < config.callsPerRoutine(); c++) {
+                out.append("    ");
+                int kind = random.nextInt(4);
+                if (kind == 0 && project >= 0 && config.sharedModules() > 0) {
+                    appendSharedCall(out, config, random);
+                } else if (kind == 1 && project >= 0) {
+                    out.append("result = ").append(moduleName(project, random.nextInt(config.modulesPerProject())))
+                            .append(".Proc").append(random.nextInt(config.routinesPerModule())).append("(result)");
+                } else if (kind == 2) {
+                    out.append("result = result + Len(CStr(value)) * ").append(random.nextInt(100));
+                } else {
+                    out.append("If result > ").append(random.nextInt(1000)).append(" Then Proc")
+                            .append(random.nextInt(config.routinesPerModule())).append(" result");
+                }
+                out.append(CRLF);
+            }
+            if (r % 4 == 2) {
+                appendLongLine(out, config.longLineLength(), random);
+            }
+            out.append(function ? "End Function" : "End Sub").append(CRLF).append(CRLF);
+        }
+        return out;
+    }
+
+    private static void appendSharedCall(StringBuilder out, Config config, SplittableRandom random) {
+        if (config.sharedModules() == 0) {
+            out.append("DoEvents");
+            return;
+        }
+        out.append("Call Shared").append(random.nextInt(config.sharedModules()))
+                .append(".Proc").append(random.nextInt(config.routinesPerModule())).append("(0)");
+    }
+
+    // A SQL-style string concatenation of the requested length.
+    private static void appendLongLine(StringBuilder out, int length, SplittableRandom random) {
+        int start = out.length();
+        out.append("    sSql = \"SELECT ");
+        while (out.length() - start < length) {
+            out.append("COL").append(random.nextInt(1000)).append(", ");
+            if (random.nextInt(8) == 0) {
+                out.append("\" & vbCrLf & \"");
+            }
+        }
+        out.append("X FROM T\"").append(CRLF);
+    }
+
+    private static String formName(int project, int index) {
+        return "frm" + project + "_" + index;
+    }
+
+    private static String moduleName(int project, int index) {
+        return "Mod" + project + "_" + index;
+    }
+
+    private static void write(Path path, CharSequence contents) throws IOException {
+        Files.writeString(path, contents, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,56 @@
+package com.codex.vb6.benchmarks;
+
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectAnalyzer;
+import com.codex.vb6.graph.GraphBuilder;
+import com.codex.vb6.graph.GraphModel;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * A generated corpus in a temporary directory, shared by all iterations of one trial, with
+ * the analysis and graph precomputed for benchmarks that start from them.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+    @Param({"small", "medium"})
+    public String size;
+
+    Path root;
+    Path vbp;
+    Path frm;
+    Path bas;
+    ProjectAnalysis analysis;
+    GraphModel graph;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        root = Files.createTempDirectory("vb6-bench-");
+        CorpusGenerator.generate(root, CorpusGenerator.Config.named(size));
+        Path project = root.resolve("Proj000");
+        vbp = project.resolve("Proj000.vbp");
+        frm = project.resolve("frm0_0.frm");
+        bas = project.resolve("Mod0_0.bas");
+        analysis = ProjectAnalyzer.analyze(root);
+        graph = GraphBuilder.build(analysis);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
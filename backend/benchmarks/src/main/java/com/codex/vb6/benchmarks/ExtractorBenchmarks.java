@@ -0,0 +1,53 @@
+package com.codex.vb6.benchmarks;
+
+import com.codex.vb6.extractor.AnalyzerOptions;
+import com.codex.vb6.extractor.BasAnalysis;
+import com.codex.vb6.extractor.BasExtractor;
+import com.codex.vb6.extractor.FrmAnalysis;
+import com.codex.vb6.extractor.FrmExtractor;
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectAnalyzer;
+import com.codex.vb6.parser.VbpIndex;
+import com.codex.vb6.parser.VbpProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractorBenchmarks {
+    @Benchmark
+    public VbpProject vbpIndexParse(CorpusState corpus) throws IOException {
+        return VbpIndex.parse(corpus.vbp);
+    }
+
+    @Benchmark
+    public FrmAnalysis frmExtractorAnalyze(CorpusState corpus) throws IOException {
+        return FrmExtractor.analyze(corpus.frm);
+    }
+
+    @Benchmark
+    public BasAnalysis basExtractorAnalyze(CorpusState corpus) throws IOException {
+        return BasExtractor.analyze(corpus.bas);
+    }
+
+    @Benchmark
+    public ProjectAnalysis projectAnalyzerAnalyze(CorpusState corpus) throws IOException {
+        return ProjectAnalyzer.analyze(corpus.root);
+    }
+
+    @Benchmark
+    public ProjectAnalysis projectAnalyzerPipelined(CorpusState corpus) throws IOException {
+        return ProjectAnalyzer.analyze(corpus.root, AnalyzerOptions.defaults().withPipeline(4));
+    }
+}
@@ -0,0 +1,49 @@
+package com.codex.vb6.benchmarks;
+
+import com.codex.vb6.graph.GraphBuilder;
+import com.codex.vb6.graph.GraphModel;
+import com.codex.vb6.graph.MermaidOptions;
+import com.codex.vb6.graph.MermaidRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmarks {
+    private static final MermaidOptions BUDGETED = MermaidOptions.defaults()
+            .withClusterProjects(true)
+            .withCollapseFanIn(8)
+            .withMaxNodes(500)
+            .withMaxEdges(1_000);
+
+    @Benchmark
+    public GraphModel graphBuilderBuild(CorpusState corpus) {
+        return GraphBuilder.build(corpus.analysis);
+    }
+
+    @Benchmark
+    public GraphModel graphBuilderBuildParallel(CorpusState corpus) {
+        return GraphBuilder.build(corpus.analysis, 4);
+    }
+
+    @Benchmark
+    public String mermaidRender(CorpusState corpus) {
+        return MermaidRenderer.render(corpus.graph);
+    }
+
+    @Benchmark
+    public List<String> mermaidRenderBudgeted(CorpusState corpus) {
+        return MermaidRenderer.render(corpus.graph, BUDGETED);
+    }
+}
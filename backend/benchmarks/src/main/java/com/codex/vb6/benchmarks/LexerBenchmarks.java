@@ -0,0 +1,131 @@
+package com.codex.vb6.benchmarks;
+
+import com.codex.vb6.extractor.AnalyzerOptions;
+import com.codex.vb6.extractor.BasAnalysis;
+import com.codex.vb6.extractor.BasExtractor;
+import com.codex.vb6.extractor.FrmAnalysis;
+import com.codex.vb6.extractor.FrmExtractor;
+import com.codex.vb6.parser.SourceEncoding;
+import com.codex.vb6.parser.SourceLines;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The extractors' single-pass lexer, in both of its modes, against the per-line regular
+ * expressions it replaced. All sides decode the file through {@link SourceLines}, so the
+ * difference is the line scanning alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmarks {
+    private static final AnalyzerOptions REGEX_COMPATIBLE = AnalyzerOptions.defaults().withRegexCompatible(true);
+
+    @Benchmark
+    public FrmAnalysis frmLexer(CorpusState corpus) throws IOException {
+        return FrmExtractor.analyze(corpus.frm, AnalyzerOptions.defaults());
+    }
+
+    @Benchmark
+    public FrmAnalysis frmLexerRegexCompatible(CorpusState corpus) throws IOException {
+        return FrmExtractor.analyze(corpus.frm, REGEX_COMPATIBLE);
+    }
+
+    @Benchmark
+    public int frmRegexCascade(CorpusState corpus) throws IOException {
+        return RegexCascade.scan(corpus.frm, true);
+    }
+
+    @Benchmark
+    public BasAnalysis basLexer(CorpusState corpus) throws IOException {
+        return BasExtractor.analyze(corpus.bas, AnalyzerOptions.defaults());
+    }
+
+    @Benchmark
+    public BasAnalysis basLexerRegexCompatible(CorpusState corpus) throws IOException {
+        return BasExtractor.analyze(corpus.bas, REGEX_COMPATIBLE);
+    }
+
+    @Benchmark
+    public int basRegexCascade(CorpusState corpus) throws IOException {
+        return RegexCascade.scan(corpus.bas, false);
+    }
+
+    // The regular expressions of the extractors before VbLexer; counts the matches so none is dead code.
+    private static final class RegexCascade implements SourceLines.Visitor {
+        private static final Pattern EVENT_START = Pattern.compile(
+                "^\\s*(?:Public|Private)?\\s*Sub\\s+(\\w+)_([A-Za-z0-9_]+)\\s*\\(.*\\)\\s*$", Pattern.CASE_INSENSITIVE);
+        private static final Pattern ROUTINE_START = Pattern.compile(
+                "^\\s*(?:Public|Private|Friend)?\\s*(Sub|Function)\\s+([A-Za-z_][A-Za-z0-9_]*)\\b", Pattern.CASE_INSENSITIVE);
+        private static final Pattern EVENT_END = Pattern.compile("^\\s*End\\s+Sub\\s*$", Pattern.CASE_INSENSITIVE);
+        private static final Pattern ROUTINE_END = Pattern.compile(
+                "^\\s*End\\s+(Sub|Function)\\s*$", Pattern.CASE_INSENSITIVE);
+        private static final Pattern CALL = Pattern.compile(
+                "\\b(Call\\s+)?([A-Za-z_][A-Za-z0-9_]*(?:\\.[A-Za-z_][A-Za-z0-9_]*)?)\\s*(?:\\(|$)",
+                Pattern.CASE_INSENSITIVE);
+        private static final Pattern SHOW = Pattern.compile(
+                "\\b([A-Za-z_][A-Za-z0-9_]*)\\.Show\\b", Pattern.CASE_INSENSITIVE);
+        private static final Pattern LOAD = Pattern.compile(
+                "\\bLoad\\s+([A-Za-z_][A-Za-z0-9_]*)\\b", Pattern.CASE_INSENSITIVE);
+
+        private final boolean form;
+        private boolean inRoutine;
+        private int matches;
+
+        private RegexCascade(boolean form) {
+            this.form = form;
+        }
+
+        static int scan(Path path, boolean form) throws IOException {
+            RegexCascade cascade = new RegexCascade(form);
+            SourceLines.forEach(path, SourceEncoding.defaults(), cascade);
+            return cascade.matches;
+        }
+
+        @Override
+        public void line(CharSequence text, int lineNumber) {
+            String line = text.toString();
+            if ((form ? EVENT_START : ROUTINE_START).matcher(line).find()) {
+                inRoutine = true;
+                matches++;
+                return;
+            }
+            if (!inRoutine) {
+                return;
+            }
+            if ((form ? EVENT_END : ROUTINE_END).matcher(line).find()) {
+                inRoutine = false;
+                return;
+            }
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("'")) {
+                return;
+            }
+            if (form) {
+                matches += count(SHOW.matcher(line)) + count(LOAD.matcher(line));
+            }
+            matches += count(CALL.matcher(line));
+        }
+
+        private static int count(Matcher matcher) {
+            int found = 0;
+            while (matcher.find()) {
+                found++;
+            }
+            return found;
+        }
+    }
+}
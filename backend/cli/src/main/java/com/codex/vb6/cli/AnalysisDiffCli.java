@@ -0,0 +1,162 @@
+package com.codex.vb6.cli;
+
+import com.codex.vb6.extractor.AnalyzerOptions;
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectAnalyzer;
+import com.codex.vb6.graph.AnalysisDiff;
+import com.codex.vb6.graph.GraphBuilder;
+import com.codex.vb6.graph.GraphView;
+import com.codex.vb6.graph.Snapshot;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares two analyses, each given as a snapshot written by {@code ProjectAnalyzeCli --snapshot}
+ * or as a root directory to analyze, and writes diff.json and diff.md to the output directory.
+ */
+public final class AnalysisDiffCli {
+    private static final String USAGE = "Usage: AnalysisDiffCli [--threads N] [--charset CODEPAGE] [--builtins drop|tag|keep] "
+            + "[--builtins-file FILE] [--pipeline] [--io-threads N] [--frm-controls] [--regex-compatible] [--max-nodes N] "
+            + "<old-root|snapshot> <new-root|snapshot> <output-dir>";
+
+    public static void main(String[] args) throws IOException {
+        CliArgs cli = CliArgs.parse(args, USAGE, 3,
+                Set.of("--threads", "--charset", "--builtins", "--builtins-file", "--io-threads", "--max-nodes"),
+                Set.of("--pipeline", "--frm-controls", "--regex-compatible"));
+        List<String> positional = cli.positional();
+        int maxNodes = cli.intOption("--max-nodes", 200, 2);
+        AnalyzerOptions options = cli.analyzerOptions();
+
+        Side before = load(Path.of(positional.get(0)), options);
+        Side after = load(Path.of(positional.get(1)), options);
+        long start = System.nanoTime();
+        AnalysisDiff.Result diff = AnalysisDiff.compare(before.analysis(), before.graph(), after.analysis(), after.graph());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        Path outputDir = Path.of(positional.get(2));
+        Files.createDirectories(outputDir);
+        writeJson(outputDir.resolve("diff.json"), diff);
+        try (Writer report = Files.newBufferedWriter(outputDir.resolve("diff.md"), StandardCharsets.UTF_8)) {
+            writeMarkdown(report, diff, maxNodes);
+        }
+        System.out.println("Compared in " + millis + " ms: "
+                + diff.definitionCount(AnalysisDiff.Change.ADDED) + " added, "
+                + diff.definitionCount(AnalysisDiff.Change.REMOVED) + " removed, "
+                + diff.definitionCount(AnalysisDiff.Change.MOVED) + " moved definitions, "
+                + diff.calls().size() + " moved calls, "
+                + diff.edgeCount(AnalysisDiff.Change.ADDED) + " added and "
+                + diff.edgeCount(AnalysisDiff.Change.REMOVED) + " removed edges; written to "
+                + outputDir.toAbsolutePath());
+    }
+
+    private record Side(ProjectAnalysis analysis, GraphView graph) {
+    }
+
+    private static Side load(Path input, AnalyzerOptions options) throws IOException {
+        if (Files.isRegularFile(input)) {
+            Snapshot snapshot = Snapshot.open(input);
+            return new Side(snapshot.analysis(), snapshot);
+        }
+        ProjectAnalysis analysis = ProjectAnalyzer.analyze(input, options);
+        return new Side(analysis, GraphBuilder.build(analysis, options.parallelism()));
+    }
+
+    private static void writeJson(Path file, AnalysisDiff.Result diff) throws IOException {
+        try (JsonWriter json = AnalysisJson.open(file)) {
+            json.beginObject().name("summary").beginObject();
+            json.name("definitionsAdded").value(diff.definitionCount(AnalysisDiff.Change.ADDED))
+                    .name("definitionsRemoved").value(diff.definitionCount(AnalysisDiff.Change.REMOVED))
+                    .name("definitionsMoved").value(diff.definitionCount(AnalysisDiff.Change.MOVED))
+                    .name("definitionsUnchanged").value(diff.unchangedDefinitions())
+                    .name("callsMoved").value(diff.calls().size())
+                    .name("edgesAdded").value(diff.edgeCount(AnalysisDiff.Change.ADDED))
+                    .name("edgesRemoved").value(diff.edgeCount(AnalysisDiff.Change.REMOVED))
+                    .name("edgesUnchanged").value(diff.unchangedEdges())
+                    .name("nodesAdded").value(diff.addedNodes().size())
+                    .name("nodesRemoved").value(diff.removedNodes().size())
+                    .endObject();
+
+            json.name("definitions").beginArray();
+            for (AnalysisDiff.DefinitionChange definition : diff.definitions()) {
+                json.beginObject()
+                        .name("change").value(definition.change().name())
+                        .name("type").value(definition.node().type().name())
+                        .name("id").value(definition.node().id())
+                        .name("name").value(definition.node().label())
+                        .name("oldLine").value(definition.oldLine())
+                        .name("newLine").value(definition.newLine())
+                        .endObject();
+            }
+            json.endArray();
+
+            json.name("calls").beginArray();
+            for (AnalysisDiff.CallMove call : diff.calls()) {
+                json.beginObject()
+                        .name("caller").value(call.callerId())
+                        .name("type").value(call.type())
+                        .name("target").value(call.target())
+                        .name("oldLine").value(call.oldLine())
+                        .name("newLine").value(call.newLine())
+                        .endObject();
+            }
+            json.endArray();
+
+            json.name("edges").beginArray();
+            for (AnalysisDiff.EdgeChange edge : diff.edges()) {
+                json.beginObject()
+                        .name("change").value(edge.change().name())
+                        .name("from").value(edge.from().id())
+                        .name("to").value(edge.to().id())
+                        .name("label").value(edge.label())
+                        .endObject();
+            }
+            json.endArray().endObject();
+        }
+    }
+
+    private static void writeMarkdown(Writer out, AnalysisDiff.Result diff, int maxNodes) throws IOException {
+        out.append("# VB6 分析差異報告\n\n");
+        out.append("- 新增定義: ").append(String.valueOf(diff.definitionCount(AnalysisDiff.Change.ADDED))).append("\n");
+        out.append("- 移除定義: ").append(String.valueOf(diff.definitionCount(AnalysisDiff.Change.REMOVED))).append("\n");
+        out.append("- 移動定義: ").append(String.valueOf(diff.definitionCount(AnalysisDiff.Change.MOVED))).append("\n");
+        out.append("- 移動呼叫: ").append(String.valueOf(diff.calls().size())).append("\n");
+        out.append("- 新增呼叫邊: ").append(String.valueOf(diff.edgeCount(AnalysisDiff.Change.ADDED))).append("\n");
+        out.append("- 移除呼叫邊: ").append(String.valueOf(diff.edgeCount(AnalysisDiff.Change.REMOVED))).append("\n\n");
+
+        out.append("## 定義變更\n\n");
+        if (diff.definitions().isEmpty()) {
+            out.append("- (無)\n");
+        }
+        for (AnalysisDiff.DefinitionChange definition : diff.definitions()) {
+            out.append("- ").append(definition.change().name()).append(' ')
+                    .append(definition.node().type().name()).append(' ').append(definition.node().id());
+            switch (definition.change()) {
+                case ADDED -> out.append(" (line ").append(String.valueOf(definition.newLine())).append(")");
+                case REMOVED -> out.append(" (line ").append(String.valueOf(definition.oldLine())).append(")");
+                case MOVED -> out.append(" (line ").append(String.valueOf(definition.oldLine())).append(" -> ")
+                        .append(String.valueOf(definition.newLine())).append(")");
+            }
+            out.append("\n");
+        }
+        out.append("\n");
+
+        out.append("## 呼叫邊變更\n\n");
+        if (diff.edges().isEmpty()) {
+            out.append("- (無)\n");
+        }
+        for (AnalysisDiff.EdgeChange edge : diff.edges()) {
+            out.append("- ").append(edge.change().name()).append(' ').append(edge.from().id())
+                    .append(" -[").append(edge.label()).append("]-> ").append(edge.to().id()).append("\n");
+        }
+        out.append("\n");
+
+        out.append("## 變更範圍 Mermaid Graph\n\n");
+        out.append("```mermaid\n").append(AnalysisDiff.mermaid(diff, maxNodes)).append("```\n");
+    }
+}
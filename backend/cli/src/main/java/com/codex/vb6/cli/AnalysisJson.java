@@ -0,0 +1,147 @@
+package com.codex.vb6.cli;
+
+import com.codex.vb6.extractor.BasAnalysis;
+import com.codex.vb6.extractor.BasCall;
+import com.codex.vb6.extractor.BasRoutine;
+import com.codex.vb6.extractor.EntryStatus;
+import com.codex.vb6.extractor.FrmAnalysis;
+import com.codex.vb6.extractor.FrmCall;
+import com.codex.vb6.extractor.FrmControl;
+import com.codex.vb6.extractor.FrmEvent;
+import com.codex.vb6.extractor.ProjectSummary;
+import com.codex.vb6.parser.VbpEntry;
+import com.codex.vb6.parser.VbpProject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * JSON shapes written by the CLIs, emitted through {@link JsonWriter}.
+ */
+public final class AnalysisJson {
+    private AnalysisJson() {
+    }
+
+    public static JsonWriter open(Path path) throws IOException {
+        return new JsonWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    public static JsonWriter stdout() {
+        return new JsonWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+    }
+
+    public static void writeProject(JsonWriter json, VbpProject project) throws IOException {
+        json.beginObject()
+                .name("name").value(project.name())
+                .name("startup").value(project.startup())
+                .name("entries").beginArray();
+        for (VbpEntry entry : project.entries()) {
+            json.beginObject();
+            writeEntryFields(json, entry);
+            json.endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    public static void writeSummary(JsonWriter json, ProjectSummary project) throws IOException {
+        json.beginObject()
+                .name("vbpPath").value(project.vbpPath())
+                .name("name").value(project.project().name())
+                .name("startup").value(project.project().startup())
+                .name("entries").beginArray();
+        for (EntryStatus status : project.entries()) {
+            json.beginObject();
+            writeEntryFields(json, status.entry());
+            json.name("resolved").value(status.resolvedPath())
+                    .name("exists").value(status.exists())
+                    .endObject();
+        }
+        json.endArray().name("forms").beginArray();
+        for (FrmAnalysis form : project.forms()) {
+            writeForm(json, form);
+        }
+        json.endArray().name("modules").beginArray();
+        for (BasAnalysis module : project.modules()) {
+            json.beginObject()
+                    .name("module").value(module.moduleName())
+                    .name("routines").value(module.routines().size())
+                    .endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    // "control" and "designer" only appear when the designer block was parsed.
+    public static void writeForm(JsonWriter json, FrmAnalysis form) throws IOException {
+        json.beginObject()
+                .name("form").value(form.formName())
+                .name("events").beginArray();
+        for (FrmEvent event : form.events()) {
+            json.beginObject()
+                    .name("name").value(event.name())
+                    .name("line").value(event.lineNumber());
+            if (form.designer() != null) {
+                FrmControl control = form.control(event);
+                json.name("control").value(control == null ? null : control.name());
+            }
+            json.name("calls").beginArray();
+            for (FrmCall call : event.calls()) {
+                writeCall(json, call.type(), call.target(), call.line());
+            }
+            json.endArray().endObject();
+        }
+        json.endArray();
+        if (form.designer() != null) {
+            json.name("designer");
+            writeControl(json, form.designer());
+        }
+        json.endObject();
+    }
+
+    private static void writeControl(JsonWriter json, FrmControl control) throws IOException {
+        json.beginObject()
+                .name("type").value(control.type())
+                .name("name").value(control.name())
+                .name("line").value(control.lineNumber())
+                .name("controls").beginArray();
+        for (FrmControl child : control.children()) {
+            writeControl(json, child);
+        }
+        json.endArray().endObject();
+    }
+
+    public static void writeModule(JsonWriter json, BasAnalysis module) throws IOException {
+        json.beginObject()
+                .name("module").value(module.moduleName())
+                .name("routines").beginArray();
+        for (BasRoutine routine : module.routines()) {
+            json.beginObject()
+                    .name("name").value(routine.name())
+                    .name("kind").value(routine.kind())
+                    .name("line").value(routine.lineNumber())
+                    .name("calls").beginArray();
+            for (BasCall call : routine.calls()) {
+                writeCall(json, call.type(), call.target(), call.line());
+            }
+            json.endArray().endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    private static void writeEntryFields(JsonWriter json, VbpEntry entry) throws IOException {
+        json.name("type").value(entry.type().name())
+                .name("name").value(entry.name())
+                .name("path").value(entry.path());
+    }
+
+    private static void writeCall(JsonWriter json, String type, String target, String line) throws IOException {
+        json.beginObject()
+                .name("type").value(type)
+                .name("target").value(target)
+                .name("line").value(line)
+                .endObject();
+    }
+}
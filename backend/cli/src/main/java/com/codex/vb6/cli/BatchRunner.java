@@ -0,0 +1,232 @@
+package com.codex.vb6.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Input handling shared by the single-file CLIs.
+ *
+ * <p>One plain path prints one JSON document, as before. Several paths, glob patterns,
+ * {@code --stdin} (one path per line) or {@code --ndjson} switch to batch mode: every file is
+ * processed in the same JVM, optionally on {@code --threads} workers, and produces one line
+ * {@code {"path":...,"result":{...}}} or {@code {"path":...,"error":"..."}} as soon as it
+ * finishes. Failed files do not stop the run; the exit status is 1 if any file failed.
+ */
+final class BatchRunner {
+    interface FileTask {
+        void write(JsonWriter json, Path path) throws IOException;
+    }
+
+    private final Writer out;
+    private final FileTask task;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private BatchRunner(Writer out, FileTask task) {
+        this.out = out;
+        this.task = task;
+    }
+
+    static void run(CliArgs cli, FileTask task) throws IOException {
+        List<String> inputs = cli.positional();
+        boolean stdin = cli.flag("--stdin");
+        if (inputs.isEmpty() && !stdin) {
+            cli.fail(null);
+        }
+        boolean batch = stdin || cli.flag("--ndjson") || inputs.size() > 1 || isGlob(inputs.get(0));
+        if (!batch) {
+            try (JsonWriter json = AnalysisJson.stdout()) {
+                task.write(json, Path.of(inputs.get(0)));
+                json.newline();
+            }
+            return;
+        }
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        if (runBatch(cli, task, out, System.in) > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Batch mode proper: one line per file or failed input on out; returns the number of error lines.
+    static int runBatch(CliArgs cli, FileTask task, Writer out, InputStream in) throws IOException {
+        List<String> inputs = cli.positional();
+        boolean stdin = cli.flag("--stdin");
+        int threads = cli.intOption("--threads", 1, 1);
+        BatchRunner runner = new BatchRunner(out, task);
+        ThreadPoolExecutor pool = threads > 1
+                ? new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(threads * 4), new ThreadPoolExecutor.CallerRunsPolicy())
+                : null;
+        try {
+            for (String input : inputs) {
+                List<String> paths;
+                try {
+                    paths = runner.expand(input);
+                } catch (IOException e) {
+                    runner.emitError(input, describe(e));
+                    continue;
+                }
+                if (paths.isEmpty()) {
+                    runner.emitError(input, "No files match");
+                }
+                for (String path : paths) {
+                    runner.submit(pool, path);
+                }
+            }
+            if (stdin) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (!line.isBlank()) {
+                        runner.submit(pool, line.strip());
+                    }
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+                awaitQuietly(pool);
+            }
+            out.flush();
+        }
+        return runner.failures.get();
+    }
+
+    private void submit(ThreadPoolExecutor pool, String path) {
+        if (pool == null) {
+            process(path);
+        } else {
+            pool.execute(() -> process(path));
+        }
+    }
+
+    private void process(String path) {
+        StringWriter line = new StringWriter();
+        try {
+            JsonWriter json = new JsonWriter(line);
+            json.beginObject().name("path").value(path).name("result");
+            task.write(json, Path.of(path));
+            json.endObject();
+        } catch (IOException | RuntimeException e) {
+            emitError(path, describe(e));
+            return;
+        }
+        emit(line.toString());
+    }
+
+    private void emitError(String path, String error) {
+        failures.incrementAndGet();
+        StringWriter line = new StringWriter();
+        try {
+            new JsonWriter(line).beginObject().name("path").value(path).name("error").value(error).endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        emit(line.toString());
+    }
+
+    // Whole lines under one lock, flushed immediately so consumers see each file as it finishes.
+    private void emit(String line) {
+        synchronized (out) {
+            try {
+                out.write(line);
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static String describe(Exception e) {
+        String message = e.getMessage();
+        return e.getClass().getSimpleName() + (message == null ? "" : ": " + message);
+    }
+
+    private static boolean isGlob(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Walks from the longest directory prefix without glob characters; matches are sorted by path.
+    // A directory or file that cannot be read gets its own error line and the walk goes on.
+    private List<String> expand(String input) throws IOException {
+        if (!isGlob(input)) {
+            return List.of(input);
+        }
+        String normalized = input.replace('\\', '/');
+        int firstGlob = 0;
+        while (!isGlob(normalized.substring(0, firstGlob + 1))) {
+            firstGlob++;
+        }
+        int slash = normalized.lastIndexOf('/', firstGlob);
+        Path base = slash < 0 ? Path.of(".") : Path.of(slash == 0 ? "/" : normalized.substring(0, slash));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalized);
+
+        List<String> matches = new ArrayList<>();
+        Files.walkFileTree(base, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                Path relative = slash < 0 ? base.relativize(path) : path;
+                if (Files.isRegularFile(path) && matcher.matches(relative)) {
+                    matches.add(relative.toString());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException e) throws IOException {
+                if (path.equals(base)) {
+                    throw e;
+                }
+                emitError(path.toString(), describe(e));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException e) {
+                if (e != null) {
+                    emitError(directory.toString(), describe(e));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        matches.sort(null);
+        return matches;
+    }
+
+    private static void awaitQuietly(ThreadPoolExecutor pool) {
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting; every submitted file gets its line
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
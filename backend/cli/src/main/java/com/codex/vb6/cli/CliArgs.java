@@ -0,0 +1,134 @@
+package com.codex.vb6.cli;
+
+import com.codex.vb6.extractor.AnalyzerOptions;
+import com.codex.vb6.extractor.VbBuiltins;
+import com.codex.vb6.parser.SourceEncoding;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Minimal "--option value" / "--flag" parser; invalid input prints the usage line and exits with 1.
+final class CliArgs {
+    private final String usage;
+    private final List<String> positional = new ArrayList<>();
+    private final Map<String, String> options = new HashMap<>();
+    private final Set<String> flags = new HashSet<>();
+
+    private CliArgs(String usage) {
+        this.usage = usage;
+    }
+
+    static CliArgs parse(String[] args, String usage, int positionalCount,
+                         Set<String> valueOptions, Set<String> flagOptions) {
+        CliArgs result = new CliArgs(usage);
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (valueOptions.contains(arg)) {
+                if (i + 1 >= args.length) {
+                    result.fail("Missing value for " + arg);
+                }
+                result.options.put(arg, args[++i]);
+            } else if (flagOptions.contains(arg)) {
+                result.flags.add(arg);
+            } else if (arg.startsWith("--")) {
+                result.fail("Unknown option " + arg);
+            } else {
+                result.positional.add(arg);
+            }
+        }
+        if (positionalCount >= 0 && result.positional.size() != positionalCount) {
+            result.fail(null);
+        }
+        return result;
+    }
+
+    List<String> positional() {
+        return positional;
+    }
+
+    String option(String name) {
+        return options.get(name);
+    }
+
+    boolean flag(String name) {
+        return flags.contains(name);
+    }
+
+    int intOption(String name, int defaultValue, int minimum) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= minimum) {
+                return parsed;
+            }
+            fail(name + " must be >= " + minimum);
+        } catch (NumberFormatException e) {
+            fail("Invalid number for " + name + ": " + value);
+        }
+        return defaultValue;
+    }
+
+    SourceEncoding encoding() {
+        String name = options.get("--charset");
+        if (name == null) {
+            return SourceEncoding.defaults();
+        }
+        try {
+            return SourceEncoding.withCodePage(SourceEncoding.charsetFor(name));
+        } catch (IllegalArgumentException e) {
+            fail("Unsupported charset: " + name);
+            return null;
+        }
+    }
+
+    // --builtins drop|tag|keep plus names from --builtins-file.
+    VbBuiltins builtins() {
+        VbBuiltins builtins = VbBuiltins.defaults();
+        String mode = options.get("--builtins");
+        if (mode != null) {
+            try {
+                builtins = builtins.withMode(VbBuiltins.Mode.valueOf(mode.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                fail("Invalid value for --builtins: " + mode);
+            }
+        }
+        String file = options.get("--builtins-file");
+        if (file != null) {
+            try {
+                builtins = builtins.withNamesFrom(Path.of(file));
+            } catch (IOException e) {
+                fail("Cannot read " + file + ": " + e.getMessage());
+            }
+        }
+        return builtins;
+    }
+
+    // --threads, --charset, --builtins, --pipeline, --frm-controls and --regex-compatible, shared by the analyzing CLIs.
+    AnalyzerOptions analyzerOptions() {
+        return AnalyzerOptions.defaults()
+                .withParallelism(intOption("--threads", 1, 1))
+                .withEncoding(encoding())
+                .withBuiltins(builtins())
+                .withPipeline(flag("--pipeline") ? intOption("--io-threads", 4, 1) : 0)
+                .withFrmControls(flag("--frm-controls"))
+                .withRegexCompatible(flag("--regex-compatible"));
+    }
+
+    void fail(String message) {
+        if (message != null) {
+            System.err.println(message);
+        }
+        System.err.println(usage);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,175 @@
+package com.codex.vb6.cli;
+
+import com.codex.vb6.extractor.AnalysisCache;
+import com.codex.vb6.extractor.AnalyzerOptions;
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectAnalyzer;
+import com.codex.vb6.extractor.ScanMetrics;
+import com.codex.vb6.graph.GraphBuilder;
+import com.codex.vb6.graph.GraphNode;
+import com.codex.vb6.graph.GraphNodeType;
+import com.codex.vb6.graph.GraphQuery;
+import com.codex.vb6.graph.GraphView;
+import com.codex.vb6.graph.Snapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public final class GraphQueryCli {
+    private static final String USAGE = "Usage: GraphQueryCli [--threads N] [--charset CODEPAGE] [--builtins drop|tag|keep] "
+            + "[--builtins-file FILE] [--cache FILE] [--pipeline] [--io-threads N] [--regex-compatible] [--depth N] "
+            + "[--metrics DIR] "
+            + "<root-dir|snapshot> callers|callees|reachable|cycles|dead [node]";
+
+    public static void main(String[] args) throws IOException {
+        CliArgs cli = CliArgs.parse(args, USAGE, -1,
+                Set.of("--threads", "--charset", "--builtins", "--builtins-file", "--cache", "--depth", "--io-threads",
+                        "--metrics"),
+                Set.of("--pipeline", "--regex-compatible"));
+        List<String> positional = cli.positional();
+        if (positional.size() < 2) {
+            cli.fail(null);
+        }
+        String query = positional.get(1);
+        boolean needsNode = switch (query) {
+            case "callers", "callees", "reachable" -> true;
+            case "cycles", "dead" -> false;
+            default -> {
+                cli.fail("Unknown query: " + query);
+                yield false;
+            }
+        };
+        if (positional.size() != (needsNode ? 3 : 2)) {
+            cli.fail(null);
+        }
+        int depth = cli.intOption("--depth", GraphQuery.UNLIMITED, 1);
+
+        AnalyzerOptions options = cli.analyzerOptions();
+        if (cli.option("--metrics") != null) {
+            options = options.withMetrics(ScanMetrics.enabled(MetricsReport.SLOWEST_FILES));
+        }
+        ScanMetrics metrics = options.metrics();
+        AnalysisCache cache = null;
+        if (cli.option("--cache") != null) {
+            cache = AnalysisCache.open(Path.of(cli.option("--cache")), options.fingerprint());
+            options = options.withCache(cache);
+        }
+        Path root = Path.of(positional.get(0));
+        GraphView graph;
+        if (Files.isRegularFile(root)) {
+            // A snapshot written by ProjectAnalyzeCli --snapshot is queried in place.
+            graph = Snapshot.open(root);
+        } else {
+            ProjectAnalysis analysis = ProjectAnalyzer.analyze(root, options);
+            if (cache != null) {
+                cache.save();
+            }
+            ScanMetrics.Span build = metrics.begin(ScanMetrics.Phase.GRAPH);
+            graph = GraphBuilder.build(analysis, options.parallelism());
+            build.end();
+        }
+
+        ScanMetrics.Span output = metrics.begin(ScanMetrics.Phase.OUTPUT);
+        try (JsonWriter json = AnalysisJson.stdout()) {
+            json.beginObject().name("query").value(query);
+            if (needsNode) {
+                int node = findNode(graph, positional.get(2));
+                GraphQuery.Reach reach = switch (query) {
+                    case "callers" -> GraphQuery.callers(graph, node, depth);
+                    case "callees" -> GraphQuery.callees(graph, node, depth);
+                    default -> GraphQuery.reachable(graph, node);
+                };
+                json.name("node").value(graph.node(node).id()).name("results").beginArray();
+                for (int i = 0; i < reach.nodes().length; i++) {
+                    writeNode(json, graph.node(reach.nodes()[i]), reach.depths()[i]);
+                }
+                json.endArray();
+            } else if (query.equals("cycles")) {
+                json.name("results").beginArray();
+                for (int[] component : GraphQuery.cycles(graph)) {
+                    json.beginArray();
+                    for (int node : component) {
+                        json.value(graph.node(node).id());
+                    }
+                    json.endArray();
+                }
+                json.endArray();
+            } else {
+                json.name("results").beginArray();
+                for (int node : GraphQuery.deadRoutines(graph)) {
+                    writeNode(json, graph.node(node), -1);
+                }
+                json.endArray();
+            }
+            json.endObject().newline();
+        }
+        output.end();
+        if (metrics.isEnabled()) {
+            Path metricsDir = Path.of(cli.option("--metrics"));
+            Files.createDirectories(metricsDir);
+            MetricsReport.write(metricsDir, metrics, options.encoding().stats(), cache);
+        }
+    }
+
+    // Accepts a full node id, or a label / Module.Routine / Form.Event name that matches exactly one
+    // node (case-insensitive); declared nodes win over unresolved call targets with the same label.
+    private static int findNode(GraphView graph, String name) {
+        int node = graph.indexOf(name);
+        if (node >= 0) {
+            return node;
+        }
+        List<Integer> matches = new ArrayList<>();
+        List<Integer> targets = new ArrayList<>();
+        for (int n = 0; n < graph.nodeCount(); n++) {
+            GraphNode candidate = graph.node(n);
+            if (matches(candidate, name)) {
+                (candidate.type() == GraphNodeType.CALL_TARGET ? targets : matches).add(n);
+            }
+        }
+        if (matches.isEmpty()) {
+            matches = targets;
+        }
+        if (matches.size() == 1) {
+            return matches.get(0);
+        }
+        System.err.println(matches.isEmpty() ? "No node matches " + name : "Ambiguous node " + name + ", use one of:");
+        for (int match : matches) {
+            System.err.println("  " + graph.node(match).id());
+        }
+        System.exit(1);
+        return -1;
+    }
+
+    private static boolean matches(GraphNode node, String name) {
+        if (name.equalsIgnoreCase(node.label())) {
+            return true;
+        }
+        int dot = name.lastIndexOf('.');
+        if (dot < 0 || !name.substring(dot + 1).equalsIgnoreCase(node.label())) {
+            return false;
+        }
+        String parent = name.substring(0, dot).toLowerCase(Locale.ROOT);
+        String id = node.id().toLowerCase(Locale.ROOT);
+        return switch (node.type()) {
+            case ROUTINE -> id.endsWith(":module:" + parent + ":routine:" + name.substring(dot + 1).toLowerCase(Locale.ROOT));
+            case EVENT -> id.endsWith(":form:" + parent + ":event:" + name.substring(dot + 1).toLowerCase(Locale.ROOT));
+            default -> false;
+        };
+    }
+
+    private static void writeNode(JsonWriter json, GraphNode node, int depth) throws IOException {
+        json.beginObject()
+                .name("id").value(node.id())
+                .name("type").value(node.type().name())
+                .name("label").value(node.label());
+        if (depth >= 0) {
+            json.name("depth").value(depth);
+        }
+        json.endObject();
+    }
+}
@@ -0,0 +1,184 @@
+package com.codex.vb6.cli;
+
+import com.codex.vb6.extractor.AnalysisCache;
+import com.codex.vb6.extractor.ScanMetrics;
+import com.codex.vb6.parser.DecodeStats;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Writes {@link ScanMetrics} as metrics.json and as metrics.prom in the Prometheus text format,
+ * e.g. for the node exporter's textfile collector. Times are in seconds in the .prom file and in
+ * nanoseconds in the JSON.
+ */
+final class MetricsReport {
+    static final int SLOWEST_FILES = 20;
+
+    private MetricsReport() {
+    }
+
+    static void write(Path outputDir, ScanMetrics metrics, DecodeStats decode, AnalysisCache cache)
+            throws IOException {
+        long elapsed = metrics.elapsedNanos();
+        try (JsonWriter json = AnalysisJson.open(outputDir.resolve("metrics.json"))) {
+            writeJson(json, metrics, elapsed, decode, cache);
+        }
+        try (Writer prom = Files.newBufferedWriter(outputDir.resolve("metrics.prom"), StandardCharsets.UTF_8)) {
+            writePrometheus(prom, metrics, elapsed, decode, cache);
+        }
+    }
+
+    private static void writeJson(JsonWriter json, ScanMetrics metrics, long elapsed, DecodeStats decode,
+                                  AnalysisCache cache) throws IOException {
+        json.beginObject().name("elapsedNanos").value(elapsed);
+        json.name("phases").beginArray();
+        for (ScanMetrics.PhaseStats phase : metrics.phases()) {
+            json.beginObject()
+                    .name("phase").value(name(phase.phase()))
+                    .name("calls").value(phase.calls())
+                    .name("nanos").value(phase.nanos())
+                    .name("busyNanos").value(phase.busyNanos())
+                    .name("allocatedBytes").value(phase.allocatedBytes());
+            if (phase.files() > 0) {
+                json.name("files").value(phase.files())
+                        .name("bytes").value(phase.bytes())
+                        .name("lines").value(phase.lines())
+                        .name("filesPerSecond").value(phase.filesPerSecond())
+                        .name("bytesPerSecond").value(phase.bytesPerSecond());
+                if (phase.lines() > 0) {
+                    json.name("lexerNanos").value(phase.visitNanos());
+                }
+            }
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("decode").beginArray();
+        for (DecodeStats.CharsetThroughput charset : decode.snapshot()) {
+            json.beginObject()
+                    .name("charset").value(charset.charset())
+                    .name("files").value(charset.files())
+                    .name("bytes").value(charset.bytes())
+                    .name("nanos").value(charset.nanos())
+                    .endObject();
+        }
+        json.endArray();
+
+        if (cache != null) {
+            json.name("cache").beginObject()
+                    .name("hits").value(cache.hits())
+                    .name("misses").value(cache.misses())
+                    .endObject();
+        }
+
+        json.name("slowestFiles").beginArray();
+        for (ScanMetrics.FileTiming file : metrics.slowestFiles()) {
+            json.beginObject()
+                    .name("path").value(file.path())
+                    .name("phase").value(name(file.phase()))
+                    .name("bytes").value(file.bytes())
+                    .name("lines").value(file.lines())
+                    .name("nanos").value(file.nanos())
+                    .endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    private static void writePrometheus(Writer out, ScanMetrics metrics, long elapsed, DecodeStats decode,
+                                        AnalysisCache cache) throws IOException {
+        header(out, "vb6_scan_duration_seconds", "gauge", "Wall time of the scan.");
+        sample(out, "vb6_scan_duration_seconds", null, null, seconds(elapsed));
+
+        header(out, "vb6_phase_seconds", "gauge", "Time spent per phase, summed over threads.");
+        for (ScanMetrics.PhaseStats phase : metrics.phases()) {
+            sample(out, "vb6_phase_seconds", "phase", name(phase.phase()), seconds(phase.nanos()));
+        }
+        header(out, "vb6_phase_busy_seconds", "gauge", "Wall time during which a phase had work running.");
+        for (ScanMetrics.PhaseStats phase : metrics.phases()) {
+            sample(out, "vb6_phase_busy_seconds", "phase", name(phase.phase()), seconds(phase.busyNanos()));
+        }
+        header(out, "vb6_phase_calls", "gauge", "Units of work measured per phase.");
+        for (ScanMetrics.PhaseStats phase : metrics.phases()) {
+            sample(out, "vb6_phase_calls", "phase", name(phase.phase()), phase.calls());
+        }
+        header(out, "vb6_phase_allocated_bytes", "gauge", "Heap allocated per phase, summed over threads.");
+        for (ScanMetrics.PhaseStats phase : metrics.phases()) {
+            sample(out, "vb6_phase_allocated_bytes", "phase", name(phase.phase()), phase.allocatedBytes());
+        }
+        header(out, "vb6_phase_files", "gauge", "Files processed per phase.");
+        for (ScanMetrics.PhaseStats phase : metrics.phases()) {
+            if (phase.files() > 0) {
+                sample(out, "vb6_phase_files", "phase", name(phase.phase()), phase.files());
+            }
+        }
+        header(out, "vb6_phase_bytes", "gauge", "File bytes processed per phase.");
+        for (ScanMetrics.PhaseStats phase : metrics.phases()) {
+            if (phase.files() > 0) {
+                sample(out, "vb6_phase_bytes", "phase", name(phase.phase()), phase.bytes());
+            }
+        }
+        header(out, "vb6_phase_lines", "gauge", "Source lines extracted per phase.");
+        for (ScanMetrics.PhaseStats phase : metrics.phases()) {
+            if (phase.lines() > 0) {
+                sample(out, "vb6_phase_lines", "phase", name(phase.phase()), phase.lines());
+            }
+        }
+        header(out, "vb6_lexer_seconds", "gauge", "Time spent lexing and extracting lines, without decoding.");
+        for (ScanMetrics.PhaseStats phase : metrics.phases()) {
+            if (phase.lines() > 0) {
+                sample(out, "vb6_lexer_seconds", "phase", name(phase.phase()), seconds(phase.visitNanos()));
+            }
+        }
+
+        header(out, "vb6_decode_seconds", "gauge", "Time spent decoding source files per charset.");
+        for (DecodeStats.CharsetThroughput charset : decode.snapshot()) {
+            sample(out, "vb6_decode_seconds", "charset", charset.charset(), seconds(charset.nanos()));
+        }
+        header(out, "vb6_decode_bytes", "gauge", "Source bytes decoded per charset.");
+        for (DecodeStats.CharsetThroughput charset : decode.snapshot()) {
+            sample(out, "vb6_decode_bytes", "charset", charset.charset(), charset.bytes());
+        }
+
+        if (cache != null) {
+            header(out, "vb6_cache_hits", "gauge", "Files served from the analysis cache.");
+            sample(out, "vb6_cache_hits", null, null, cache.hits());
+            header(out, "vb6_cache_misses", "gauge", "Files extracted despite the analysis cache.");
+            sample(out, "vb6_cache_misses", null, null, cache.misses());
+        }
+    }
+
+    private static void header(Writer out, String metric, String type, String help) throws IOException {
+        out.write("# HELP " + metric + " " + help + "\n");
+        out.write("# TYPE " + metric + " " + type + "\n");
+    }
+
+    private static void sample(Writer out, String metric, String label, String value, double sample)
+            throws IOException {
+        out.write(metric);
+        if (label != null) {
+            out.write("{" + label + "=\"" + escape(value) + "\"}");
+        }
+        out.write(" ");
+        out.write(sample == Math.rint(sample) && Math.abs(sample) < 1e15
+                ? Long.toString((long) sample)
+                : String.format(Locale.ROOT, "%.6f", sample));
+        out.write("\n");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+
+    private static String name(ScanMetrics.Phase phase) {
+        return phase.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,52 @@
+package com.codex.vb6.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A UTF-8 output written to a temporary file next to its target and moved over the target only by
+ * {@link #commit()}. Closing without committing deletes the temporary file, so a run that fails
+ * half way leaves the previous output in place.
+ */
+final class OutputFile implements Closeable {
+    private final Path target;
+    private final Path temp;
+    private final Writer writer;
+    private boolean committed;
+
+    private OutputFile(Path target) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+    }
+
+    static OutputFile create(Path target) throws IOException {
+        return new OutputFile(target);
+    }
+
+    Writer writer() {
+        return writer;
+    }
+
+    void commit() throws IOException {
+        writer.close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            try {
+                writer.close();
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
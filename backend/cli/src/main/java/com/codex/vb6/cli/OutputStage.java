@@ -0,0 +1,110 @@
+package com.codex.vb6.cli;
+
+import com.codex.vb6.extractor.ProjectSummary;
+import com.codex.vb6.extractor.ScanMetrics;
+import com.codex.vb6.graph.GraphBuilder;
+import com.codex.vb6.graph.GraphModel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Last stage of the pipelined scan: writes each project to analysis.json and merges it into the
+ * graph on a thread of its own, so the analyzer can go on with the next project. Projects arrive
+ * in order through a bounded queue; an empty {@code Optional} marks the end.
+ */
+final class OutputStage implements AutoCloseable {
+    private static final int CAPACITY = 16;
+
+    private final BlockingQueue<Optional<ProjectSummary>> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final JsonWriter json;
+    private final ScanMetrics metrics;
+    private final GraphModel graph = new GraphModel();
+    private final Thread thread;
+    private volatile Throwable failure;
+
+    OutputStage(JsonWriter json, ScanMetrics metrics) {
+        this.json = json;
+        this.metrics = metrics;
+        this.thread = new Thread(this::run, "scan-output");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void accept(ProjectSummary project) throws IOException {
+        put(Optional.of(project));
+    }
+
+    /** Waits for every accepted project to be written and returns the merged graph. */
+    GraphModel finish() throws IOException {
+        put(Optional.empty());
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing output");
+        }
+        checkFailure();
+        return graph;
+    }
+
+    // Stops the thread after a failed analysis; it must not touch the writer once this returns.
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while stopping output");
+        }
+    }
+
+    private void run() {
+        try {
+            Optional<ProjectSummary> next;
+            while ((next = queue.take()).isPresent()) {
+                ScanMetrics.Span output = metrics.begin(ScanMetrics.Phase.OUTPUT);
+                AnalysisJson.writeSummary(json, next.get());
+                output.end();
+                ScanMetrics.Span merge = metrics.begin(ScanMetrics.Phase.GRAPH);
+                GraphBuilder.addProject(graph, next.get());
+                merge.end();
+            }
+        } catch (InterruptedException e) {
+            // Closed before the end marker: the analysis failed.
+        } catch (Throwable e) {
+            failure = e;
+        }
+    }
+
+    // Polls instead of blocking for good, so a failed output thread cannot stall the analyzer.
+    private void put(Optional<ProjectSummary> item) throws IOException {
+        try {
+            while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing output");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable e = failure;
+        if (e instanceof IOException io) {
+            throw io;
+        }
+        if (e instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (e instanceof Error error) {
+            throw error;
+        }
+    }
+}
@@ -1,217 +1,411 @@
 package com.codex.vb6.cli;
 
+import com.codex.vb6.extractor.AnalysisCache;
+import com.codex.vb6.extractor.AnalyzerOptions;
 import com.codex.vb6.extractor.BasAnalysis;
+import com.codex.vb6.extractor.BasRoutine;
+import com.codex.vb6.extractor.CallKind;
 import com.codex.vb6.extractor.EntryStatus;
 import com.codex.vb6.extractor.FrmAnalysis;
 import com.codex.vb6.extractor.FrmCall;
 import com.codex.vb6.extractor.FrmEvent;
+import com.codex.vb6.extractor.PartialAnalysis;
 import com.codex.vb6.extractor.ProjectAnalysis;
 import com.codex.vb6.extractor.ProjectAnalyzer;
+import com.codex.vb6.extractor.ProjectListener;
 import com.codex.vb6.extractor.ProjectSummary;
+import com.codex.vb6.extractor.ScanMetrics;
+import com.codex.vb6.extractor.Shard;
+import com.codex.vb6.extractor.SymbolIndex;
 import com.codex.vb6.graph.GraphBuilder;
 import com.codex.vb6.graph.GraphModel;
+import com.codex.vb6.graph.GraphNode;
+import com.codex.vb6.graph.GraphNodeType;
+import com.codex.vb6.graph.MermaidOptions;
 import com.codex.vb6.graph.MermaidRenderer;
-import com.codex.vb6.parser.VbpEntry;
+import com.codex.vb6.graph.Snapshot;
+import com.codex.vb6.graph.SymbolTable;
+import com.codex.vb6.parser.DecodeStats;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public final class ProjectAnalyzeCli {
+    private static final String USAGE = "Usage: ProjectAnalyzeCli [--threads N] [--charset CODEPAGE] "
+            + "[--builtins drop|tag|keep] [--builtins-file FILE] [--cache FILE] [--invalidate-cache] [--mermaid-cluster] [--mermaid-collapse N] "
+            + "[--mermaid-max-nodes N] [--mermaid-max-edges N] [--pipeline] [--io-threads N] [--frm-controls] "
+            + "[--regex-compatible] [--metrics] [--snapshot] [--symbols] [--watch] [--shard i/N] <root-dir> <output-dir>";
+    private static final Set<String> MERMAID_OPTIONS = Set.of(
+            "--mermaid-collapse", "--mermaid-max-nodes", "--mermaid-max-edges");
+    // Outputs of a whole scan; a shard only writes its partial.
+    private static final List<String> UNSHARDED_FLAGS = List.of(
+            "--mermaid-cluster", "--metrics", "--snapshot", "--symbols", "--watch");
+
     public static void main(String[] args) throws IOException {
-        if (args.length != 2) {
-            System.err.println("Usage: ProjectAnalyzeCli <root-dir> <output-dir>");
-            System.exit(1);
+        CliArgs cli = CliArgs.parse(args, USAGE, 2,
+                Set.of("--threads", "--charset", "--builtins", "--builtins-file", "--cache",
+                        "--mermaid-collapse", "--mermaid-max-nodes", "--mermaid-max-edges", "--io-threads", "--shard"),
+                Set.of("--invalidate-cache", "--mermaid-cluster", "--pipeline", "--frm-controls", "--regex-compatible", "--metrics",
+                        "--snapshot", "--symbols", "--watch"));
+        Shard shard = shard(cli);
+        boolean watch = cli.flag("--watch");
+        Path rootDir = Path.of(cli.positional().get(0));
+        if (watch) {
+            // Watch events carry normalized paths; project paths have to match them.
+            rootDir = rootDir.toAbsolutePath().normalize();
         }
+        Path outputDir = Path.of(cli.positional().get(1));
 
-        Path rootDir = Path.of(args[0]);
-        Path outputDir = Path.of(args[1]);
+        AnalyzerOptions options = cli.analyzerOptions();
+        if (cli.flag("--metrics")) {
+            options = options.withMetrics(ScanMetrics.enabled(MetricsReport.SLOWEST_FILES));
+        }
+        ScanMetrics metrics = options.metrics();
+        SymbolIndex.Builder symbols = cli.flag("--symbols") ? new SymbolIndex.Builder() : null;
+        options = options.withSymbols(symbols);
+        AnalysisCache cache = null;
+        if (cli.option("--cache") != null) {
+            cache = AnalysisCache.open(Path.of(cli.option("--cache")), options.fingerprint());
+            if (cli.flag("--invalidate-cache")) {
+                cache.invalidate();
+            }
+            options = options.withCache(cache);
+        } else if (watch) {
+            // Keeps every extracted file in memory so updates only re-extract what changed.
+            options = options.withCache(AnalysisCache.inMemory(options.fingerprint()));
+        }
         Files.createDirectories(outputDir);
+        if (shard != null) {
+            analyzeShard(shard, rootDir, outputDir, options, cache);
+            return;
+        }
 
-        ProjectAnalysis analysis = ProjectAnalyzer.analyze(rootDir);
-        GraphModel graph = GraphBuilder.build(analysis);
-        writeFile(outputDir.resolve("analysis.json"), toJson(analysis));
-        writeFile(outputDir.resolve("report.md"), toMarkdown(analysis, graph));
+        ProjectAnalysis analysis;
+        GraphModel graph = null;
+        // analysis.json is written project by project while the rest of the tree is still being analyzed.
+        // The projects are still kept in memory for the graph, report.md and the other outputs.
+        try (OutputFile file = OutputFile.create(outputDir.resolve("analysis.json"));
+             JsonWriter json = new JsonWriter(file.writer());
+             OutputStage output = options.ioThreads() > 0 ? new OutputStage(json, metrics) : null) {
+            json.beginObject().name("projects").beginArray();
+            analysis = ProjectAnalyzer.analyze(rootDir, options, new ProjectListener() {
+                @Override
+                public void projectAnalyzed(ProjectSummary project) throws IOException {
+                    if (output != null) {
+                        output.accept(project);
+                    } else {
+                        ScanMetrics.Span span = metrics.begin(ScanMetrics.Phase.OUTPUT);
+                        AnalysisJson.writeSummary(json, project);
+                        span.end();
+                    }
+                }
 
-        System.out.println("Wrote analysis.json and report.md to " + outputDir.toAbsolutePath());
-    }
+                @Override
+                public void filesShared(long references, long uniqueFiles) {
+                    System.out.printf(Locale.ROOT, "Shared files: %d references to %d files (dedup %.2fx)%n",
+                            references, uniqueFiles, uniqueFiles == 0 ? 1.0 : (double) references / uniqueFiles);
+                }
+            });
+            if (output != null) {
+                graph = output.finish();
+            }
+            json.endArray().endObject();
+            file.commit();
+        }
+        if (cache != null) {
+            cache.save();
+            System.out.println("Cache: " + cache.hits() + " hits, " + cache.misses() + " misses");
+        }
+        for (DecodeStats.CharsetThroughput decode : options.encoding().stats().snapshot()) {
+            System.out.printf(Locale.ROOT, "Decode %s: %d files, %.1f MB, %.1f MB/s%n", decode.charset(),
+                    decode.files(), decode.bytes() / 1_048_576.0, decode.megabytesPerSecond());
+        }
+        if (graph == null) {
+            ScanMetrics.Span span = metrics.begin(ScanMetrics.Phase.GRAPH);
+            graph = GraphBuilder.build(analysis, options.parallelism());
+            span.end();
+        }
+        MermaidOptions mermaid = mermaidOptions(cli);
+        ScanMetrics.Span report = metrics.begin(ScanMetrics.Phase.OUTPUT);
+        writeReport(outputDir, analysis, graph, mermaid);
+        report.end();
+        if (metrics.isEnabled()) {
+            MetricsReport.write(outputDir, metrics, options.encoding().stats(), cache);
+            System.out.println("Wrote metrics.json and metrics.prom to " + outputDir.toAbsolutePath());
+        }
 
-    private static void writeFile(Path path, String contents) throws IOException {
-        Files.writeString(path, contents, StandardCharsets.UTF_8);
-    }
+        boolean snapshot = cli.flag("--snapshot");
+        if (snapshot) {
+            Snapshot.write(outputDir.resolve("analysis.snap"), analysis, graph);
+        }
+        if (symbols != null) {
+            symbols.write(outputDir.resolve("symbols.idx"));
+        }
 
-    private static String toJson(ProjectAnalysis analysis) {
-        String projects = analysis.projects().stream()
-                .map(ProjectAnalyzeCli::projectToJson)
-                .collect(Collectors.joining(","));
-        return "{" + "\"projects\":[" + projects + "]}";
+        System.out.println("Wrote analysis.json and report.md to " + outputDir.toAbsolutePath());
+        if (watch) {
+            new ProjectWatcher(rootDir, options, analysis, graph, (updated, updatedGraph) -> {
+                writeAnalysisJson(outputDir, updated);
+                writeReport(outputDir, updated, updatedGraph, mermaid);
+                if (snapshot) {
+                    Snapshot.write(outputDir.resolve("analysis.snap"), updated, updatedGraph);
+                }
+                if (symbols != null) {
+                    // Re-analyzed files replaced their own entries; drop files no project refers to now.
+                    symbols.retainFiles(updated.projects().stream()
+                            .flatMap(project -> project.entries().stream())
+                            .map(EntryStatus::resolvedPath)
+                            .collect(Collectors.toSet()));
+                    symbols.write(outputDir.resolve("symbols.idx"));
+                }
+            }).run();
+        }
     }
 
-    private static String projectToJson(ProjectSummary project) {
-        String entries = project.entries().stream()
-                .map(ProjectAnalyzeCli::entryToJson)
-                .collect(Collectors.joining(","));
-        String forms = project.forms().stream()
-                .map(ProjectAnalyzeCli::formToJson)
-                .collect(Collectors.joining(","));
-        String modules = project.modules().stream()
-                .map(ProjectAnalyzeCli::moduleToJson)
-                .collect(Collectors.joining(","));
-
-        return "{" +
-                "\"vbpPath\":" + jsonString(project.vbpPath()) + "," +
-                "\"name\":" + jsonString(project.project().name()) + "," +
-                "\"startup\":" + jsonString(project.project().startup()) + "," +
-                "\"entries\":[" + entries + "]," +
-                "\"forms\":[" + forms + "]," +
-                "\"modules\":[" + modules + "]" +
-                "}";
+    // Writes shard-I-of-N.partial for ShardMergeCli.
+    private static void analyzeShard(Shard shard, Path rootDir, Path outputDir, AnalyzerOptions options,
+                                     AnalysisCache cache) throws IOException {
+        ProjectAnalysis analysis = ProjectAnalyzer.analyze(rootDir, options.withShard(shard));
+        if (cache != null) {
+            cache.save();
+        }
+        Path file = outputDir.resolve(partialName(shard));
+        new PartialAnalysis(shard, rootDir.toString(), options.fingerprint(), analysis).write(file);
+        System.out.println("Wrote shard " + shard + " (" + analysis.projects().size() + " projects) to "
+                + file.toAbsolutePath());
     }
 
-    private static String entryToJson(EntryStatus status) {
-        VbpEntry entry = status.entry();
-        return "{" +
-                "\"type\":" + jsonString(entry.type().name()) + "," +
-                "\"name\":" + jsonString(entry.name()) + "," +
-                "\"path\":" + jsonString(entry.path()) + "," +
-                "\"resolved\":" + jsonString(status.resolvedPath()) + "," +
-                "\"exists\":" + status.exists() +
-                "}";
+    private static Shard shard(CliArgs cli) {
+        String value = cli.option("--shard");
+        if (value == null) {
+            return null;
+        }
+        for (String name : UNSHARDED_FLAGS) {
+            if (cli.flag(name)) {
+                cli.fail(name + " cannot be combined with --shard");
+            }
+        }
+        if (MERMAID_OPTIONS.stream().anyMatch(name -> cli.option(name) != null)) {
+            cli.fail("--mermaid-* options cannot be combined with --shard; pass them to ShardMergeCli");
+        }
+        try {
+            return Shard.parse(value);
+        } catch (IllegalArgumentException e) {
+            cli.fail("Invalid value for --shard: " + value);
+            return null;
+        }
     }
 
-    private static String formToJson(FrmAnalysis form) {
-        String events = form.events().stream()
-                .map(ProjectAnalyzeCli::eventToJson)
-                .collect(Collectors.joining(","));
-        return "{" +
-                "\"form\":" + jsonString(form.formName()) + "," +
-                "\"events\":[" + events + "]" +
-                "}";
+    private static String partialName(Shard shard) {
+        return "shard-" + shard.index() + "-of-" + shard.count() + ".partial";
     }
 
-    private static String eventToJson(FrmEvent event) {
-        String calls = event.calls().stream()
-                .map(ProjectAnalyzeCli::callToJson)
-                .collect(Collectors.joining(","));
-        return "{" +
-                "\"name\":" + jsonString(event.name()) + "," +
-                "\"line\":" + event.lineNumber() + "," +
-                "\"calls\":[" + calls + "]" +
-                "}";
+    static void writeAnalysisJson(Path outputDir, ProjectAnalysis analysis) throws IOException {
+        try (OutputFile file = OutputFile.create(outputDir.resolve("analysis.json"));
+             JsonWriter json = new JsonWriter(file.writer())) {
+            json.beginObject().name("projects").beginArray();
+            for (ProjectSummary project : analysis.projects()) {
+                AnalysisJson.writeSummary(json, project);
+            }
+            json.endArray().endObject();
+            file.commit();
+        }
     }
 
-    private static String callToJson(FrmCall call) {
-        return "{" +
-                "\"type\":" + jsonString(call.type()) + "," +
-                "\"target\":" + jsonString(call.target()) + "," +
-                "\"line\":" + jsonString(call.line()) +
-                "}";
+    static void writeReport(Path outputDir, ProjectAnalysis analysis, GraphModel graph,
+                                    MermaidOptions mermaid) throws IOException {
+        deleteGraphFiles(outputDir);
+        try (OutputFile report = OutputFile.create(outputDir.resolve("report.md"))) {
+            writeMarkdown(report.writer(), analysis, graph, mermaid, outputDir);
+            report.commit();
+        }
     }
 
-    private static String moduleToJson(BasAnalysis module) {
-        return "{" +
-                "\"module\":" + jsonString(module.moduleName()) + "," +
-                "\"routines\":" + module.routines().size() +
-                "}";
+    // Null keeps the single full-graph diagram; any --mermaid-* option switches to budgeted rendering.
+    static MermaidOptions mermaidOptions(CliArgs cli) {
+        boolean requested = cli.flag("--mermaid-cluster")
+                || MERMAID_OPTIONS.stream().anyMatch(name -> cli.option(name) != null);
+        if (!requested) {
+            return null;
+        }
+        return MermaidOptions.defaults()
+                .withClusterProjects(cli.flag("--mermaid-cluster"))
+                .withCollapseFanIn(cli.intOption("--mermaid-collapse", 0, 0))
+                .withMaxNodes(cli.intOption("--mermaid-max-nodes", MermaidOptions.UNLIMITED, 2))
+                .withMaxEdges(cli.intOption("--mermaid-max-edges", MermaidOptions.UNLIMITED, 1));
     }
 
-    private static String toMarkdown(ProjectAnalysis analysis, GraphModel graph) {
-        StringBuilder builder = new StringBuilder();
-        builder.append("# VB6 專案分析報告\n\n");
-        builder.append("共掃描 ").append(analysis.projects().size()).append(" 個 .vbp 專案。\n\n");
+    private static void writeMarkdown(Writer out, ProjectAnalysis analysis, GraphModel graph,
+                                      MermaidOptions mermaid, Path outputDir) throws IOException {
+        out.append("# VB6 專案分析報告\n\n");
+        out.append("共掃描 ").append(String.valueOf(analysis.projects().size())).append(" 個 .vbp 專案。\n\n");
 
         for (ProjectSummary project : analysis.projects()) {
-            builder.append("## ").append(nullSafe(project.project().name(), "(未命名專案)"))
+            out.append("## ").append(nullSafe(project.project().name(), "(未命名專案)"))
                     .append("\n\n");
-            builder.append("- VBP: ").append(project.vbpPath()).append("\n");
-            builder.append("- Startup: ").append(nullSafe(project.project().startup(), "(未指定)"))
+            out.append("- VBP: ").append(project.vbpPath()).append("\n");
+            out.append("- Startup: ").append(nullSafe(project.project().startup(), "(未指定)"))
                     .append("\n");
-            builder.append("- Entries: ").append(project.entries().size()).append("\n");
-            builder.append("- Forms: ").append(project.forms().size()).append("\n");
-            builder.append("- Modules: ").append(project.modules().size()).append("\n\n");
+            out.append("- Entries: ").append(String.valueOf(project.entries().size())).append("\n");
+            out.append("- Forms: ").append(String.valueOf(project.forms().size())).append("\n");
+            out.append("- Modules: ").append(String.valueOf(project.modules().size())).append("\n\n");
 
-            builder.append("### 缺失檔案\n\n");
+            out.append("### 缺失檔案\n\n");
             List<EntryStatus> missing = project.entries().stream()
                     .filter(status -> !status.exists())
                     .toList();
             if (missing.isEmpty()) {
-                builder.append("- (無)\n\n");
+                out.append("- (無)\n\n");
             } else {
                 for (EntryStatus status : missing) {
-                    builder.append("- ").append(status.entry().type()).append(": ")
+                    out.append("- ").append(status.entry().type().name()).append(": ")
                             .append(status.entry().path()).append("\n");
                 }
-                builder.append("\n");
+                out.append("\n");
             }
 
-            builder.append("### 表單事件與呼叫關係\n\n");
+            out.append("### 表單事件與呼叫關係\n\n");
             if (project.forms().isEmpty()) {
-                builder.append("- (無)\n\n");
+                out.append("- (無)\n\n");
             } else {
                 for (FrmAnalysis form : project.forms()) {
-                    builder.append("#### ").append(nullSafe(form.formName(), "(未命名 Form)"))
+                    out.append("#### ").append(nullSafe(form.formName(), "(未命名 Form)"))
                             .append("\n\n");
                     if (form.events().isEmpty()) {
-                        builder.append("- (無事件)\n\n");
+                        out.append("- (無事件)\n\n");
                         continue;
                     }
                     for (FrmEvent event : form.events()) {
-                        builder.append("- ").append(event.name()).append(" (line ")
-                                .append(event.lineNumber()).append(")\n");
+                        out.append("- ").append(event.name()).append(" (line ")
+                                .append(String.valueOf(event.lineNumber())).append(")\n");
                         for (FrmCall call : event.calls()) {
-                            builder.append("  - ").append(call.type()).append(": ")
+                            out.append("  - ").append(call.type()).append(": ")
                                     .append(call.target()).append("\n");
                         }
                     }
-                    builder.append("\n");
+                    out.append("\n");
                 }
             }
 
-            builder.append("### Mermaid 呼叫圖（Form Events）\n\n");
-            builder.append(renderFormMermaid(project));
-            builder.append("\n");
+            out.append("### Mermaid 呼叫圖（Form Events）\n\n");
+            if (mermaid == null) {
+                writeFormMermaid(out, project);
+            } else {
+                writeFormDiagrams(out, project, mermaid);
+            }
+            out.append("\n");
         }
 
-        builder.append("## 全專案 Mermaid Graph\n\n");
-        builder.append(MermaidRenderer.render(graph));
-        builder.append("\n");
+        out.append("## 全專案 Mermaid Graph\n\n");
+        if (mermaid == null) {
+            out.append(MermaidRenderer.render(graph));
+        } else {
+            writeGraphDiagrams(out, MermaidRenderer.render(graph, mermaid), outputDir);
+        }
+        out.append("\n");
+    }
 
-        return builder.toString();
+    // Parts of an earlier, larger graph would otherwise stay next to the new report.
+    private static void deleteGraphFiles(Path outputDir) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(outputDir, "graph-*.mmd")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
     }
 
-    private static String renderFormMermaid(ProjectSummary project) {
-        StringBuilder builder = new StringBuilder();
-        builder.append("```mermaid\n");
-        builder.append("graph TD\n");
+    // A single diagram is inlined; larger graphs go to graph-NNN.mmd files next to the report.
+    private static void writeGraphDiagrams(Writer out, List<String> diagrams, Path outputDir) throws IOException {
+        if (diagrams.size() == 1) {
+            out.append("```mermaid\n").append(diagrams.get(0)).append("```\n");
+            return;
+        }
+        out.append("圖形超過節點／邊數上限，已分割為 ").append(String.valueOf(diagrams.size())).append(" 個檔案：\n\n");
+        for (int i = 0; i < diagrams.size(); i++) {
+            String name = String.format(Locale.ROOT, "graph-%03d.mmd", i + 1);
+            Files.writeString(outputDir.resolve(name), diagrams.get(i), StandardCharsets.UTF_8);
+            out.append("- [").append(name).append("](").append(name).append(")\n");
+        }
+    }
+
+    private static void writeFormMermaid(Writer out, ProjectSummary project) throws IOException {
+        Predicate<FrmCall> drawn = drawnCalls(project);
+        out.append("```mermaid\n");
+        out.append("graph TD\n");
         for (FrmAnalysis form : project.forms()) {
             for (FrmEvent event : form.events()) {
                 String eventNode = sanitize(form.formName()) + "_" + sanitize(event.name());
-                builder.append("  ").append(eventNode).append("[\"")
+                out.append("  ").append(eventNode).append("[\"")
                         .append(nullSafe(event.name(), "event"))
                         .append("\"]\n");
                 for (FrmCall call : event.calls()) {
+                    if (!drawn.test(call)) {
+                        continue;
+                    }
                     String targetNode = sanitize(call.target());
-                    builder.append("  ").append(eventNode).append(" --> ")
+                    out.append("  ").append(eventNode).append(" --> ")
                             .append(targetNode).append("[\"")
                             .append(call.target()).append("\"]\n");
                 }
             }
         }
-        builder.append("```\n");
-        return builder.toString();
+        out.append("```\n");
     }
 
-    private static String jsonString(String value) {
-        if (value == null) {
-            return "null";
+    // Under a budget the form graph is split like the project graph instead of being cut off. The project
+    // and form nodes root the events the way the call graph does, so clustering and fan-in collapsing apply too.
+    private static void writeFormDiagrams(Writer out, ProjectSummary project, MermaidOptions mermaid)
+            throws IOException {
+        Predicate<FrmCall> drawn = drawnCalls(project);
+        GraphModel model = new GraphModel();
+        int projectNode = model.addNode(new GraphNode("project", GraphNodeType.PROJECT,
+                nullSafe(project.project().name(), "(未命名專案)")));
+        for (FrmAnalysis form : project.forms()) {
+            int formNode = model.addNode(new GraphNode("form:" + form.formName(), GraphNodeType.FORM,
+                    nullSafe(form.formName(), "(未命名 Form)")));
+            model.addEdge(projectNode, formNode, "HAS_FORM");
+            for (FrmEvent event : form.events()) {
+                int eventNode = model.addNode(new GraphNode("event:" + form.formName() + ":" + event.name(),
+                        GraphNodeType.EVENT, nullSafe(event.name(), "event")));
+                model.addEdge(formNode, eventNode, "HAS_EVENT");
+                for (FrmCall call : event.calls()) {
+                    if (!drawn.test(call)) {
+                        continue;
+                    }
+                    int targetNode = model.addNode(new GraphNode("call:" + call.target(),
+                            GraphNodeType.CALL_TARGET, call.target()));
+                    model.addEdge(eventNode, targetNode, call.type());
+                }
+            }
+        }
+        List<String> diagrams = MermaidRenderer.render(model, mermaid);
+        if (diagrams.size() > 1) {
+            out.append("圖形超過節點／邊數上限，已分割為 ").append(String.valueOf(diagrams.size())).append(" 張圖。\n\n");
+        }
+        for (String diagram : diagrams) {
+            out.append("```mermaid\n").append(diagram).append("```\n");
+        }
+    }
+
+    // Like the call graph, a BUILTIN call is only drawn when the project declares a routine of that name.
+    private static Predicate<FrmCall> drawnCalls(ProjectSummary project) {
+        SymbolTable routines = new SymbolTable();
+        for (BasAnalysis module : project.modules()) {
+            for (BasRoutine routine : module.routines()) {
+                routines.addRoutine(module.moduleName(), routine.name(), 0);
+            }
         }
-        String escaped = value
-                .replace("\\", "\\\\")
-                .replace("\"", "\\\"");
-        return "\"" + escaped + "\"";
+        return call -> call.kind() != CallKind.BUILTIN
+                || routines.routine(call.target(), null) != SymbolTable.UNRESOLVED;
     }
 
     private static String nullSafe(String value, String fallback) {
@@ -222,6 +416,6 @@ public final class ProjectAnalyzeCli {
         if (value == null) {
             return "Unknown";
         }
-        return value.replaceAll("[^A-Za-z0-9_]", "_");
+        return MermaidRenderer.sanitize(value);
     }
 }
@@ -0,0 +1,291 @@
+package com.codex.vb6.cli;
+
+import com.codex.vb6.extractor.AnalyzerOptions;
+import com.codex.vb6.extractor.EntryStatus;
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectAnalyzer;
+import com.codex.vb6.extractor.ProjectSummary;
+import com.codex.vb6.graph.GraphBuilder;
+import com.codex.vb6.graph.GraphModel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps an analysis and its graph up to date while files under the root change.
+ *
+ * <p>Events are collected until the tree has been quiet for {@link #DEBOUNCE_MILLIS}. A changed
+ * .vbp is parsed again; a changed .frm or .bas re-analyzes the projects that reference it, and
+ * the analyzer cache in the options makes that re-extract only the files that really changed.
+ * The graph is patched per project with {@link GraphBuilder#replaceProjects}.
+ *
+ * <p>An I/O error while updating is reported with the failing path and the watch goes on: a
+ * project that cannot be analyzed keeps its previous result until its files change again, and a
+ * directory that cannot be registered is skipped.
+ */
+final class ProjectWatcher {
+    interface Outputs {
+        void write(ProjectAnalysis analysis, GraphModel graph) throws IOException;
+    }
+
+    private static final long DEBOUNCE_MILLIS = 200;
+    private static final long MAX_BATCH_MILLIS = 2_000;
+
+    private final Path root;
+    private final AnalyzerOptions options;
+    private final Outputs outputs;
+    // Keyed by vbpPath, so iteration matches the order ProjectAnalyzer reports projects in.
+    private final Map<String, ProjectSummary> projects = new TreeMap<>();
+    private final Map<Path, Set<String>> projectsByFile = new HashMap<>();
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private GraphModel graph;
+
+    ProjectWatcher(Path root, AnalyzerOptions options, ProjectAnalysis analysis, GraphModel graph, Outputs outputs) {
+        this.root = root;
+        this.options = options;
+        this.outputs = outputs;
+        this.graph = graph;
+        reset(analysis);
+    }
+
+    void run() throws IOException {
+        try (WatchService watcher = root.getFileSystem().newWatchService()) {
+            registerTree(watcher, root, null);
+            System.out.println("Watching " + root.toAbsolutePath() + " (Ctrl+C to stop)");
+            while (true) {
+                Set<Path> changed = new TreeSet<>();
+                boolean overflow = collect(watcher, watcher.take(), changed);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_BATCH_MILLIS);
+                WatchKey key;
+                while (System.nanoTime() < deadline
+                        && (key = watcher.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= collect(watcher, key, changed);
+                }
+                long start = System.nanoTime();
+                int updated = overflow ? rescan() : apply(changed);
+                if (updated > 0) {
+                    try {
+                        outputs.write(analysis(), graph);
+                    } catch (IOException e) {
+                        report("Writing outputs", e);
+                        continue;
+                    }
+                    System.out.printf(Locale.ROOT, "Updated %d project(s) from %d changed file(s) in %d ms%n",
+                            updated, changed.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Returns true when events were lost and the whole tree has to be analyzed again.
+    private boolean collect(WatchService watcher, WatchKey key, Set<Path> changed) {
+        Path dir = directories.get(key);
+        if (dir == null) {
+            key.cancel();
+            return false;
+        }
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context()).normalize();
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerTree(watcher, path, changed);
+                } catch (IOException e) {
+                    report("Watching " + path, e);
+                }
+            } else {
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return overflow;
+    }
+
+    // Files already inside a directory that appears while watching count as changed. Only a failure
+    // on the start directory of the initial registration is thrown; anything else is reported.
+    private void registerTree(WatchService watcher, Path start, Set<Path> changed) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                try {
+                    WatchKey key = dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                    directories.put(key, dir);
+                } catch (IOException e) {
+                    if (changed == null && dir.equals(start)) {
+                        throw e;
+                    }
+                    report("Watching " + dir, e);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (changed != null) {
+                    changed.add(file.normalize());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                if (changed == null && file.equals(start)) {
+                    throw e;
+                }
+                report("Watching " + file, e);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                if (e != null) {
+                    report("Watching " + dir, e);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // Package-private so tests can apply a batch of changes without a watch service.
+    int apply(Set<Path> changed) {
+        Set<String> reparse = new TreeSet<>();
+        Set<String> reanalyze = new TreeSet<>();
+        for (Path path : changed) {
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".vbp")) {
+                reparse.add(path.toString());
+            } else if (name.endsWith(".frm") || name.endsWith(".bas")) {
+                reanalyze.addAll(projectsByFile.getOrDefault(path, Set.of()));
+            }
+        }
+        reanalyze.removeAll(reparse);
+
+        ProjectAnalysis before = analysis();
+        Set<String> changedIds = new HashSet<>();
+        int updated = 0;
+        for (String vbpPath : reparse) {
+            ProjectSummary previous = projects.get(vbpPath);
+            ProjectSummary current;
+            try {
+                current = Files.isRegularFile(Path.of(vbpPath))
+                        ? ProjectAnalyzer.analyzeProject(Path.of(vbpPath), options)
+                        : null;
+            } catch (IOException e) {
+                report("Analyzing " + vbpPath, e);
+                continue;
+            }
+            if (previous != null || current != null) {
+                replace(vbpPath, previous, current, changedIds);
+                updated++;
+            }
+        }
+        for (String vbpPath : reanalyze) {
+            ProjectSummary previous = projects.get(vbpPath);
+            try {
+                replace(vbpPath, previous, ProjectAnalyzer.reanalyze(previous, options), changedIds);
+                updated++;
+            } catch (IOException e) {
+                report("Analyzing " + vbpPath, e);
+            }
+        }
+        if (changedIds.isEmpty()) {
+            return 0;
+        }
+        GraphBuilder.replaceProjects(graph, before, analysis(), changedIds);
+        return updated;
+    }
+
+    // Keeps the previous analysis and graph when the tree cannot be analyzed again.
+    private int rescan() {
+        System.out.println("Watch events overflowed, analyzing the whole tree again");
+        ProjectAnalysis analysis;
+        try {
+            analysis = ProjectAnalyzer.analyze(root, options);
+        } catch (IOException | UncheckedIOException e) {
+            report("Analyzing " + root, e);
+            return 0;
+        }
+        reset(analysis);
+        graph = GraphBuilder.build(analysis, options.parallelism());
+        return analysis.projects().size();
+    }
+
+    private static void report(String action, Exception e) {
+        System.err.println(action + " failed: " + e + "; still watching");
+    }
+
+    private void replace(String vbpPath, ProjectSummary previous, ProjectSummary current, Set<String> changedIds) {
+        if (previous != null) {
+            unindex(previous);
+            changedIds.add(GraphBuilder.projectId(previous));
+            projects.remove(vbpPath);
+        }
+        if (current != null) {
+            index(current);
+            changedIds.add(GraphBuilder.projectId(current));
+            projects.put(vbpPath, current);
+        }
+    }
+
+    private void reset(ProjectAnalysis analysis) {
+        projects.clear();
+        projectsByFile.clear();
+        for (ProjectSummary project : analysis.projects()) {
+            projects.put(project.vbpPath(), project);
+            index(project);
+        }
+    }
+
+    // Missing entries are indexed too, so creating a referenced file later updates its project.
+    private void index(ProjectSummary project) {
+        for (EntryStatus status : project.entries()) {
+            projectsByFile.computeIfAbsent(Path.of(status.resolvedPath()), key -> new HashSet<>())
+                    .add(project.vbpPath());
+        }
+    }
+
+    private void unindex(ProjectSummary project) {
+        for (EntryStatus status : project.entries()) {
+            Set<String> owners = projectsByFile.get(Path.of(status.resolvedPath()));
+            if (owners != null) {
+                owners.remove(project.vbpPath());
+                if (owners.isEmpty()) {
+                    projectsByFile.remove(Path.of(status.resolvedPath()));
+                }
+            }
+        }
+    }
+
+    private ProjectAnalysis analysis() {
+        return new ProjectAnalysis(List.copyOf(projects.values()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.codex.vb6.cli;
+
+import com.codex.vb6.extractor.PartialAnalysis;
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.graph.GraphBuilder;
+import com.codex.vb6.graph.GraphModel;
+import com.codex.vb6.graph.Snapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Combines the partials written by {@code ProjectAnalyzeCli --shard i/N} into the analysis.json,
+ * report.md and, with {@code --snapshot}, analysis.snap of a single run over the same root.
+ */
+public final class ShardMergeCli {
+    private static final String USAGE = "Usage: ShardMergeCli [--threads N] [--mermaid-cluster] [--mermaid-collapse N] "
+            + "[--mermaid-max-nodes N] [--mermaid-max-edges N] [--snapshot] <output-dir> <partial|dir>...";
+
+    public static void main(String[] args) throws IOException {
+        CliArgs cli = CliArgs.parse(args, USAGE, -1,
+                Set.of("--threads", "--mermaid-collapse", "--mermaid-max-nodes", "--mermaid-max-edges"),
+                Set.of("--mermaid-cluster", "--snapshot"));
+        List<String> positional = cli.positional();
+        if (positional.size() < 2) {
+            cli.fail(null);
+        }
+        Path outputDir = Path.of(positional.get(0));
+
+        List<PartialAnalysis> partials = new ArrayList<>();
+        for (String input : positional.subList(1, positional.size())) {
+            for (Path file : partialFiles(Path.of(input))) {
+                partials.add(PartialAnalysis.read(file));
+            }
+        }
+        ProjectAnalysis analysis = PartialAnalysis.merge(partials);
+        GraphModel graph = GraphBuilder.build(analysis, cli.intOption("--threads", 1, 1));
+
+        Files.createDirectories(outputDir);
+        ProjectAnalyzeCli.writeAnalysisJson(outputDir, analysis);
+        ProjectAnalyzeCli.writeReport(outputDir, analysis, graph, ProjectAnalyzeCli.mermaidOptions(cli));
+        if (cli.flag("--snapshot")) {
+            Snapshot.write(outputDir.resolve("analysis.snap"), analysis, graph);
+        }
+        System.out.println("Merged " + partials.size() + " shards (" + analysis.projects().size()
+                + " projects) into " + outputDir.toAbsolutePath());
+    }
+
+    // A directory stands for the *.partial files in it, in name order.
+    private static List<Path> partialFiles(Path input) throws IOException {
+        if (!Files.isDirectory(input)) {
+            return List.of(input);
+        }
+        try (Stream<Path> files = Files.list(input)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".partial")).sorted().toList();
+        }
+    }
+}
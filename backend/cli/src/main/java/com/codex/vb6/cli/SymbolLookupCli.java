@@ -0,0 +1,82 @@
+package com.codex.vb6.cli;
+
+import com.codex.vb6.extractor.SymbolIndex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Looks names up in a symbols.idx written by {@code ProjectAnalyzeCli --symbols}. Prints one JSON
+ * line per query; without queries on the command line they are read from stdin, one per line,
+ * so a session pays for the JVM start once.
+ */
+public final class SymbolLookupCli {
+    private static final String USAGE = "Usage: SymbolLookupCli [--kind definition|call] [--limit N] [--timing] "
+            + "<symbols.idx> [name|Module.Name|prefix*]...";
+
+    public static void main(String[] args) throws IOException {
+        CliArgs cli = CliArgs.parse(args, USAGE, -1, Set.of("--kind", "--limit"), Set.of("--timing"));
+        List<String> positional = cli.positional();
+        if (positional.isEmpty()) {
+            cli.fail(null);
+        }
+        Set<SymbolIndex.Kind> kinds = EnumSet.allOf(SymbolIndex.Kind.class);
+        String kind = cli.option("--kind");
+        if (kind != null) {
+            switch (kind) {
+                case "definition" -> kinds.removeIf(k -> !k.isDefinition());
+                case "call" -> kinds.removeIf(SymbolIndex.Kind::isDefinition);
+                default -> cli.fail("Invalid value for --kind: " + kind);
+            }
+        }
+        int limit = cli.intOption("--limit", 1000, 1);
+        boolean timing = cli.flag("--timing");
+
+        SymbolIndex index = SymbolIndex.open(Path.of(positional.get(0)));
+        try (JsonWriter json = AnalysisJson.stdout()) {
+            if (positional.size() > 1) {
+                for (String query : positional.subList(1, positional.size())) {
+                    lookup(json, index, query, kinds, limit, timing);
+                }
+                return;
+            }
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) {
+                    lookup(json, index, line, kinds, limit, timing);
+                    json.flush();
+                }
+            }
+        }
+    }
+
+    private static void lookup(JsonWriter json, SymbolIndex index, String query, Set<SymbolIndex.Kind> kinds,
+                               int limit, boolean timing) throws IOException {
+        long start = System.nanoTime();
+        List<SymbolIndex.Occurrence> results = index.lookup(query, kinds, limit);
+        long nanos = System.nanoTime() - start;
+        json.beginObject().name("query").value(query.strip());
+        if (timing) {
+            json.name("nanos").value(nanos);
+        }
+        json.name("results").beginArray();
+        for (SymbolIndex.Occurrence occurrence : results) {
+            json.beginObject()
+                    .name("key").value(occurrence.key())
+                    .name("kind").value(occurrence.kind().name())
+                    .name("name").value(occurrence.name())
+                    .name("scope").value(occurrence.scope())
+                    .name("file").value(occurrence.file())
+                    .name("line").value(occurrence.line())
+                    .endObject();
+        }
+        json.endArray().endObject().newline();
+    }
+}
@@ -0,0 +1,80 @@
+package com.codex.vb6.cli;
+
+import com.codex.vb6.extractor.BasExtractor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchRunnerTest {
+    private static final BatchRunner.FileTask MODULE =
+            (json, path) -> AnalysisJson.writeModule(json, BasExtractor.analyze(path));
+
+    @TempDir
+    Path root;
+
+    @Test
+    void globsExpandToSortedMatches() throws IOException {
+        write("b/Two.bas", "Two");
+        write("a/One.bas", "One");
+        write("a/Skip.frm", "Skip");
+        String glob = root.toString().replace('\\', '/') + "/**/*.bas";
+
+        StringWriter out = new StringWriter();
+        assertEquals(0, BatchRunner.runBatch(cli("--ndjson", glob), MODULE, out, empty()));
+        List<String> lines = out.toString().lines().toList();
+        assertEquals(2, lines.size(), out.toString());
+        assertTrue(lines.get(0).startsWith("{\"path\":\"" + json(root.resolve("a/One.bas")) + "\",\"result\":{"),
+                lines.get(0));
+        assertTrue(lines.get(0).contains("\"module\":\"One\""), lines.get(0));
+        assertTrue(lines.get(1).contains("\"module\":\"Two\""), lines.get(1));
+    }
+
+    @Test
+    void failuresBecomeErrorLinesAndTheRunGoesOn() throws IOException {
+        Path good = write("Good.bas", "Good");
+        String missing = root.resolve("Missing.bas").toString();
+        String noMatch = root.toString().replace('\\', '/') + "/*.none";
+        InputStream stdin = new ByteArrayInputStream((good + "\n\n" + missing + "\n").getBytes(StandardCharsets.UTF_8));
+
+        StringWriter out = new StringWriter();
+        int failures = BatchRunner.runBatch(cli("--stdin", "--threads", "2", noMatch), MODULE, out, stdin);
+        List<String> lines = out.toString().lines().sorted().toList();
+        assertEquals(2, failures, out.toString());
+        assertEquals(3, lines.size(), out.toString());
+        assertTrue(lines.contains("{\"path\":\"" + json(noMatch) + "\",\"error\":\"No files match\"}"), out.toString());
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("{\"path\":\"" + json(missing) + "\",\"error\":\"")
+                && line.contains("NoSuchFileException")), out.toString());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"module\":\"Good\"")), out.toString());
+    }
+
+    private static CliArgs cli(String... args) {
+        return CliArgs.parse(args, "Usage: test", -1, Set.of("--threads"), Set.of("--ndjson", "--stdin"));
+    }
+
+    private static InputStream empty() {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    private static String json(Object path) {
+        return path.toString().replace("\\", "\\\\");
+    }
+
+    private Path write(String name, String module) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, List.of("Attribute VB_Name = \"" + module + "\"", "Public Sub Main()",
+                "    Call Start", "End Sub"), StandardCharsets.UTF_8);
+    }
+}
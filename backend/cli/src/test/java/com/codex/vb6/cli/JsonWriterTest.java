@@ -0,0 +1,42 @@
+package com.codex.vb6.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonWriterTest {
+    @Test
+    void escapesQuotesBackslashesAndControlCharacters() throws IOException {
+        assertEquals("\"say \\\"hi\\\" C:\\\\vb6\"", string("say \"hi\" C:\\vb6"));
+        assertEquals("\"a\\nb\\rc\\td\\be\\ff\"", string("a\nb\rc\td\be\ff"));
+        assertEquals("\"\\u0000\\u0001\\u001f\\u000b\"", string("\u0000\u0001\u001f\u000b"));
+    }
+
+    @Test
+    void leavesPrintableAndNonAsciiTextAlone() throws IOException {
+        assertEquals("\" ~\u007f\u00e9\u4e2d\ud83d\ude00\"", string(" ~\u007f\u00e9\u4e2d\ud83d\ude00"));
+        assertEquals("\"\"", string(""));
+    }
+
+    @Test
+    void separatesNestedValues() throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject().name("k\u0007").value((String) null).name("list").beginArray()
+                    .value(1).value(true).value(Double.NaN).beginObject().endObject().endArray().endObject()
+                    .newline().beginArray().endArray();
+        }
+        assertEquals("{\"k\\u0007\":null,\"list\":[1,true,null,{}]}\n[]", out.toString());
+    }
+
+    private static String string(String value) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.value(value);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.codex.vb6.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectAnalyzeCliTest {
+    @TempDir
+    Path root;
+
+    @Test
+    void threadsDoNotChangeOutputBytes() throws IOException {
+        Path src = root.resolve("src");
+        write(src.resolve("Common/Util.bas"), "Attribute VB_Name = \"Util\"", "Public Sub Log(ByVal s As String)",
+                "    Debug.Print s", "End Sub");
+        for (int p = 0; p < 12; p++) {
+            Path project = src.resolve("proj" + p);
+            write(project.resolve("p" + p + ".vbp"), "Type=Exe", "Name=\"Proj" + p + "\"", "Form=frmMain.frm",
+                    "Module=Mod" + p + "; Mod.bas", "Module=Util; ../Common/Util.bas", "Form=missing.frm");
+            write(project.resolve("frmMain.frm"), "Begin VB.Form frmMain", "End", "Attribute VB_Name = \"frmMain\"",
+                    "Private Sub Form_Load()", "    Call Mod" + p + ".Init", "    frmOther" + p + ".Show", "End Sub",
+                    "Private Sub cmdOK_Click()", "    Log(\"ok\")", "End Sub");
+            write(project.resolve("Mod.bas"), "Attribute VB_Name = \"Mod" + p + "\"", "Public Sub Init()",
+                    "    Call Util.Log(\"init\")", "    Work" + (p % 3) + "(1)", "End Sub");
+        }
+
+        Path sequential = analyze(src, "sequential");
+        for (List<String> flags : List.of(List.of("--threads", "4"), List.of("--threads", "8", "--pipeline"))) {
+            Path parallel = analyze(src, String.join("", flags), flags.toArray(String[]::new));
+            for (String name : List.of("analysis.json", "report.md")) {
+                assertArrayEquals(Files.readAllBytes(sequential.resolve(name)), Files.readAllBytes(parallel.resolve(name)),
+                        name + " with " + flags);
+            }
+        }
+    }
+
+    @Test
+    void formDiagramsAreClusteredAndCollapsed() throws IOException {
+        Path src = root.resolve("src");
+        write(src.resolve("Demo.vbp"), "Type=Exe", "Name=\"Demo\"", "Form=frmMain.frm");
+        write(src.resolve("frmMain.frm"), "Begin VB.Form frmMain", "End", "Attribute VB_Name = \"frmMain\"",
+                "Private Sub Form_Load()", "    Refresh(1)", "End Sub", "Private Sub cmdOK_Click()", "    Refresh(2)",
+                "End Sub");
+
+        Path out = analyze(src, "out", "--mermaid-cluster", "--mermaid-collapse", "1");
+        String report = Files.readString(out.resolve("report.md"), StandardCharsets.UTF_8);
+        String forms = report.substring(report.indexOf("### Mermaid"), report.indexOf("## 全專案"));
+        assertTrue(forms.contains("  subgraph project_cluster[\"#quot;Demo#quot;\"]\n"), forms);
+        assertTrue(forms.contains("  project -.->|2 callers| call_Refresh\n"), forms);
+        assertFalse(forms.contains("-->|CALL| call_Refresh"), forms);
+    }
+
+    private Path analyze(Path src, String name, String... flags) throws IOException {
+        Path out = root.resolve(name);
+        String[] args = new String[flags.length + 2];
+        System.arraycopy(flags, 0, args, 0, flags.length);
+        args[flags.length] = src.toString();
+        args[flags.length + 1] = out.toString();
+        ProjectAnalyzeCli.main(args);
+        return out;
+    }
+
+    private static void write(Path file, String... lines) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,97 @@
+package com.codex.vb6.cli;
+
+import com.codex.vb6.extractor.AnalyzerOptions;
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectAnalyzer;
+import com.codex.vb6.graph.GraphBuilder;
+import com.codex.vb6.graph.GraphModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectWatcherTest {
+    private static final String ONE = "project:\"One\"";
+    private static final String TWO = "project:\"Two\"";
+
+    @TempDir
+    Path root;
+
+    @Test
+    void changedModulePatchesEveryProjectReferencingIt() throws IOException {
+        Path mod = sample();
+        GraphModel graph = GraphBuilder.build(ProjectAnalyzer.analyze(root));
+        ProjectWatcher watcher = new ProjectWatcher(root, AnalyzerOptions.defaults(),
+                ProjectAnalyzer.analyze(root), graph, (analysis, updated) -> {
+                });
+
+        write(mod, "Attribute VB_Name = \"Mod\"", "Public Sub Init()", "    Call Reload", "End Sub");
+        assertEquals(2, watcher.apply(Set.of(mod)));
+        for (String project : List.of(ONE, TWO)) {
+            assertTrue(graph.indexOf(project + ":call:Reload") >= 0, project);
+            assertEquals(-1, graph.indexOf(project + ":call:Start"), project);
+        }
+        assertSameGraph(GraphBuilder.build(ProjectAnalyzer.analyze(root)), graph);
+
+        // Files no project references are ignored.
+        assertEquals(0, watcher.apply(Set.of(root.resolve("Other.bas"), root.resolve("notes.txt"))));
+    }
+
+    @Test
+    void changedVbpIsParsedAgain() throws IOException {
+        sample();
+        GraphModel graph = GraphBuilder.build(ProjectAnalyzer.analyze(root));
+        ProjectWatcher watcher = new ProjectWatcher(root, AnalyzerOptions.defaults(),
+                ProjectAnalyzer.analyze(root), graph, (analysis, updated) -> {
+                });
+
+        Path two = write(root.resolve("two/Two.vbp"), "Type=Exe", "Name=\"Two\"", "Module=Mod; ../one/Mod.bas",
+                "Module=Extra; Extra.bas");
+        Path extra = root.resolve("two/Extra.bas");
+        assertEquals(1, watcher.apply(Set.of(two)));
+        assertEquals(-1, graph.indexOf(TWO + ":module:Extra"));
+
+        // A missing entry is watched too: creating it later updates the project.
+        write(extra, "Attribute VB_Name = \"Extra\"", "Public Sub Help()", "End Sub");
+        assertEquals(1, watcher.apply(Set.of(extra)));
+        assertTrue(graph.indexOf(TWO + ":module:Extra") >= 0);
+        assertSameGraph(GraphBuilder.build(ProjectAnalyzer.analyze(root)), graph);
+
+        Files.delete(two);
+        assertEquals(1, watcher.apply(Set.of(two)));
+        assertEquals(-1, graph.indexOf(TWO));
+        assertSameGraph(GraphBuilder.build(ProjectAnalyzer.analyze(root)), graph);
+    }
+
+    // Two projects sharing one/Mod.bas.
+    private Path sample() throws IOException {
+        write(root.resolve("one/One.vbp"), "Type=Exe", "Name=\"One\"", "Form=frmMain.frm", "Module=Mod; Mod.bas");
+        write(root.resolve("one/frmMain.frm"), "Begin VB.Form frmMain", "End", "Attribute VB_Name = \"frmMain\"",
+                "Private Sub Form_Load()", "    Call Mod.Init", "End Sub");
+        write(root.resolve("two/Two.vbp"), "Type=Exe", "Name=\"Two\"", "Module=Mod; ../one/Mod.bas");
+        return write(root.resolve("one/Mod.bas"), "Attribute VB_Name = \"Mod\"", "Public Sub Init()",
+                "    Call Start", "End Sub");
+    }
+
+    // The patched graph appends changed projects at the end, so order is not compared.
+    private static void assertSameGraph(GraphModel expected, GraphModel actual) {
+        assertEquals(new HashSet<>(expected.nodes()), new HashSet<>(actual.nodes()));
+        assertEquals(new HashSet<>(expected.edges()), new HashSet<>(actual.edges()));
+        assertEquals(expected.nodeCount(), actual.nodeCount());
+        assertEquals(expected.edgeCount(), actual.edgeCount());
+    }
+
+    private static Path write(Path file, String... lines) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,237 @@
+package com.codex.vb6.extractor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class AnalysisCache {
+    private static final int MAGIC = 0x56424143;
+    private static final int VERSION = 5;
+    static final byte KIND_FORM = 1;
+    static final byte KIND_MODULE = 2;
+
+    private final Path file;
+    private final String fingerprint;
+    private final Map<String, Entry> loaded = new ConcurrentHashMap<>();
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private AnalysisCache(Path file, String fingerprint) {
+        this.file = file;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Opens the cache file. Entries written under a different {@code fingerprint}
+     * (see {@link AnalyzerOptions#fingerprint()}) are discarded.
+     */
+    public static AnalysisCache open(Path file, String fingerprint) throws IOException {
+        AnalysisCache cache = new AnalysisCache(file, fingerprint);
+        cache.load();
+        return cache;
+    }
+
+    /** A cache that lives only as long as this object; {@link #save()} does nothing. */
+    public static AnalysisCache inMemory(String fingerprint) {
+        return new AnalysisCache(null, fingerprint);
+    }
+
+    public FrmAnalysis form(Path path, AnalyzerOptions options) throws IOException {
+        return (FrmAnalysis) lookup(path, KIND_FORM, options);
+    }
+
+    public BasAnalysis module(Path path, AnalyzerOptions options) throws IOException {
+        return (BasAnalysis) lookup(path, KIND_MODULE, options);
+    }
+
+    /**
+     * Begins another scan with a cache that outlives one: the entries the previous scan used stay
+     * available, the rest, such as those of deleted files, are dropped. A long-lived in-memory cache
+     * so holds no more than the entries of the last scan and of the one running.
+     */
+    public void startScan() {
+        loaded.clear();
+        loaded.putAll(current);
+        current.clear();
+    }
+
+    public void invalidate() {
+        loaded.clear();
+        current.clear();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            AnalysisCodec.writeString(out, fingerprint);
+            out.writeInt(current.size());
+            for (Map.Entry<String, Entry> item : current.entrySet()) {
+                Entry entry = item.getValue();
+                AnalysisCodec.writeString(out, item.getKey());
+                out.writeLong(entry.size());
+                out.writeLong(entry.modified());
+                out.writeInt(entry.hash().length);
+                out.write(entry.hash());
+                out.writeByte(entry.kind());
+                if (entry.kind() == KIND_FORM) {
+                    AnalysisCodec.writeForm(out, (FrmAnalysis) entry.value());
+                } else {
+                    AnalysisCodec.writeModule(out, (BasAnalysis) entry.value());
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Object lookup(Path path, byte kind, AnalyzerOptions options) throws IOException {
+        Probe probe = probe(path, kind);
+        return probe.value() != null ? probe.value() : complete(probe, null, options);
+    }
+
+    /**
+     * First half of a lookup. The probe carries the cached value when size and modification time
+     * are unchanged, so a read-ahead stage can skip reading the file altogether.
+     */
+    Probe probe(Path path, byte kind) throws IOException {
+        String key = path.toAbsolutePath().toString();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+
+        Entry cached = current.get(key);
+        if (cached == null) {
+            cached = loaded.get(key);
+        }
+        if (cached != null && cached.kind() == kind && cached.size() == size && cached.modified() == modified) {
+            current.put(key, cached);
+            hits.increment();
+            return new Probe(path, key, kind, size, modified, cached, cached.value());
+        }
+        return new Probe(path, key, kind, size, modified, cached, null);
+    }
+
+    /**
+     * Second half of a lookup after a probe without value: only re-extracts when the content
+     * really differs. {@code content} is the file already read into memory, or null to read it here.
+     */
+    Object complete(Probe probe, ByteBuffer content, AnalyzerOptions options) throws IOException {
+        byte[] hash = content != null ? hash(content) : hash(probe.path());
+        Entry cached = probe.cached();
+        byte kind = probe.kind();
+        if (cached != null && cached.kind() == kind && cached.size() == probe.size()
+                && Arrays.equals(cached.hash(), hash)) {
+            current.put(probe.key(), new Entry(kind, probe.size(), probe.modified(), hash, cached.value()));
+            hits.increment();
+            return cached.value();
+        }
+
+        Object value;
+        if (content != null) {
+            value = kind == KIND_FORM
+                    ? FrmExtractor.analyze(probe.path(), content, options)
+                    : BasExtractor.analyze(probe.path(), content, options);
+        } else {
+            value = kind == KIND_FORM
+                    ? FrmExtractor.analyze(probe.path(), options)
+                    : BasExtractor.analyze(probe.path(), options);
+        }
+        current.put(probe.key(), new Entry(kind, probe.size(), probe.modified(), hash, value));
+        misses.increment();
+        return value;
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || !fingerprint.equals(AnalysisCodec.readString(in))) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = AnalysisCodec.readString(in);
+                long size = in.readLong();
+                long modified = in.readLong();
+                byte[] hash = new byte[AnalysisCodec.readCount(in)];
+                in.readFully(hash);
+                byte kind = in.readByte();
+                if (kind != KIND_FORM && kind != KIND_MODULE) {
+                    throw new IOException("Corrupt cache entry kind " + kind);
+                }
+                Object value = kind == KIND_FORM ? AnalysisCodec.readForm(in) : AnalysisCodec.readModule(in);
+                loaded.put(key, new Entry(kind, size, modified, hash, value));
+            }
+        } catch (IOException | RuntimeException e) {
+            // A cache is never fatal: a truncated, damaged or unreadable file is treated as empty
+            // and rewritten on save.
+            loaded.clear();
+        }
+    }
+
+    private static byte[] hash(Path path) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > 0) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        }
+        return digest.digest();
+    }
+
+    private static byte[] hash(ByteBuffer content) {
+        MessageDigest digest = sha256();
+        digest.update(content.duplicate());
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Probe(Path path, String key, byte kind, long size, long modified, Entry cached, Object value) {
+    }
+
+    private record Entry(byte kind, long size, long modified, byte[] hash, Object value) {
+    }
+}
@@ -0,0 +1,232 @@
+package com.codex.vb6.extractor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+final class AnalysisCodec {
+    private static final CallKind[] CALL_KINDS = CallKind.values();
+
+    private AnalysisCodec() {
+    }
+
+    static void writeForm(DataOutputStream out, FrmAnalysis form) throws IOException {
+        writeString(out, form.formName());
+        Map<LineTable, Integer> tables = new IdentityHashMap<>();
+        for (FrmEvent event : form.events()) {
+            for (FrmCall call : event.calls()) {
+                tables.putIfAbsent(call.lines(), tables.size());
+            }
+        }
+        writeTables(out, tables);
+        out.writeInt(form.events().size());
+        for (FrmEvent event : form.events()) {
+            writeString(out, event.name());
+            out.writeInt(event.lineNumber());
+            out.writeInt(event.calls().size());
+            for (FrmCall call : event.calls()) {
+                writeCall(out, call.kind(), call.target(), call.lineNumber(), tables.get(call.lines()));
+            }
+        }
+        out.writeBoolean(form.designer() != null);
+        if (form.designer() != null) {
+            writeControl(out, form.designer());
+        }
+    }
+
+    static FrmAnalysis readForm(DataInputStream in) throws IOException {
+        String formName = readString(in);
+        LineTable[] tables = readTables(in);
+        Map<String, String> names = new HashMap<>();
+        int eventCount = readCount(in);
+        List<FrmEvent> events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            String name = intern(names, readString(in));
+            int lineNumber = in.readInt();
+            int callCount = readCount(in);
+            List<FrmCall> calls = new ArrayList<>(callCount);
+            for (int j = 0; j < callCount; j++) {
+                CallKind callKind = readCallKind(in);
+                String target = intern(names, readString(in));
+                int callLine = in.readInt();
+                calls.add(new FrmCall(callKind, target, callLine, readTable(in, tables)));
+            }
+            events.add(new FrmEvent(name, lineNumber, CompactCalls.copyOf(calls, FrmCall::new)));
+        }
+        FrmControl designer = in.readBoolean() ? readControl(in, names) : null;
+        return new FrmAnalysis(formName, List.copyOf(events), designer);
+    }
+
+    private static void writeControl(DataOutputStream out, FrmControl control) throws IOException {
+        writeString(out, control.type());
+        writeString(out, control.name());
+        out.writeInt(control.lineNumber());
+        writeString(out, control.propertyText());
+        out.writeInt(control.children().size());
+        for (FrmControl child : control.children()) {
+            writeControl(out, child);
+        }
+    }
+
+    private static FrmControl readControl(DataInputStream in, Map<String, String> names) throws IOException {
+        String type = intern(names, readString(in));
+        String name = readString(in);
+        int lineNumber = in.readInt();
+        String propertyText = readString(in);
+        int childCount = readCount(in);
+        List<FrmControl> children = new ArrayList<>(childCount);
+        for (int i = 0; i < childCount; i++) {
+            children.add(readControl(in, names));
+        }
+        return new FrmControl(type, name, lineNumber, propertyText, List.copyOf(children));
+    }
+
+    static void writeModule(DataOutputStream out, BasAnalysis module) throws IOException {
+        writeString(out, module.moduleName());
+        Map<LineTable, Integer> tables = new IdentityHashMap<>();
+        for (BasRoutine routine : module.routines()) {
+            for (BasCall call : routine.calls()) {
+                tables.putIfAbsent(call.lines(), tables.size());
+            }
+        }
+        writeTables(out, tables);
+        out.writeInt(module.routines().size());
+        for (BasRoutine routine : module.routines()) {
+            writeString(out, routine.name());
+            writeString(out, routine.kind());
+            out.writeInt(routine.lineNumber());
+            out.writeInt(routine.calls().size());
+            for (BasCall call : routine.calls()) {
+                writeCall(out, call.kind(), call.target(), call.lineNumber(), tables.get(call.lines()));
+            }
+        }
+    }
+
+    static BasAnalysis readModule(DataInputStream in) throws IOException {
+        String moduleName = readString(in);
+        LineTable[] tables = readTables(in);
+        Map<String, String> names = new HashMap<>();
+        int routineCount = readCount(in);
+        List<BasRoutine> routines = new ArrayList<>(routineCount);
+        for (int i = 0; i < routineCount; i++) {
+            String name = intern(names, readString(in));
+            String kind = intern(names, readString(in));
+            int lineNumber = in.readInt();
+            int callCount = readCount(in);
+            List<BasCall> calls = new ArrayList<>(callCount);
+            for (int j = 0; j < callCount; j++) {
+                CallKind callKind = readCallKind(in);
+                String target = intern(names, readString(in));
+                int callLine = in.readInt();
+                calls.add(new BasCall(callKind, target, callLine, readTable(in, tables)));
+            }
+            routines.add(new BasRoutine(name, kind, lineNumber, CompactCalls.copyOf(calls, BasCall::new)));
+        }
+        return new BasAnalysis(moduleName, List.copyOf(routines));
+    }
+
+    private static void writeCall(DataOutputStream out, CallKind kind, String target, int lineNumber, int table)
+            throws IOException {
+        out.writeByte(kind.ordinal());
+        writeString(out, target);
+        out.writeInt(lineNumber);
+        out.writeInt(table);
+    }
+
+    // Tables in first-use order; calls refer to them by position.
+    private static void writeTables(DataOutputStream out, Map<LineTable, Integer> tables) throws IOException {
+        out.writeInt(tables.size());
+        for (LineTable table : tables.keySet()) {
+            out.writeInt(table.lineCount());
+            for (int i = 0; i < table.lineCount(); i++) {
+                out.writeInt(table.numbers()[i]);
+                out.writeInt(table.ends()[i]);
+            }
+            writeString(out, table.text());
+        }
+    }
+
+    private static LineTable[] readTables(DataInputStream in) throws IOException {
+        LineTable[] tables = new LineTable[readCount(in)];
+        for (int t = 0; t < tables.length; t++) {
+            int count = readCount(in);
+            int[] numbers = new int[count];
+            int[] ends = new int[count];
+            for (int i = 0; i < count; i++) {
+                numbers[i] = in.readInt();
+                ends[i] = in.readInt();
+                // Lines are looked up by binary search and sliced from the text by their ends.
+                if (i > 0 && (numbers[i] <= numbers[i - 1] || ends[i] < ends[i - 1]) || ends[i] < 0) {
+                    throw new IOException("Corrupt line table");
+                }
+            }
+            String text = readString(in);
+            if (text == null || count > 0 && ends[count - 1] > text.length()) {
+                throw new IOException("Corrupt line table");
+            }
+            tables[t] = LineTable.read(numbers, ends, text);
+        }
+        return tables;
+    }
+
+    private static LineTable readTable(DataInputStream in, LineTable[] tables) throws IOException {
+        int table = in.readInt();
+        if (table < 0 || table >= tables.length) {
+            throw new IOException("Corrupt line table reference " + table);
+        }
+        return tables[table];
+    }
+
+    private static CallKind readCallKind(DataInputStream in) throws IOException {
+        int ordinal = in.readByte();
+        if (ordinal < 0 || ordinal >= CALL_KINDS.length) {
+            throw new IOException("Corrupt call kind " + ordinal);
+        }
+        return CALL_KINDS[ordinal];
+    }
+
+    /**
+     * A count or byte length, checked before anything is allocated for it: every element takes at
+     * least one byte, and {@code available()} of a file stream is what is left of the file.
+     */
+    static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.available()) {
+            throw new IOException("Corrupt length " + count);
+        }
+        return count;
+    }
+
+    private static String intern(Map<String, String> strings, String value) {
+        return value == null ? null : strings.computeIfAbsent(value, String::intern);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Corrupt string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,108 @@
+package com.codex.vb6.extractor;
+
+import com.codex.vb6.parser.SourceEncoding;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * {@code cancelled} is polled before each project and each file; once it returns true the
+ * analysis stops with a {@link java.util.concurrent.CancellationException}. A file whose
+ * extraction has started is finished first.
+ *
+ * <p>{@code ioThreads > 0} selects the pipelined scan: discovery, file reads on {@code ioThreads}
+ * threads and extraction on {@code parallelism} threads overlap instead of running one after the
+ * other. Results are the same in either mode.
+ *
+ * <p>{@code frmControls} parses the .frm designer block into {@link FrmAnalysis#designer()};
+ * otherwise the block is skipped.
+ *
+ * <p>{@code metrics} receives the time of each phase and file; it does not affect results.
+ *
+ * <p>{@code symbols}, when set, receives the definitions and call sites of every analyzed file.
+ *
+ * <p>{@code shard} limits a scan to the .vbp files of one {@link Shard}.
+ *
+ * <p>{@code regexCompatible} reports calls inside string literals and trailing comments too, as the
+ * per-line regular expressions the extractors once used did.
+ */
+public record AnalyzerOptions(int parallelism, AnalysisCache cache, SourceEncoding encoding,
+                              BooleanSupplier cancelled, VbBuiltins builtins, int ioThreads,
+                              boolean frmControls, ScanMetrics metrics,
+                              SymbolIndex.Builder symbols, Shard shard, boolean regexCompatible) {
+    private static final BooleanSupplier NEVER = () -> false;
+
+    public AnalyzerOptions {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1: " + parallelism);
+        }
+        if (ioThreads < 0) {
+            throw new IllegalArgumentException("ioThreads must be >= 0: " + ioThreads);
+        }
+    }
+
+    public static AnalyzerOptions defaults() {
+        return new AnalyzerOptions(1, null, SourceEncoding.defaults(), NEVER, VbBuiltins.defaults(), 0, false,
+                ScanMetrics.DISABLED, null, Shard.ALL, false);
+    }
+
+    public AnalyzerOptions withParallelism(int value) {
+        return new AnalyzerOptions(value, cache, encoding, cancelled, builtins, ioThreads, frmControls, metrics,
+                symbols, shard, regexCompatible);
+    }
+
+    public AnalyzerOptions withCache(AnalysisCache value) {
+        return new AnalyzerOptions(parallelism, value, encoding, cancelled, builtins, ioThreads, frmControls, metrics,
+                symbols, shard, regexCompatible);
+    }
+
+    public AnalyzerOptions withEncoding(SourceEncoding value) {
+        return new AnalyzerOptions(parallelism, cache, value, cancelled, builtins, ioThreads, frmControls, metrics,
+                symbols, shard, regexCompatible);
+    }
+
+    public AnalyzerOptions withCancellation(BooleanSupplier value) {
+        return new AnalyzerOptions(parallelism, cache, encoding, value, builtins, ioThreads, frmControls, metrics,
+                symbols, shard, regexCompatible);
+    }
+
+    public AnalyzerOptions withBuiltins(VbBuiltins value) {
+        return new AnalyzerOptions(parallelism, cache, encoding, cancelled, value, ioThreads, frmControls, metrics,
+                symbols, shard, regexCompatible);
+    }
+
+    public AnalyzerOptions withPipeline(int value) {
+        return new AnalyzerOptions(parallelism, cache, encoding, cancelled, builtins, value, frmControls, metrics,
+                symbols, shard, regexCompatible);
+    }
+
+    public AnalyzerOptions withFrmControls(boolean value) {
+        return new AnalyzerOptions(parallelism, cache, encoding, cancelled, builtins, ioThreads, value, metrics,
+                symbols, shard, regexCompatible);
+    }
+
+    public AnalyzerOptions withMetrics(ScanMetrics value) {
+        return new AnalyzerOptions(parallelism, cache, encoding, cancelled, builtins, ioThreads, frmControls, value,
+                symbols, shard, regexCompatible);
+    }
+
+    public AnalyzerOptions withSymbols(SymbolIndex.Builder value) {
+        return new AnalyzerOptions(parallelism, cache, encoding, cancelled, builtins, ioThreads, frmControls, metrics,
+                value, shard, regexCompatible);
+    }
+
+    public AnalyzerOptions withShard(Shard value) {
+        return new AnalyzerOptions(parallelism, cache, encoding, cancelled, builtins, ioThreads, frmControls, metrics,
+                symbols, value, regexCompatible);
+    }
+
+    public AnalyzerOptions withRegexCompatible(boolean value) {
+        return new AnalyzerOptions(parallelism, cache, encoding, cancelled, builtins, ioThreads, frmControls, metrics,
+                symbols, shard, value);
+    }
+
+    // Settings that change extraction output; cached results are only reused when these match.
+    public String fingerprint() {
+        return "codePage=" + encoding.codePage().name() + ";builtins=" + builtins.fingerprint()
+                + (frmControls ? ";frmControls" : "") + (regexCompatible ? ";regexCompatible" : "");
+    }
+}
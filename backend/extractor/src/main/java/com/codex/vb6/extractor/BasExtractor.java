@@ -1,81 +1,129 @@
 package com.codex.vb6.extractor;
 
+import com.codex.vb6.parser.SourceEncoding;
+import com.codex.vb6.parser.SourceLines;
+
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 public final class BasExtractor {
-    private static final Pattern MODULE_NAME = Pattern.compile("^\\s*Attribute\\s+VB_Name\\s*=\\s*\"([^\"]+)\"", Pattern.CASE_INSENSITIVE);
-    private static final Pattern ROUTINE_START = Pattern.compile("^\\s*(?:Public|Private|Friend)?\\s*(Sub|Function)\\s+([A-Za-z_][A-Za-z0-9_]*)\\b", Pattern.CASE_INSENSITIVE);
-    private static final Pattern ROUTINE_END = Pattern.compile("^\\s*End\\s+(Sub|Function)\\s*$", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CALL_PATTERN = Pattern.compile("\\b(Call\\s+)?([A-Za-z_][A-Za-z0-9_]*(?:\\.[A-Za-z_][A-Za-z0-9_]*)?)\\s*(?:\\(|$)", Pattern.CASE_INSENSITIVE);
-
     private BasExtractor() {
     }
 
     public static BasAnalysis analyze(Path basPath) throws IOException {
-        List<String> lines = Files.readAllLines(basPath, StandardCharsets.UTF_8);
-        String moduleName = null;
-        List<BasRoutine> routines = new ArrayList<>();
-        List<BasCall> currentCalls = null;
-        String currentRoutine = null;
-        String currentKind = null;
-        int currentLine = 0;
-
-        for (int i = 0; i < lines.size(); i++) {
-            String line = lines.get(i);
+        return analyze(basPath, SourceEncoding.defaults());
+    }
+
+    public static BasAnalysis analyze(Path basPath, SourceEncoding encoding) throws IOException {
+        return analyze(basPath, encoding, VbBuiltins.defaults());
+    }
+
+    public static BasAnalysis analyze(Path basPath, SourceEncoding encoding, VbBuiltins builtins)
+            throws IOException {
+        return analyze(basPath, AnalyzerOptions.defaults().withEncoding(encoding).withBuiltins(builtins));
+    }
+
+    /** Uses the encoding and built-ins of {@code options} and reports to its metrics. */
+    public static BasAnalysis analyze(Path basPath, AnalyzerOptions options) throws IOException {
+        ScanMetrics.Span span = options.metrics().begin(ScanMetrics.Phase.BAS);
+        Parser parser = new Parser(options);
+        SourceLines.forEach(basPath, options.encoding(), span.lines(parser));
+        BasAnalysis module = parser.finish();
+        span.endFile(basPath, -1);
+        return module;
+    }
+
+    // For content that a read-ahead stage already loaded.
+    static BasAnalysis analyze(Path basPath, ByteBuffer content, AnalyzerOptions options) throws IOException {
+        ScanMetrics.Span span = options.metrics().begin(ScanMetrics.Phase.BAS);
+        Parser parser = new Parser(options);
+        SourceLines.forEach(content, options.encoding(), span.lines(parser));
+        BasAnalysis module = parser.finish();
+        span.endFile(basPath, content.remaining());
+        return module;
+    }
+
+    private static final class Parser implements SourceLines.Visitor, VbLexer.CallSink {
+        private final List<BasRoutine> routines = new ArrayList<>();
+        private String moduleName;
+        private List<BasCall> currentCalls;
+        private String currentRoutine;
+        private String currentKind;
+        private int currentLine;
+        private final LineTable lines = new LineTable();
+        private final Map<String, String> targets = new HashMap<>();
+        private final VbBuiltins builtins;
+        private final boolean codeOnly;
+        private CharSequence scanLine;
+        private int scanLineNumber;
+
+        Parser(AnalyzerOptions options) {
+            this.builtins = options.builtins();
+            this.codeOnly = !options.regexCompatible();
+        }
+
+        BasAnalysis finish() {
+            lines.freeze();
+            return new BasAnalysis(moduleName, List.copyOf(routines));
+        }
+
+        @Override
+        public void line(CharSequence line, int lineNumber) {
             if (moduleName == null) {
-                Matcher nameMatcher = MODULE_NAME.matcher(line);
-                if (nameMatcher.find()) {
-                    moduleName = nameMatcher.group(1);
-                }
+                moduleName = VbLexer.moduleName(line);
             }
 
-            Matcher routineStart = ROUTINE_START.matcher(line);
-            if (routineStart.find()) {
-                currentKind = routineStart.group(1).toUpperCase();
-                currentRoutine = routineStart.group(2);
-                currentLine = i + 1;
+            VbLexer.RoutineStart routineStart = VbLexer.routineStart(line);
+            if (routineStart != null) {
+                currentKind = routineStart.kind().intern();
+                currentRoutine = routineStart.name().intern();
+                currentLine = lineNumber;
                 currentCalls = new ArrayList<>();
-                continue;
+                return;
             }
 
             if (currentRoutine != null) {
-                if (ROUTINE_END.matcher(line).find()) {
-                    routines.add(new BasRoutine(currentRoutine, currentKind, currentLine, List.copyOf(currentCalls)));
+                if (VbLexer.isEndRoutine(line)) {
+                    routines.add(new BasRoutine(currentRoutine, currentKind, currentLine,
+                            CompactCalls.copyOf(currentCalls, BasCall::new)));
                     currentRoutine = null;
                     currentKind = null;
                     currentCalls = null;
-                    continue;
+                    return;
                 }
 
-                currentCalls.addAll(extractCalls(line));
+                extractCalls(line, lineNumber);
             }
         }
 
-        return new BasAnalysis(moduleName, List.copyOf(routines));
-    }
+        private void extractCalls(CharSequence line, int lineNumber) {
+            if (!LineText.hasCode(line)) {
+                return;
+            }
 
-    private static List<BasCall> extractCalls(String line) {
-        String trimmed = line.trim();
-        if (trimmed.isEmpty() || trimmed.startsWith("'")) {
-            return List.of();
+            scanLine = line;
+            scanLineNumber = lineNumber;
+            VbLexer.scanCalls(line, false, codeOnly, this);
+            scanLine = null;
         }
 
-        List<BasCall> calls = new ArrayList<>();
-        Matcher callMatcher = CALL_PATTERN.matcher(line);
-        while (callMatcher.find()) {
-            String target = callMatcher.group(2);
-            if (target != null && !target.equalsIgnoreCase("Call")) {
-                calls.add(new BasCall("CALL", target, trimmed));
+        @Override
+        public void accept(CallKind kind, int start, int end) {
+            if (kind == CallKind.CALL && builtins.mode() != VbBuiltins.Mode.KEEP
+                    && builtins.isBuiltin(scanLine, start, end)) {
+                if (builtins.mode() == VbBuiltins.Mode.DROP) {
+                    return;
+                }
+                kind = CallKind.BUILTIN;
             }
+            lines.add(scanLineNumber, scanLine);
+            String target = targets.computeIfAbsent(scanLine.subSequence(start, end).toString(), String::intern);
+            currentCalls.add(new BasCall(kind, target, scanLineNumber, lines));
         }
-
-        return calls;
     }
 }
@@ -3,4 +3,11 @@ package com.codex.vb6.extractor;
 import java.util.List;
 
 public record BasRoutine(String name, String kind, int lineNumber, List<BasCall> calls) {
+    /**
+     * Whether {@code other} makes the same calls in the same order at the same offsets from its
+     * first line, i.e. this routine is unchanged or moved as a whole.
+     */
+    public boolean sameCallOffsets(BasRoutine other) {
+        return CompactCalls.sameShifted(calls, lineNumber, other.calls, other.lineNumber);
+    }
 }
@@ -0,0 +1,10 @@
+package com.codex.vb6.extractor;
+
+/** Kind of an extracted call site; {@link #name()} is the label used in JSON output and graph edges. */
+public enum CallKind {
+    CALL,
+    SHOW,
+    LOAD,
+    /** A keyword or runtime function, see {@link VbBuiltins}. */
+    BUILTIN
+}
@@ -0,0 +1,12 @@
+package com.codex.vb6.extractor;
+
+/** Fields shared by {@link FrmCall} and {@link BasCall}, so both can be stored by {@link CompactCalls}. */
+interface CallSite {
+    CallKind kind();
+
+    String target();
+
+    int lineNumber();
+
+    LineTable lines();
+}
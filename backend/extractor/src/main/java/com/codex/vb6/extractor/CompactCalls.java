@@ -0,0 +1,96 @@
+package com.codex.vb6.extractor;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable call list stored as parallel arrays (kind, target, line number) over one shared
+ * {@link LineTable}, about a quarter of the memory of a list of call records. Records are
+ * created on access.
+ */
+final class CompactCalls<T extends CallSite> extends AbstractList<T> implements RandomAccess {
+    interface Factory<T> {
+        T create(CallKind kind, String target, int lineNumber, LineTable lines);
+    }
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    private final Factory<T> factory;
+    private final LineTable lines;
+    private final byte[] kinds;
+    private final String[] targets;
+    private final int[] lineNumbers;
+
+    private CompactCalls(Factory<T> factory, LineTable lines, int size) {
+        this.factory = factory;
+        this.lines = lines;
+        this.kinds = new byte[size];
+        this.targets = new String[size];
+        this.lineNumbers = new int[size];
+    }
+
+    // Calls from different tables cannot share one; those lists stay plain immutable copies.
+    static <T extends CallSite> List<T> copyOf(List<T> calls, Factory<T> factory) {
+        if (calls.isEmpty()) {
+            return List.of();
+        }
+        LineTable lines = calls.get(0).lines();
+        for (T call : calls) {
+            if (call.lines() != lines) {
+                return List.copyOf(calls);
+            }
+        }
+        CompactCalls<T> compact = new CompactCalls<>(factory, lines, calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            T call = calls.get(i);
+            compact.kinds[i] = (byte) call.kind().ordinal();
+            compact.targets[i] = call.target();
+            compact.lineNumbers[i] = call.lineNumber();
+        }
+        return compact;
+    }
+
+    /**
+     * Whether both lists hold the same kinds and targets in the same order at the same lines relative
+     * to {@code firstBase} and {@code secondBase}. Two compact lists are compared on their arrays,
+     * without creating records.
+     */
+    static boolean sameShifted(List<? extends CallSite> first, int firstBase, List<? extends CallSite> second,
+                               int secondBase) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        if (first instanceof CompactCalls<?> a && second instanceof CompactCalls<?> b) {
+            if (!Arrays.equals(a.kinds, b.kinds)) {
+                return false;
+            }
+            for (int i = 0; i < a.lineNumbers.length; i++) {
+                if (a.lineNumbers[i] - firstBase != b.lineNumbers[i] - secondBase || !a.targets[i].equals(b.targets[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int i = 0; i < first.size(); i++) {
+            CallSite a = first.get(i);
+            CallSite b = second.get(i);
+            if (a.kind() != b.kind() || a.lineNumber() - firstBase != b.lineNumber() - secondBase
+                    || !a.target().equals(b.target())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T get(int index) {
+        return factory.create(KINDS[kinds[index]], targets[index], lineNumbers[index], lines);
+    }
+
+    @Override
+    public int size() {
+        return kinds.length;
+    }
+}
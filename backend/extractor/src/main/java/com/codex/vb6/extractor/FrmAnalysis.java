@@ -2,5 +2,25 @@ package com.codex.vb6.extractor;
 
 import java.util.List;
 
-public record FrmAnalysis(String formName, List<FrmEvent> events) {
+/** {@code designer} is the parsed designer block, or null unless control trees were requested. */
+public record FrmAnalysis(String formName, List<FrmEvent> events, FrmControl designer) {
+    public FrmAnalysis(String formName, List<FrmEvent> events) {
+        this(formName, events, null);
+    }
+
+    /**
+     * The control an event handler belongs to: {@code cmdOK} for {@code cmdOK_Click}, the form
+     * itself for {@code Form_Load}. Null without a designer or when no such control exists.
+     */
+    public FrmControl control(FrmEvent event) {
+        int underscore = event.name().lastIndexOf('_');
+        if (designer == null || underscore <= 0) {
+            return null;
+        }
+        String owner = event.name().substring(0, underscore);
+        if (owner.equalsIgnoreCase("Form") || owner.equalsIgnoreCase("MDIForm")) {
+            return designer;
+        }
+        return designer.find(owner);
+    }
 }
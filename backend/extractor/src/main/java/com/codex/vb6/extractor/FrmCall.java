@@ -1,4 +1,40 @@
 package com.codex.vb6.extractor;
 
-public record FrmCall(String type, String target, String line) {
+import java.util.Objects;
+
+/**
+ * A call site; the source line text is looked up in the file's shared {@link LineTable}. Two calls
+ * are equal when kind, target, line number and line text match, whichever table holds the text.
+ */
+public record FrmCall(CallKind kind, String target, int lineNumber, LineTable lines)
+        implements CallSite {
+    /**
+     * A call with only its line text, as before line numbers were kept; its line number is 0.
+     * {@code type} must name a {@link CallKind}.
+     */
+    public FrmCall(String type, String target, String line) {
+        this(CallKind.valueOf(type), target, 0, LineTable.single(0, line));
+    }
+
+    public String type() {
+        return kind.name();
+    }
+
+    public String line() {
+        return lines.line(lineNumber);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FrmCall call
+                && kind == call.kind
+                && lineNumber == call.lineNumber
+                && Objects.equals(target, call.target)
+                && Objects.equals(line(), call.line());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, target, lineNumber);
+    }
 }
@@ -0,0 +1,70 @@
+package com.codex.vb6.extractor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A form or control of the .frm designer block. Only type, name and nesting are parsed while the
+ * file is read; {@code propertyText} keeps the property lines, trimmed, and {@link #properties()}
+ * parses them on request.
+ */
+public record FrmControl(String type, String name, int lineNumber, String propertyText,
+                         List<FrmControl> children) {
+
+    /**
+     * Properties in file order with values as written. Properties inside a
+     * {@code BeginProperty Font} block are named {@code Font.Name}.
+     */
+    public Map<String, String> properties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        List<String> groups = new ArrayList<>();
+        for (String line : propertyText.split("\n")) {
+            if (line.regionMatches(true, 0, "BeginProperty", 0, 13)) {
+                String rest = line.substring(13).strip();
+                int end = 0;
+                while (end < rest.length() && !Character.isWhitespace(rest.charAt(end))) {
+                    end++;
+                }
+                groups.add(rest.substring(0, end));
+            } else if (line.regionMatches(true, 0, "EndProperty", 0, 11)) {
+                if (!groups.isEmpty()) {
+                    groups.remove(groups.size() - 1);
+                }
+            } else {
+                int equals = line.indexOf('=');
+                if (equals > 0) {
+                    String key = line.substring(0, equals).strip();
+                    String prefix = groups.isEmpty() ? "" : String.join(".", groups) + ".";
+                    properties.put(prefix + key, line.substring(equals + 1).strip());
+                }
+            }
+        }
+        return properties;
+    }
+
+    /** The value of a property, compared case-insensitively, or null. */
+    public String property(String propertyName) {
+        for (Map.Entry<String, String> property : properties().entrySet()) {
+            if (property.getKey().equalsIgnoreCase(propertyName)) {
+                return property.getValue();
+            }
+        }
+        return null;
+    }
+
+    /** This control or the first descendant with the given name, compared case-insensitively. */
+    public FrmControl find(String controlName) {
+        if (controlName.equalsIgnoreCase(name)) {
+            return this;
+        }
+        for (FrmControl child : children) {
+            FrmControl found = child.find(controlName);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+}
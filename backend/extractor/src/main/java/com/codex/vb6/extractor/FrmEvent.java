@@ -3,4 +3,11 @@ package com.codex.vb6.extractor;
 import java.util.List;
 
 public record FrmEvent(String name, int lineNumber, List<FrmCall> calls) {
+    /**
+     * Whether {@code other} makes the same calls in the same order at the same offsets from its
+     * first line, i.e. this event is unchanged or moved as a whole.
+     */
+    public boolean sameCallOffsets(FrmEvent other) {
+        return CompactCalls.sameShifted(calls, lineNumber, other.calls, other.lineNumber);
+    }
 }
@@ -1,91 +1,248 @@
 package com.codex.vb6.extractor;
 
+import com.codex.vb6.parser.SourceEncoding;
+import com.codex.vb6.parser.SourceLines;
+
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 public final class FrmExtractor {
-    private static final Pattern FORM_NAME = Pattern.compile("^\\s*Begin\\s+VB\\.Form\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern EVENT_START = Pattern.compile("^\\s*(?:Public|Private)?\\s*Sub\\s+(\\w+)_([A-Za-z0-9_]+)\\s*\\(.*\\)\\s*$", Pattern.CASE_INSENSITIVE);
-    private static final Pattern EVENT_END = Pattern.compile("^\\s*End\\s+Sub\\s*$", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CALL_PATTERN = Pattern.compile("\\b(Call\\s+)?([A-Za-z_][A-Za-z0-9_]*(?:\\.[A-Za-z_][A-Za-z0-9_]*)?)\\s*(?:\\(|$)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern SHOW_PATTERN = Pattern.compile("\\b([A-Za-z_][A-Za-z0-9_]*)\\.Show\\b", Pattern.CASE_INSENSITIVE);
-    private static final Pattern LOAD_PATTERN = Pattern.compile("\\bLoad\\s+([A-Za-z_][A-Za-z0-9_]*)\\b", Pattern.CASE_INSENSITIVE);
+    private static final System.Logger LOG = System.getLogger(FrmExtractor.class.getName());
 
     private FrmExtractor() {
     }
 
     public static FrmAnalysis analyze(Path frmPath) throws IOException {
-        List<String> lines = Files.readAllLines(frmPath, StandardCharsets.UTF_8);
-        String formName = null;
-        List<FrmEvent> events = new ArrayList<>();
-        List<FrmCall> currentCalls = null;
-        String currentEvent = null;
-        int currentEventLine = 0;
-
-        for (int i = 0; i < lines.size(); i++) {
-            String line = lines.get(i);
+        return analyze(frmPath, SourceEncoding.defaults());
+    }
+
+    public static FrmAnalysis analyze(Path frmPath, SourceEncoding encoding) throws IOException {
+        return analyze(frmPath, encoding, VbBuiltins.defaults());
+    }
+
+    public static FrmAnalysis analyze(Path frmPath, SourceEncoding encoding, VbBuiltins builtins)
+            throws IOException {
+        return analyze(frmPath, AnalyzerOptions.defaults().withEncoding(encoding).withBuiltins(builtins));
+    }
+
+    /**
+     * Uses the encoding and built-ins of {@code options}; with {@link AnalyzerOptions#frmControls()}
+     * the designer block is parsed into {@link FrmAnalysis#designer()} instead of being skipped.
+     */
+    public static FrmAnalysis analyze(Path frmPath, AnalyzerOptions options) throws IOException {
+        ScanMetrics.Span span = options.metrics().begin(ScanMetrics.Phase.FRM);
+        Parser parser = new Parser(frmPath, options);
+        SourceLines.forEach(frmPath, options.encoding(), span.lines(parser));
+        FrmAnalysis form = parser.finish();
+        span.endFile(frmPath, -1);
+        return form;
+    }
+
+    // For content that a read-ahead stage already loaded.
+    static FrmAnalysis analyze(Path frmPath, ByteBuffer content, AnalyzerOptions options) throws IOException {
+        ScanMetrics.Span span = options.metrics().begin(ScanMetrics.Phase.FRM);
+        Parser parser = new Parser(frmPath, options);
+        SourceLines.forEach(content, options.encoding(), span.lines(parser));
+        FrmAnalysis form = parser.finish();
+        span.endFile(frmPath, content.remaining());
+        return form;
+    }
+
+    private static final class Parser implements SourceLines.Visitor, VbLexer.CallSink {
+        private final Path path;
+        private final List<FrmEvent> events = new ArrayList<>();
+        private final List<FrmCall> shows = new ArrayList<>();
+        private final List<FrmCall> loads = new ArrayList<>();
+        private String formName;
+        private List<FrmCall> currentCalls;
+        private String currentEvent;
+        private int currentEventLine;
+        private final LineTable lines = new LineTable();
+        private final Map<String, String> targets = new HashMap<>();
+        private final VbBuiltins builtins;
+        private final boolean controls;
+        private final boolean codeOnly;
+        private CharSequence scanLine;
+        private int scanLineNumber;
+        private boolean designerSeen;
+        private int designerDepth;
+        // Controls of the designer block that are still open, innermost last.
+        private final List<ControlBuilder> openControls = new ArrayList<>();
+        private FrmControl designer;
+
+        Parser(Path path, AnalyzerOptions options) {
+            this.path = path;
+            this.builtins = options.builtins();
+            this.controls = options.frmControls();
+            this.codeOnly = !options.regexCompatible();
+        }
+
+        FrmAnalysis finish() {
+            lines.freeze();
+            while (!openControls.isEmpty()) {
+                endControl();
+            }
+            return new FrmAnalysis(formName, List.copyOf(events), designer);
+        }
+
+        @Override
+        public void line(CharSequence line, int lineNumber) {
+            if (designerDepth > 0 && designerLine(line, lineNumber)) {
+                return;
+            }
             if (formName == null) {
-                Matcher formMatcher = FORM_NAME.matcher(line);
-                if (formMatcher.find()) {
-                    formName = formMatcher.group(1);
-                }
+                formName = VbLexer.formName(line);
+            }
+            if (!designerSeen && currentEvent == null
+                    && VbLexer.designerLine(line) == VbLexer.DesignerLine.BEGIN) {
+                designerSeen = true;
+                beginControl(line, lineNumber);
+                return;
             }
 
-            Matcher startMatcher = EVENT_START.matcher(line);
-            if (startMatcher.find()) {
-                currentEvent = startMatcher.group(1) + "_" + startMatcher.group(2);
-                currentEventLine = i + 1;
+            String eventName = VbLexer.eventName(line);
+            if (eventName != null) {
+                currentEvent = eventName.intern();
+                currentEventLine = lineNumber;
                 currentCalls = new ArrayList<>();
-                continue;
+                return;
             }
 
             if (currentEvent != null) {
-                if (EVENT_END.matcher(line).find()) {
-                    events.add(new FrmEvent(currentEvent, currentEventLine, List.copyOf(currentCalls)));
+                if (VbLexer.isEndSub(line)) {
+                    events.add(new FrmEvent(currentEvent, currentEventLine, CompactCalls.copyOf(currentCalls, FrmCall::new)));
                     currentEvent = null;
                     currentCalls = null;
-                    continue;
+                    return;
                 }
 
-                currentCalls.addAll(extractCalls(line));
+                extractCalls(line, lineNumber);
             }
         }
 
-        return new FrmAnalysis(formName, List.copyOf(events));
-    }
+        private void closeDesigner(int lineNumber) {
+            LOG.log(System.Logger.Level.WARNING, "{0}: designer block still has {1} open Begin at line {2}; "
+                    + "closing it and scanning the rest as code", path, designerDepth, lineNumber);
+            while (designerDepth > 0) {
+                endControl();
+            }
+        }
 
-    private static List<FrmCall> extractCalls(String line) {
-        String trimmed = line.trim();
-        if (trimmed.isEmpty() || trimmed.startsWith("'")) {
-            return List.of();
+        // Inside the designer block only nesting is tracked; no event or call scanning. Attribute lines
+        // and routine headers never occur there, so one means a Begin had no matching End: the block is
+        // closed and false tells the caller to scan the line as code.
+        private boolean designerLine(CharSequence line, int lineNumber) {
+            switch (VbLexer.designerLine(line)) {
+                case BEGIN -> {
+                    if (formName == null) {
+                        formName = VbLexer.formName(line);
+                    }
+                    beginControl(line, lineNumber);
+                }
+                case END -> endControl();
+                default -> {
+                    if (VbLexer.moduleName(line) != null || VbLexer.routineStart(line) != null) {
+                        closeDesigner(lineNumber);
+                        return false;
+                    }
+                    if (controls) {
+                        int start = LineText.trimStart(line);
+                        int end = LineText.trimEnd(line);
+                        if (start < end) {
+                            openControls.get(openControls.size() - 1).properties
+                                    .append(line, start, end).append('\n');
+                        }
+                    }
+                }
+            }
+            return true;
         }
 
-        List<FrmCall> calls = new ArrayList<>();
+        private void beginControl(CharSequence line, int lineNumber) {
+            designerDepth++;
+            if (controls) {
+                VbLexer.ControlStart start = VbLexer.controlStart(line);
+                openControls.add(new ControlBuilder(intern(start.type()), start.name(), lineNumber));
+            }
+        }
 
-        Matcher showMatcher = SHOW_PATTERN.matcher(line);
-        while (showMatcher.find()) {
-            calls.add(new FrmCall("SHOW", showMatcher.group(1), trimmed));
+        private void endControl() {
+            designerDepth--;
+            if (controls) {
+                FrmControl control = openControls.remove(openControls.size() - 1).build();
+                if (openControls.isEmpty()) {
+                    designer = control;
+                } else {
+                    openControls.get(openControls.size() - 1).children.add(control);
+                }
+            }
         }
 
-        Matcher loadMatcher = LOAD_PATTERN.matcher(line);
-        while (loadMatcher.find()) {
-            calls.add(new FrmCall("LOAD", loadMatcher.group(1), trimmed));
+        private String intern(String value) {
+            return targets.computeIfAbsent(value, String::intern);
         }
 
-        Matcher callMatcher = CALL_PATTERN.matcher(line);
-        while (callMatcher.find()) {
-            String target = callMatcher.group(2);
-            if (target != null && !target.equalsIgnoreCase("Call")) {
-                calls.add(new FrmCall("CALL", target, trimmed));
+        private void extractCalls(CharSequence line, int lineNumber) {
+            if (!LineText.hasCode(line)) {
+                return;
+            }
+
+            // Shows, then loads, then plain calls: the order the separate regex passes produced.
+            int firstCall = currentCalls.size();
+            scanLine = line;
+            scanLineNumber = lineNumber;
+            VbLexer.scanCalls(line, true, codeOnly, this);
+            scanLine = null;
+            if (!shows.isEmpty() || !loads.isEmpty()) {
+                shows.addAll(loads);
+                currentCalls.addAll(firstCall, shows);
+                shows.clear();
+                loads.clear();
             }
         }
 
-        return calls;
+        @Override
+        public void accept(CallKind kind, int start, int end) {
+            if (kind == CallKind.CALL && builtins.mode() != VbBuiltins.Mode.KEEP
+                    && builtins.isBuiltin(scanLine, start, end)) {
+                if (builtins.mode() == VbBuiltins.Mode.DROP) {
+                    return;
+                }
+                kind = CallKind.BUILTIN;
+            }
+            lines.add(scanLineNumber, scanLine);
+            String target = intern(scanLine.subSequence(start, end).toString());
+            FrmCall call = new FrmCall(kind, target, scanLineNumber, lines);
+            if (kind == CallKind.SHOW) {
+                shows.add(call);
+            } else if (kind == CallKind.LOAD) {
+                loads.add(call);
+            } else {
+                currentCalls.add(call);
+            }
+        }
+    }
+
+    private static final class ControlBuilder {
+        private final String type;
+        private final String name;
+        private final int lineNumber;
+        private final StringBuilder properties = new StringBuilder();
+        private final List<FrmControl> children = new ArrayList<>();
+
+        ControlBuilder(String type, String name, int lineNumber) {
+            this.type = type;
+            this.name = name;
+            this.lineNumber = lineNumber;
+        }
+
+        FrmControl build() {
+            return new FrmControl(type, name, lineNumber, properties.toString(), List.copyOf(children));
+        }
     }
 }
@@ -0,0 +1,91 @@
+package com.codex.vb6.extractor;
+
+import java.util.Arrays;
+
+/**
+ * Trimmed text of the lines that carry calls in one source file, stored as a single string.
+ * Every call of the file refers to this table by line number, and a line's text is only
+ * materialized when {@link #line(int)} is called, e.g. while serializing.
+ *
+ * <p>An extractor appends lines in ascending order and freezes the table before returning its
+ * analysis; after that the table is immutable. Tables compare by identity; calls compare the
+ * text of their own line instead.
+ */
+public final class LineTable {
+    private int[] numbers;
+    private int[] ends;
+    private int count;
+    private CharSequence text;
+
+    LineTable() {
+        this(new int[8], new int[8], 0, new StringBuilder());
+    }
+
+    private LineTable(int[] numbers, int[] ends, int count, CharSequence text) {
+        this.numbers = numbers;
+        this.ends = ends;
+        this.count = count;
+        this.text = text;
+    }
+
+    // Appends the trimmed line unless it is already the last line in the table.
+    void add(int lineNumber, CharSequence line) {
+        if (count > 0 && numbers[count - 1] == lineNumber) {
+            return;
+        }
+        if (count == numbers.length) {
+            numbers = Arrays.copyOf(numbers, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        StringBuilder builder = (StringBuilder) text;
+        builder.append(line, LineText.trimStart(line), LineText.trimEnd(line));
+        numbers[count] = lineNumber;
+        ends[count] = builder.length();
+        count++;
+    }
+
+    LineTable freeze() {
+        numbers = Arrays.copyOf(numbers, count);
+        ends = Arrays.copyOf(ends, count);
+        text = text.toString();
+        return this;
+    }
+
+    static LineTable read(int[] numbers, int[] ends, String text) {
+        return new LineTable(numbers, ends, numbers.length, text);
+    }
+
+    // A table holding just {@code line} under {@code lineNumber}, kept as given; empty for null.
+    static LineTable single(int lineNumber, String line) {
+        if (line == null) {
+            return read(new int[0], new int[0], "");
+        }
+        return read(new int[] {lineNumber}, new int[] {line.length()}, line);
+    }
+
+    public int lineCount() {
+        return count;
+    }
+
+    /** Trimmed text of the source line, or null when the table holds no such line. */
+    public String line(int lineNumber) {
+        int index = Arrays.binarySearch(numbers, 0, count, lineNumber);
+        if (index < 0) {
+            return null;
+        }
+        int start = index == 0 ? 0 : ends[index - 1];
+        return text.subSequence(start, ends[index]).toString();
+    }
+
+    int[] numbers() {
+        return numbers;
+    }
+
+    String text() {
+        return text.toString();
+    }
+
+    int[] ends() {
+        return ends;
+    }
+}
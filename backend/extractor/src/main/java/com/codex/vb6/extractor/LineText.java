@@ -0,0 +1,30 @@
+package com.codex.vb6.extractor;
+
+final class LineText {
+    private LineText() {
+    }
+
+    // Blank lines and whole-line comments carry no calls.
+    static boolean hasCode(CharSequence line) {
+        int start = trimStart(line);
+        return start < line.length() && line.charAt(start) != '\'';
+    }
+
+    // trimStart/trimEnd bound the same text String.trim() would return.
+    static int trimStart(CharSequence line) {
+        int start = 0;
+        while (start < line.length() && line.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    static int trimEnd(CharSequence line) {
+        int start = trimStart(line);
+        int end = line.length();
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
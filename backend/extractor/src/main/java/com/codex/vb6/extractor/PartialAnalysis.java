@@ -0,0 +1,184 @@
+package com.codex.vb6.extractor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The projects of one {@link Shard} of a scan, as written by a worker process. {@link #merge}
+ * combines the partials of all shards into the analysis a single scan of {@code root} returns.
+ *
+ * <p>{@code fingerprint} is the {@link AnalyzerOptions#fingerprint()} of the worker; partials
+ * extracted with different settings are not merged.
+ *
+ * <p>The file holds a header followed by varints: the shard, the root, the fingerprint, and one
+ * {@link ProjectCodec} record per project. A string is written in full the first time and as a
+ * back reference after that.
+ */
+public record PartialAnalysis(Shard shard, String root, String fingerprint, ProjectAnalysis analysis) {
+    private static final int MAGIC = 0x56425348;
+    private static final int VERSION = 2;
+
+    /** Writes the partial; the file is replaced atomically. */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Output output = new Output(out);
+            output.varint(shard.index());
+            output.varint(shard.count());
+            output.string(root);
+            output.string(fingerprint);
+            output.varint(analysis.projects().size());
+            for (ProjectSummary project : analysis.projects()) {
+                ProjectCodec.write(output, project);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static PartialAnalysis read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a partial analysis of this version: " + file);
+            }
+            Input input = new Input(in);
+            Shard shard = new Shard(input.varint(), input.varint());
+            String root = input.string();
+            String fingerprint = input.string();
+            int count = input.varint();
+            List<ProjectSummary> projects = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                projects.add(ProjectCodec.read(input));
+            }
+            return new PartialAnalysis(shard, root, fingerprint, new ProjectAnalysis(List.copyOf(projects)));
+        }
+    }
+
+    /**
+     * Combines the partials of every shard of one scan. Fails unless they share the root, the
+     * shard count and the options fingerprint and each shard is present exactly once.
+     */
+    public static ProjectAnalysis merge(List<PartialAnalysis> partials) throws IOException {
+        if (partials.isEmpty()) {
+            throw new IOException("No partial analyses to merge");
+        }
+        PartialAnalysis first = partials.get(0);
+        boolean[] seen = new boolean[first.shard().count()];
+        List<ProjectSummary> projects = new ArrayList<>();
+        for (PartialAnalysis partial : partials) {
+            if (partial.shard().count() != seen.length || !partial.root().equals(first.root())) {
+                throw new IOException("Shard " + partial.shard() + " of " + partial.root()
+                        + " does not belong to a scan of " + first.root() + " in " + seen.length + " shards");
+            }
+            if (!partial.fingerprint().equals(first.fingerprint())) {
+                throw new IOException("Shard " + partial.shard() + " was analyzed with " + partial.fingerprint()
+                        + ", shard " + first.shard() + " with " + first.fingerprint());
+            }
+            if (seen[partial.shard().index()]) {
+                throw new IOException("Shard " + partial.shard() + " given twice");
+            }
+            seen[partial.shard().index()] = true;
+            projects.addAll(partial.analysis().projects());
+        }
+        for (int i = 0; i < seen.length; i++) {
+            if (!seen[i]) {
+                throw new IOException("Shard " + new Shard(i, seen.length) + " is missing");
+            }
+        }
+        // The order of a single scan, see ProjectAnalyzer.analyze.
+        projects.sort(Comparator.comparing(ProjectSummary::vbpPath));
+        return new ProjectAnalysis(List.copyOf(projects));
+    }
+
+    // String references: 0 is null, 1 is a new string that follows, k >= 2 is string k - 2.
+    private static final class Output implements ProjectCodec.Output {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Output(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void varint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        @Override
+        public void string(String value) throws IOException {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            Integer id = strings.get(value);
+            if (id != null) {
+                varint(id + 2);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(1);
+            varint(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static final class Input implements ProjectCodec.Input {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        Input(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in.readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        @Override
+        public String string() throws IOException {
+            int reference = varint();
+            if (reference == 0) {
+                return null;
+            }
+            if (reference > 1) {
+                return strings.get(reference - 2);
+            }
+            byte[] bytes = new byte[varint()];
+            in.readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+    }
+}
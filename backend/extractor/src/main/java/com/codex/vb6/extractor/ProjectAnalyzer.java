@@ -6,11 +6,15 @@ import com.codex.vb6.parser.VbpIndex;
 import com.codex.vb6.parser.VbpProject;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -19,48 +23,198 @@ public final class ProjectAnalyzer {
     }
 
     public static ProjectAnalysis analyze(Path rootPath) throws IOException {
+        return analyze(rootPath, AnalyzerOptions.defaults());
+    }
+
+    public static ProjectAnalysis analyze(Path rootPath, AnalyzerOptions options) throws IOException {
+        return analyze(rootPath, options, ProjectListener.NONE);
+    }
+
+    public static ProjectAnalysis analyze(Path rootPath, AnalyzerOptions options, ProjectListener listener)
+            throws IOException {
+        if (options.ioThreads() > 0) {
+            return new ProjectAnalysis(List.copyOf(new ScanPipeline(rootPath, options, listener).run()));
+        }
         List<Path> vbpFiles;
+        ScanMetrics.Span discovery = options.metrics().begin(ScanMetrics.Phase.DISCOVERY);
         try (Stream<Path> stream = Files.walk(rootPath)) {
+            // Sorted by the same key as the final project list, so projects can be reported as they finish.
             vbpFiles = stream
-                    .filter(path -> path.toString().toLowerCase().endsWith(".vbp"))
-                    .sorted()
+                    .filter(ProjectAnalyzer::isVbp)
+                    .filter(path -> options.shard().includes(rootPath, path))
+                    .sorted(Comparator.comparing(Path::toString))
                     .collect(Collectors.toList());
         }
+        discovery.end();
+
+        listener.projectsFound(vbpFiles.size());
+        SharedFiles files = new SharedFiles();
+        List<ProjectSummary> projects;
+        if (options.parallelism() > 1) {
+            projects = analyzeParallel(vbpFiles, options, files, listener);
+        } else {
+            projects = new ArrayList<>();
+            for (Path vbpPath : vbpFiles) {
+                ProjectSummary project = analyzeProject(vbpPath, options, files, false);
+                listener.projectAnalyzed(project);
+                projects.add(project);
+            }
+        }
+        listener.filesShared(files.references(), files.uniqueFiles());
+
+        return new ProjectAnalysis(List.copyOf(projects));
+    }
+
+    private static List<ProjectSummary> analyzeParallel(List<Path> vbpFiles, AnalyzerOptions options,
+                                                        SharedFiles files, ProjectListener listener)
+            throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(options.parallelism());
+        try {
+            List<ForkJoinTask<ProjectSummary>> tasks = new ArrayList<>();
+            for (Path vbpPath : vbpFiles) {
+                tasks.add(pool.submit(() -> analyzeProject(vbpPath, options, files, true)));
+            }
+            List<ProjectSummary> projects = new ArrayList<>(tasks.size());
+            for (ForkJoinTask<ProjectSummary> task : tasks) {
+                ProjectSummary project = task.join();
+                listener.projectAnalyzed(project);
+                projects.add(project);
+            }
+            return projects;
+        } catch (RuntimeException e) {
+            throw rethrow(e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 
-        List<ProjectSummary> projects = new ArrayList<>();
-        for (Path vbpPath : vbpFiles) {
-            VbpProject project = VbpIndex.parse(vbpPath);
-            Path vbpDir = vbpPath.getParent();
+    /** Analyzes a single .vbp and the files it references. */
+    public static ProjectSummary analyzeProject(Path vbpPath, AnalyzerOptions options) throws IOException {
+        return analyzeProject(vbpPath, options, new SharedFiles(), false);
+    }
 
-            List<EntryStatus> entries = new ArrayList<>();
-            List<FrmAnalysis> forms = new ArrayList<>();
-            List<BasAnalysis> modules = new ArrayList<>();
+    /**
+     * Re-analyzes the files of {@code previous} without parsing its .vbp again. With a cache in
+     * {@code options}, only files whose size or timestamp changed are extracted again.
+     */
+    public static ProjectSummary reanalyze(ProjectSummary previous, AnalyzerOptions options) throws IOException {
+        checkCancelled(options);
+        return analyzeEntries(Path.of(previous.vbpPath()), previous.project(), options, new SharedFiles(), false);
+    }
+
+    private static ProjectSummary analyzeProject(Path vbpPath, AnalyzerOptions options, SharedFiles files,
+                                                 boolean fork) throws IOException {
+        checkCancelled(options);
+        ScanMetrics.Span span = options.metrics().begin(ScanMetrics.Phase.VBP);
+        VbpProject project = VbpIndex.parse(vbpPath, options.encoding());
+        span.endFile(vbpPath, -1);
+        return analyzeEntries(vbpPath, project, options, files, fork);
+    }
 
+    private static ProjectSummary analyzeEntries(Path vbpPath, VbpProject project, AnalyzerOptions options,
+                                                 SharedFiles files, boolean fork) throws IOException {
+        Path vbpDir = vbpPath.getParent();
+        List<EntryResult> results = new ArrayList<>();
+        if (fork) {
+            // Runs inside a pool worker: fork one task per entry and join them in entry order.
+            List<ForkJoinTask<EntryResult>> tasks = new ArrayList<>();
             for (VbpEntry entry : project.entries()) {
-                Path resolved = vbpDir.resolve(entry.path()).normalize();
-                boolean exists = Files.exists(resolved);
-                entries.add(new EntryStatus(entry, resolved.toString(), exists));
-
-                if (!exists) {
-                    continue;
-                }
-
-                if (entry.type() == VbpEntryType.FORM && entry.path().toLowerCase().endsWith(".frm")) {
-                    forms.add(FrmExtractor.analyze(resolved));
-                } else if (entry.type() == VbpEntryType.MODULE && entry.path().toLowerCase().endsWith(".bas")) {
-                    modules.add(BasExtractor.analyze(resolved));
-                }
+                tasks.add(ForkJoinTask.adapt(() -> analyzeEntry(vbpDir, entry, options, files)).fork());
             }
+            for (ForkJoinTask<EntryResult> task : tasks) {
+                results.add(task.join());
+            }
+        } else {
+            for (VbpEntry entry : project.entries()) {
+                results.add(analyzeEntry(vbpDir, entry, options, files));
+            }
+        }
+        return summarize(vbpPath, project, results, options.symbols());
+    }
 
-            forms.sort(Comparator.comparing(FrmAnalysis::formName, Comparator.nullsLast(String::compareTo)));
-            modules.sort(Comparator.comparing(BasAnalysis::moduleName, Comparator.nullsLast(String::compareTo)));
-            entries.sort(Comparator.comparing(status -> status.entry().path()));
+    // Entries, forms and modules are sorted so the summary does not depend on completion order.
+    static ProjectSummary summarize(Path vbpPath, VbpProject project, List<EntryResult> results,
+                                    SymbolIndex.Builder symbols) {
+        List<EntryStatus> entries = new ArrayList<>();
+        List<FrmAnalysis> forms = new ArrayList<>();
+        List<BasAnalysis> modules = new ArrayList<>();
+        for (EntryResult result : results) {
+            entries.add(result.status());
+            if (result.form() != null) {
+                forms.add(result.form());
+            }
+            if (result.module() != null) {
+                modules.add(result.module());
+            }
+            if (symbols != null) {
+                symbols.add(result.status().resolvedPath(), result.form(), result.module());
+            }
+        }
+
+        forms.sort(Comparator.comparing(FrmAnalysis::formName, Comparator.nullsLast(String::compareTo)));
+        modules.sort(Comparator.comparing(BasAnalysis::moduleName, Comparator.nullsLast(String::compareTo)));
+        entries.sort(Comparator.comparing(status -> status.entry().path()));
+
+        return new ProjectSummary(vbpPath.toString(), project, List.copyOf(entries),
+                List.copyOf(forms), List.copyOf(modules));
+    }
+
+    private static EntryResult analyzeEntry(Path vbpDir, VbpEntry entry, AnalyzerOptions options,
+                                            SharedFiles files) throws IOException {
+        checkCancelled(options);
+        Path resolved = vbpDir.resolve(entry.path()).normalize();
+        Path file = files.realPath(resolved);
+        EntryStatus status = new EntryStatus(entry, resolved.toString(), file != null);
 
-            projects.add(new ProjectSummary(vbpPath.toString(), project, List.copyOf(entries),
-                    List.copyOf(forms), List.copyOf(modules)));
+        if (file == null) {
+            return new EntryResult(status, null, null);
         }
 
-        projects.sort(Comparator.comparing(ProjectSummary::vbpPath));
-        return new ProjectAnalysis(List.copyOf(projects));
+        AnalysisCache cache = options.cache();
+        if (isForm(entry)) {
+            FrmAnalysis form = files.analysis(file, () -> cache != null
+                    ? cache.form(file, options)
+                    : FrmExtractor.analyze(file, options));
+            return new EntryResult(status, form, null);
+        } else if (isModule(entry)) {
+            BasAnalysis module = files.analysis(file, () -> cache != null
+                    ? cache.module(file, options)
+                    : BasExtractor.analyze(file, options));
+            return new EntryResult(status, null, module);
+        }
+        return new EntryResult(status, null, null);
+    }
+
+    static boolean isVbp(Path path) {
+        return path.toString().toLowerCase().endsWith(".vbp");
+    }
+
+    static boolean isForm(VbpEntry entry) {
+        return entry.type() == VbpEntryType.FORM && entry.path().toLowerCase().endsWith(".frm");
+    }
+
+    static boolean isModule(VbpEntry entry) {
+        return entry.type() == VbpEntryType.MODULE && entry.path().toLowerCase().endsWith(".bas");
+    }
+
+    static void checkCancelled(AnalyzerOptions options) {
+        if (options.cancelled().getAsBoolean()) {
+            throw new CancellationException("Analysis cancelled");
+        }
+    }
+
+    static IOException rethrow(RuntimeException e) throws IOException {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+        }
+        throw e;
+    }
+
+    record EntryResult(EntryStatus status, FrmAnalysis form, BasAnalysis module) {
     }
 }
@@ -0,0 +1,250 @@
+package com.codex.vb6.extractor;
+
+import com.codex.vb6.parser.VbpEntry;
+import com.codex.vb6.parser.VbpEntryType;
+import com.codex.vb6.parser.VbpProject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes a {@link ProjectSummary} as a record of unsigned varints and string references, for
+ * storage formats that keep strings in a table of their own. Line numbers and line table
+ * offsets are delta-encoded, so most values fit in one byte.
+ */
+public final class ProjectCodec {
+    private static final CallKind[] CALL_KINDS = CallKind.values();
+    private static final VbpEntryType[] ENTRY_TYPES = VbpEntryType.values();
+
+    /** Receives the record; strings may be null. */
+    public interface Output {
+        void varint(int value) throws IOException;
+
+        void string(String value) throws IOException;
+    }
+
+    public interface Input {
+        int varint() throws IOException;
+
+        String string() throws IOException;
+    }
+
+    private ProjectCodec() {
+    }
+
+    public static void write(Output out, ProjectSummary project) throws IOException {
+        out.string(project.vbpPath());
+        out.string(project.project().name());
+        out.string(project.project().startup());
+        out.varint(project.project().entries().size());
+        for (VbpEntry entry : project.project().entries()) {
+            writeEntry(out, entry);
+        }
+        out.varint(project.entries().size());
+        for (EntryStatus status : project.entries()) {
+            writeEntry(out, status.entry());
+            out.string(status.resolvedPath());
+            out.varint(status.exists() ? 1 : 0);
+        }
+        out.varint(project.forms().size());
+        for (FrmAnalysis form : project.forms()) {
+            writeForm(out, form);
+        }
+        out.varint(project.modules().size());
+        for (BasAnalysis module : project.modules()) {
+            writeModule(out, module);
+        }
+    }
+
+    public static ProjectSummary read(Input in) throws IOException {
+        Map<String, String> names = new HashMap<>();
+        String vbpPath = in.string();
+        String name = in.string();
+        String startup = in.string();
+        List<VbpEntry> vbpEntries = new ArrayList<>();
+        for (int i = in.varint(); i > 0; i--) {
+            vbpEntries.add(readEntry(in));
+        }
+        List<EntryStatus> entries = new ArrayList<>();
+        for (int i = in.varint(); i > 0; i--) {
+            entries.add(new EntryStatus(readEntry(in), in.string(), in.varint() != 0));
+        }
+        List<FrmAnalysis> forms = new ArrayList<>();
+        for (int i = in.varint(); i > 0; i--) {
+            forms.add(readForm(in, names));
+        }
+        List<BasAnalysis> modules = new ArrayList<>();
+        for (int i = in.varint(); i > 0; i--) {
+            modules.add(readModule(in, names));
+        }
+        return new ProjectSummary(vbpPath, new VbpProject(name, startup, List.copyOf(vbpEntries)),
+                List.copyOf(entries), List.copyOf(forms), List.copyOf(modules));
+    }
+
+    private static void writeEntry(Output out, VbpEntry entry) throws IOException {
+        out.varint(entry.type().ordinal());
+        out.string(entry.name());
+        out.string(entry.path());
+    }
+
+    private static VbpEntry readEntry(Input in) throws IOException {
+        return new VbpEntry(ENTRY_TYPES[in.varint()], in.string(), in.string());
+    }
+
+    private static void writeForm(Output out, FrmAnalysis form) throws IOException {
+        out.string(form.formName());
+        Map<LineTable, Integer> tables = new IdentityHashMap<>();
+        for (FrmEvent event : form.events()) {
+            for (FrmCall call : event.calls()) {
+                tables.putIfAbsent(call.lines(), tables.size());
+            }
+        }
+        writeTables(out, tables);
+        out.varint(form.events().size());
+        for (FrmEvent event : form.events()) {
+            out.string(event.name());
+            out.varint(event.lineNumber());
+            writeCalls(out, event.calls(), event.lineNumber(), tables);
+        }
+        out.varint(form.designer() != null ? 1 : 0);
+        if (form.designer() != null) {
+            writeControl(out, form.designer());
+        }
+    }
+
+    private static FrmAnalysis readForm(Input in, Map<String, String> names) throws IOException {
+        String formName = in.string();
+        LineTable[] tables = readTables(in);
+        List<FrmEvent> events = new ArrayList<>();
+        for (int i = in.varint(); i > 0; i--) {
+            String name = intern(names, in.string());
+            int lineNumber = in.varint();
+            events.add(new FrmEvent(name, lineNumber,
+                    CompactCalls.copyOf(readCalls(in, lineNumber, tables, names, FrmCall::new), FrmCall::new)));
+        }
+        FrmControl designer = in.varint() != 0 ? readControl(in, names) : null;
+        return new FrmAnalysis(formName, List.copyOf(events), designer);
+    }
+
+    private static void writeControl(Output out, FrmControl control) throws IOException {
+        out.string(control.type());
+        out.string(control.name());
+        out.varint(control.lineNumber());
+        out.string(control.propertyText());
+        out.varint(control.children().size());
+        for (FrmControl child : control.children()) {
+            writeControl(out, child);
+        }
+    }
+
+    private static FrmControl readControl(Input in, Map<String, String> names) throws IOException {
+        String type = intern(names, in.string());
+        String name = in.string();
+        int lineNumber = in.varint();
+        String propertyText = in.string();
+        List<FrmControl> children = new ArrayList<>();
+        for (int i = in.varint(); i > 0; i--) {
+            children.add(readControl(in, names));
+        }
+        return new FrmControl(type, name, lineNumber, propertyText, List.copyOf(children));
+    }
+
+    private static void writeModule(Output out, BasAnalysis module) throws IOException {
+        out.string(module.moduleName());
+        Map<LineTable, Integer> tables = new IdentityHashMap<>();
+        for (BasRoutine routine : module.routines()) {
+            for (BasCall call : routine.calls()) {
+                tables.putIfAbsent(call.lines(), tables.size());
+            }
+        }
+        writeTables(out, tables);
+        out.varint(module.routines().size());
+        for (BasRoutine routine : module.routines()) {
+            out.string(routine.name());
+            out.string(routine.kind());
+            out.varint(routine.lineNumber());
+            writeCalls(out, routine.calls(), routine.lineNumber(), tables);
+        }
+    }
+
+    private static BasAnalysis readModule(Input in, Map<String, String> names) throws IOException {
+        String moduleName = in.string();
+        LineTable[] tables = readTables(in);
+        List<BasRoutine> routines = new ArrayList<>();
+        for (int i = in.varint(); i > 0; i--) {
+            String name = intern(names, in.string());
+            String kind = intern(names, in.string());
+            int lineNumber = in.varint();
+            routines.add(new BasRoutine(name, kind, lineNumber,
+                    CompactCalls.copyOf(readCalls(in, lineNumber, tables, names, BasCall::new), BasCall::new)));
+        }
+        return new BasAnalysis(moduleName, List.copyOf(routines));
+    }
+
+    // Call lines are stored zigzag-encoded relative to the line of the enclosing event or routine.
+    private static void writeCalls(Output out, List<? extends CallSite> calls, int baseLine,
+                                   Map<LineTable, Integer> tables) throws IOException {
+        out.varint(calls.size());
+        for (CallSite call : calls) {
+            out.varint(call.kind().ordinal());
+            out.string(call.target());
+            int delta = call.lineNumber() - baseLine;
+            out.varint((delta << 1) ^ (delta >> 31));
+            out.varint(tables.get(call.lines()));
+        }
+    }
+
+    private static <T extends CallSite> List<T> readCalls(Input in, int baseLine, LineTable[] tables,
+                                                          Map<String, String> names,
+                                                          CompactCalls.Factory<T> factory) throws IOException {
+        int count = in.varint();
+        List<T> calls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CallKind kind = CALL_KINDS[in.varint()];
+            String target = intern(names, in.string());
+            int delta = in.varint();
+            int lineNumber = baseLine + ((delta >>> 1) ^ -(delta & 1));
+            calls.add(factory.create(kind, target, lineNumber, tables[in.varint()]));
+        }
+        return calls;
+    }
+
+    private static void writeTables(Output out, Map<LineTable, Integer> tables) throws IOException {
+        out.varint(tables.size());
+        for (LineTable table : tables.keySet()) {
+            out.varint(table.lineCount());
+            int previousNumber = 0;
+            int previousEnd = 0;
+            for (int i = 0; i < table.lineCount(); i++) {
+                out.varint(table.numbers()[i] - previousNumber);
+                out.varint(table.ends()[i] - previousEnd);
+                previousNumber = table.numbers()[i];
+                previousEnd = table.ends()[i];
+            }
+            out.string(table.text());
+        }
+    }
+
+    private static LineTable[] readTables(Input in) throws IOException {
+        LineTable[] tables = new LineTable[in.varint()];
+        for (int t = 0; t < tables.length; t++) {
+            int count = in.varint();
+            int[] numbers = new int[count];
+            int[] ends = new int[count];
+            for (int i = 0; i < count; i++) {
+                numbers[i] = (i == 0 ? 0 : numbers[i - 1]) + in.varint();
+                ends[i] = (i == 0 ? 0 : ends[i - 1]) + in.varint();
+            }
+            tables[t] = LineTable.read(numbers, ends, in.string());
+        }
+        return tables;
+    }
+
+    private static String intern(Map<String, String> strings, String value) {
+        return value == null ? null : strings.computeIfAbsent(value, String::intern);
+    }
+}
@@ -0,0 +1,29 @@
+package com.codex.vb6.extractor;
+
+import java.io.IOException;
+
+/**
+ * Receives each {@link ProjectSummary} as soon as it and every project sorted before it are done,
+ * in the same order as {@link ProjectAnalysis#projects()}.
+ */
+@FunctionalInterface
+public interface ProjectListener {
+    ProjectListener NONE = project -> {
+    };
+
+    /**
+     * Called once with the number of .vbp files found: before any project is analyzed, or in the
+     * pipelined scan as soon as the walk has finished.
+     */
+    default void projectsFound(int count) {
+    }
+
+    void projectAnalyzed(ProjectSummary project) throws IOException;
+
+    /**
+     * Called once after the last project with the number of .frm/.bas references that were
+     * analyzed and the number of distinct files behind them.
+     */
+    default void filesShared(long references, long uniqueFiles) {
+    }
+}
@@ -0,0 +1,263 @@
+package com.codex.vb6.extractor;
+
+import com.codex.vb6.parser.SourceLines;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time, allocation and throughput per phase of a scan, and the slowest files.
+ *
+ * <p>Work is measured with a {@link Span} per unit: one per .vbp parse or extracted file, one per
+ * project written by a CLI. Nanoseconds and allocated bytes are summed over all threads, so with
+ * several threads a phase can take longer than the scan. Throughput is measured against a phase's
+ * busy time instead: the wall-clock time during which at least one of its spans was open, so it
+ * neither drops as threads are added nor counts the time other phases run in between. Allocation
+ * comes from the JVM's per-thread counter and is 0 where the JVM does not provide it.
+ *
+ * <p>{@link #DISABLED} hands out one shared span that records nothing, so disabled metrics cost
+ * no clock reads and no allocation.
+ */
+public final class ScanMetrics {
+    public static final ScanMetrics DISABLED = new ScanMetrics(false, 0);
+
+    public enum Phase {
+        DISCOVERY, VBP, READ, FRM, BAS, GRAPH, OUTPUT
+    }
+
+    private static final Span NO_SPAN = new Span(null, null);
+    private static final Comparator<FileTiming> FASTEST_FIRST = Comparator.comparingLong(FileTiming::nanos);
+
+    private final boolean enabled;
+    private final int slowestCount;
+    private final long started = System.nanoTime();
+    private final Map<Phase, Counters> phases = new EnumMap<>(Phase.class);
+    private final PriorityQueue<FileTiming> slowest = new PriorityQueue<>(FASTEST_FIRST);
+    private final com.sun.management.ThreadMXBean threads;
+
+    private ScanMetrics(boolean enabled, int slowestCount) {
+        this.enabled = enabled;
+        this.slowestCount = slowestCount;
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new Counters());
+        }
+        ThreadMXBean bean = enabled ? ManagementFactory.getThreadMXBean() : null;
+        threads = bean instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemorySupported()
+                && sun.isThreadAllocatedMemoryEnabled() ? sun : null;
+    }
+
+    /** Records every phase and keeps the {@code slowestCount} slowest extracted files. */
+    public static ScanMetrics enabled(int slowestCount) {
+        return new ScanMetrics(true, slowestCount);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Span begin(Phase phase) {
+        return enabled ? new Span(this, phase) : NO_SPAN;
+    }
+
+    /** Nanoseconds since these metrics were created. */
+    public long elapsedNanos() {
+        return System.nanoTime() - started;
+    }
+
+    public List<PhaseStats> phases() {
+        List<PhaseStats> result = new ArrayList<>();
+        for (Map.Entry<Phase, Counters> entry : phases.entrySet()) {
+            Counters counters = entry.getValue();
+            result.add(new PhaseStats(entry.getKey(), counters.calls.sum(), counters.nanos.sum(),
+                    counters.allocated.sum(), counters.files.sum(), counters.bytes.sum(),
+                    counters.lines.sum(), counters.visitNanos.sum(), counters.busyNanos()));
+        }
+        return result;
+    }
+
+    /** Slowest .frm/.bas extractions first. */
+    public List<FileTiming> slowestFiles() {
+        List<FileTiming> result;
+        synchronized (slowest) {
+            result = new ArrayList<>(slowest);
+        }
+        result.sort(FASTEST_FIRST.reversed());
+        return result;
+    }
+
+    private long allocatedBytes() {
+        return threads != null ? threads.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private void record(Span span, long nanos, long allocated) {
+        Counters counters = phases.get(span.phase);
+        counters.calls.increment();
+        counters.nanos.add(nanos);
+        counters.interval(span.start, span.start + nanos);
+        counters.allocated.add(allocated);
+        if (span.file == null) {
+            return;
+        }
+        counters.files.increment();
+        counters.bytes.add(span.bytes);
+        counters.lines.add(span.lines);
+        counters.visitNanos.add(span.visitNanos);
+        if (slowestCount == 0 || (span.phase != Phase.FRM && span.phase != Phase.BAS)) {
+            return;
+        }
+        synchronized (slowest) {
+            if (slowest.size() < slowestCount || nanos > slowest.peek().nanos()) {
+                slowest.add(new FileTiming(span.file.toString(), span.phase, span.bytes, span.lines, nanos));
+                if (slowest.size() > slowestCount) {
+                    slowest.poll();
+                }
+            }
+        }
+    }
+
+    /**
+     * One measured unit of work on the current thread; {@link #end()} or {@link #endFile} must be
+     * called on the thread that began it.
+     */
+    public static final class Span {
+        private final ScanMetrics metrics;
+        private final Phase phase;
+        private final long start;
+        private final long allocatedStart;
+        private Path file;
+        private long bytes;
+        private int lines;
+        private long visitNanos;
+
+        private Span(ScanMetrics metrics, Phase phase) {
+            this.metrics = metrics;
+            this.phase = phase;
+            this.allocatedStart = metrics != null ? metrics.allocatedBytes() : 0;
+            this.start = metrics != null ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Wraps a line visitor to count lines and the time spent in it, i.e. lexing and extraction
+         * without decoding. Returns {@code visitor} itself when disabled.
+         */
+        public SourceLines.Visitor lines(SourceLines.Visitor visitor) {
+            if (metrics == null) {
+                return visitor;
+            }
+            return (line, lineNumber) -> {
+                long visitStart = System.nanoTime();
+                visitor.line(line, lineNumber);
+                visitNanos += System.nanoTime() - visitStart;
+                lines = lineNumber;
+            };
+        }
+
+        public void end() {
+            if (metrics != null) {
+                long nanos = System.nanoTime() - start;
+                metrics.record(this, nanos, metrics.allocatedBytes() - allocatedStart);
+            }
+        }
+
+        /** Ends the span as the processing of {@code path}; a negative size is read from the file. */
+        public void endFile(Path path, long size) {
+            if (metrics != null) {
+                long nanos = System.nanoTime() - start;
+                long allocated = metrics.allocatedBytes() - allocatedStart;
+                file = path;
+                bytes = size >= 0 ? size : sizeOf(path);
+                metrics.record(this, nanos, allocated);
+            }
+        }
+
+        private static long sizeOf(Path path) {
+            try {
+                return Files.size(path);
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * {@code files}, {@code bytes} and {@code lines} count the files measured with
+     * {@link Span#endFile}; {@code visitNanos} is their time spent in the lexer and extractor.
+     * {@code nanos} is summed over threads, {@code busyNanos} is the wall-clock time covered by at
+     * least one span of the phase; the two are equal when no spans of the phase overlapped.
+     */
+    public record PhaseStats(Phase phase, long calls, long nanos, long allocatedBytes,
+                             long files, long bytes, long lines, long visitNanos, long busyNanos) {
+        /** Files per second of busy time. */
+        public double filesPerSecond() {
+            return busyNanos == 0 ? 0 : files / (busyNanos / 1_000_000_000.0);
+        }
+
+        /** Bytes per second of busy time. */
+        public double bytesPerSecond() {
+            return busyNanos == 0 ? 0 : bytes / (busyNanos / 1_000_000_000.0);
+        }
+    }
+
+    public record FileTiming(String path, Phase phase, long bytes, int lines, long nanos) {
+    }
+
+    private static final class Counters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+        private final LongAdder files = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder lines = new LongAdder();
+        private final LongAdder visitNanos = new LongAdder();
+        // Span starts and ends; only their union matters, so the two are kept and sorted apart.
+        private long[] starts = new long[64];
+        private long[] ends = new long[64];
+        private int intervals;
+
+        private synchronized void interval(long start, long end) {
+            if (intervals == starts.length) {
+                starts = Arrays.copyOf(starts, intervals * 2);
+                ends = Arrays.copyOf(ends, intervals * 2);
+            }
+            starts[intervals] = start;
+            ends[intervals] = end;
+            intervals++;
+        }
+
+        // Sweeps the sorted starts and ends, adding up the time at least one span was open.
+        private synchronized long busyNanos() {
+            long[] opened = Arrays.copyOf(starts, intervals);
+            long[] closed = Arrays.copyOf(ends, intervals);
+            Arrays.sort(opened);
+            Arrays.sort(closed);
+            long busy = 0;
+            long busySince = 0;
+            int open = 0;
+            for (int i = 0, j = 0; j < intervals; ) {
+                if (i < intervals && opened[i] <= closed[j]) {
+                    if (open++ == 0) {
+                        busySince = opened[i];
+                    }
+                    i++;
+                } else {
+                    if (--open == 0) {
+                        busy += closed[j] - busySince;
+                    }
+                    j++;
+                }
+            }
+            return busy;
+        }
+    }
+}
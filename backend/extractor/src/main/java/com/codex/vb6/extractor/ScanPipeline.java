@@ -0,0 +1,277 @@
+package com.codex.vb6.extractor;
+
+import com.codex.vb6.extractor.ProjectAnalyzer.EntryResult;
+import com.codex.vb6.parser.VbpEntry;
+import com.codex.vb6.parser.VbpIndex;
+import com.codex.vb6.parser.VbpProject;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Pipelined variant of {@link ProjectAnalyzer#analyze}: discovery, reading and extraction run as
+ * overlapping stages instead of one phase after the other.
+ *
+ * <p>A discovery thread walks the tree and queues one future per .vbp; the queue is bounded, so
+ * the walk cannot run far ahead of the consumer. Each project parses its .vbp and reads its files
+ * on the I/O threads, with at most {@link #READ_AHEAD_BYTES} of file content held in memory, and
+ * extracts them on the {@code parallelism} threads. The calling thread takes the futures in queue
+ * order, which is the order of the phased scan, so listeners and results are the same.
+ */
+final class ScanPipeline {
+    private static final int READ_AHEAD_BYTES = 64 * 1024 * 1024;
+    private static final CompletableFuture<ProjectSummary> END = CompletableFuture.completedFuture(null);
+
+    private final Path root;
+    private final AnalyzerOptions options;
+    private final ProjectListener listener;
+    private final SharedFiles files = new SharedFiles();
+    private final BlockingQueue<CompletableFuture<ProjectSummary>> projects;
+    private final Semaphore readAhead = new Semaphore(READ_AHEAD_BYTES);
+    private final ExecutorService io;
+    private final ForkJoinPool cpu;
+    // Only touched by the discovery thread.
+    private int submitted;
+    // Number of .vbp files, set once discovery has finished.
+    private volatile int found = -1;
+
+    ScanPipeline(Path root, AnalyzerOptions options, ProjectListener listener) {
+        this.root = root;
+        this.options = options;
+        this.listener = listener;
+        this.projects = new ArrayBlockingQueue<>(4 * (options.parallelism() + options.ioThreads()));
+        this.io = Executors.newFixedThreadPool(options.ioThreads(), task -> {
+            Thread thread = new Thread(task, "scan-read");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cpu = new ForkJoinPool(options.parallelism());
+    }
+
+    List<ProjectSummary> run() throws IOException {
+        Thread discovery = new Thread(this::discover, "scan-discovery");
+        discovery.setDaemon(true);
+        discovery.start();
+        try {
+            List<ProjectSummary> result = new ArrayList<>();
+            boolean reported = false;
+            while (true) {
+                // The count is only known once the walk is done, usually long before the last project.
+                if (!reported && found >= 0) {
+                    listener.projectsFound(found);
+                    reported = true;
+                }
+                CompletableFuture<ProjectSummary> next = projects.take();
+                if (next == END) {
+                    break;
+                }
+                ProjectSummary project = next.join();
+                listener.projectAnalyzed(project);
+                result.add(project);
+            }
+            if (!reported) {
+                listener.projectsFound(found);
+            }
+            listener.filesShared(files.references(), files.uniqueFiles());
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning " + root);
+        } catch (CompletionException e) {
+            throw ProjectAnalyzer.rethrow(e.getCause() instanceof RuntimeException runtime ? runtime : e);
+        } finally {
+            discovery.interrupt();
+            io.shutdownNow();
+            cpu.shutdownNow();
+        }
+    }
+
+    private void discover() {
+        try {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(root, BasicFileAttributes.class,
+                        LinkOption.NOFOLLOW_LINKS);
+                if (ProjectAnalyzer.isVbp(root)) {
+                    submit(root);
+                }
+                if (attributes.isDirectory()) {
+                    ScanMetrics.Span span = options.metrics().begin(ScanMetrics.Phase.DISCOVERY);
+                    walk(root);
+                    span.end();
+                }
+            } catch (IOException e) {
+                projects.put(CompletableFuture.failedFuture(new UncheckedIOException(e)));
+            }
+            found = submitted;
+            projects.put(END);
+        } catch (InterruptedException e) {
+            // The consumer gave up and stopped the walk; nobody is waiting for the end marker.
+        }
+    }
+
+    /**
+     * Submits the .vbp files below {@code dir} in {@link Path#toString()} order, the order the
+     * phased scan sorts them in. Among its siblings a subdirectory sorts as its name plus the
+     * separator, which is exactly where the paths of all its descendants fall.
+     */
+    private void walk(Path dir) throws IOException, InterruptedException {
+        String separator = dir.getFileSystem().getSeparator();
+        List<Item> items = new ArrayList<>();
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+            for (Path child : children) {
+                String name = child.getFileName().toString();
+                if (ProjectAnalyzer.isVbp(child)) {
+                    items.add(new Item(name, child, false));
+                }
+                if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    items.add(new Item(name + separator, child, true));
+                }
+            }
+        }
+        items.sort(Comparator.comparing(Item::key));
+        for (Item item : items) {
+            if (item.descend()) {
+                walk(item.path());
+            } else {
+                submit(item.path());
+            }
+        }
+    }
+
+    private void submit(Path vbpPath) throws InterruptedException {
+        if (!options.shard().includes(root, vbpPath)) {
+            return;
+        }
+        submitted++;
+        projects.put(CompletableFuture.supplyAsync(() -> parse(vbpPath), io).thenCompose(this::analyze));
+    }
+
+    // I/O stage: the .vbp itself and the real paths of its entries.
+    private Parsed parse(Path vbpPath) {
+        ProjectAnalyzer.checkCancelled(options);
+        VbpProject project;
+        try {
+            ScanMetrics.Span span = options.metrics().begin(ScanMetrics.Phase.VBP);
+            project = VbpIndex.parse(vbpPath, options.encoding());
+            span.endFile(vbpPath, -1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Path vbpDir = vbpPath.getParent();
+        List<EntryStatus> statuses = new ArrayList<>();
+        List<Path> realPaths = new ArrayList<>();
+        for (VbpEntry entry : project.entries()) {
+            Path resolved = vbpDir.resolve(entry.path()).normalize();
+            Path file = files.realPath(resolved);
+            statuses.add(new EntryStatus(entry, resolved.toString(), file != null));
+            realPaths.add(file);
+        }
+        return new Parsed(vbpPath, project, statuses, realPaths);
+    }
+
+    private CompletableFuture<ProjectSummary> analyze(Parsed parsed) {
+        List<CompletableFuture<EntryResult>> entries = new ArrayList<>();
+        for (int i = 0; i < parsed.statuses().size(); i++) {
+            EntryStatus status = parsed.statuses().get(i);
+            Path file = parsed.realPaths().get(i);
+            if (file != null && ProjectAnalyzer.isForm(status.entry())) {
+                entries.add(files.<Object>analysisAsync(file, () -> extract(file, AnalysisCache.KIND_FORM))
+                        .thenApply(form -> new EntryResult(status, (FrmAnalysis) form, null)));
+            } else if (file != null && ProjectAnalyzer.isModule(status.entry())) {
+                entries.add(files.<Object>analysisAsync(file, () -> extract(file, AnalysisCache.KIND_MODULE))
+                        .thenApply(module -> new EntryResult(status, null, (BasAnalysis) module)));
+            } else {
+                entries.add(CompletableFuture.completedFuture(new EntryResult(status, null, null)));
+            }
+        }
+        return CompletableFuture.allOf(entries.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<EntryResult> results = new ArrayList<>(entries.size());
+            for (CompletableFuture<EntryResult> entry : entries) {
+                results.add(entry.join());
+            }
+            return ProjectAnalyzer.summarize(parsed.vbpPath(), parsed.project(), results, options.symbols());
+        });
+    }
+
+    private CompletableFuture<Object> extract(Path file, byte kind) {
+        return CompletableFuture.supplyAsync(() -> read(file, kind), io).thenApplyAsync(this::extract, cpu);
+    }
+
+    // I/O stage: skips files the cache still vouches for, reads the rest into memory.
+    private Loaded read(Path file, byte kind) {
+        ProjectAnalyzer.checkCancelled(options);
+        try {
+            AnalysisCache.Probe probe = null;
+            if (options.cache() != null) {
+                probe = options.cache().probe(file, kind);
+                if (probe.value() != null) {
+                    return new Loaded(file, kind, probe, null, 0);
+                }
+            }
+            int permits = (int) Math.min(Files.size(file), READ_AHEAD_BYTES);
+            readAhead.acquire(permits);
+            try {
+                ScanMetrics.Span span = options.metrics().begin(ScanMetrics.Phase.READ);
+                ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+                span.endFile(file, content.remaining());
+                return new Loaded(file, kind, probe, content, permits);
+            } catch (IOException | RuntimeException e) {
+                readAhead.release(permits);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while reading " + file);
+        }
+    }
+
+    // CPU stage.
+    private Object extract(Loaded loaded) {
+        try {
+            if (loaded.content() == null) {
+                return loaded.probe().value();
+            }
+            ProjectAnalyzer.checkCancelled(options);
+            if (loaded.probe() != null) {
+                return options.cache().complete(loaded.probe(), loaded.content(), options);
+            }
+            return loaded.kind() == AnalysisCache.KIND_FORM
+                    ? FrmExtractor.analyze(loaded.file(), loaded.content(), options)
+                    : BasExtractor.analyze(loaded.file(), loaded.content(), options);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            readAhead.release(loaded.permits());
+        }
+    }
+
+    private record Item(String key, Path path, boolean descend) {
+    }
+
+    private record Parsed(Path vbpPath, VbpProject project, List<EntryStatus> statuses, List<Path> realPaths) {
+    }
+
+    private record Loaded(Path file, byte kind, AnalysisCache.Probe probe, ByteBuffer content, int permits) {
+    }
+}
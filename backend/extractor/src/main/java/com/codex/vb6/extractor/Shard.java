@@ -0,0 +1,57 @@
+package com.codex.vb6.extractor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * One of {@code count} disjoint parts of a scan. A .vbp belongs to the shard picked by a hash of
+ * its path relative to the scanned root, with {@code /} as separator, so every worker assigns
+ * the same projects to the same shard wherever the tree is checked out.
+ */
+public record Shard(int index, int count) {
+    public static final Shard ALL = new Shard(0, 1);
+
+    public Shard {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid shard " + index + "/" + count);
+        }
+    }
+
+    /** Parses {@code i/N}. */
+    public static Shard parse(String value) {
+        int slash = value.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Expected i/N: " + value);
+        }
+        return new Shard(Integer.parseInt(value.substring(0, slash).strip()),
+                Integer.parseInt(value.substring(slash + 1).strip()));
+    }
+
+    public boolean includes(Path root, Path vbpPath) {
+        if (count == 1) {
+            return true;
+        }
+        String relative = root.relativize(vbpPath).toString().replace('\\', '/');
+        return Math.floorMod(hash(relative), count) == index;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+
+    // FNV-1a over the UTF-8 bytes, then the MurmurHash3 finalizer: FNV alone leaves the low bits
+    // depending on few input bits, and paths like Proj007/Proj007.vbp would all land in one shard.
+    // Shard assignment must not change between versions.
+    private static int hash(String value) {
+        int h = 0x811C9DC5;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+}
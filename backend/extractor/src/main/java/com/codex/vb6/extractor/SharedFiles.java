@@ -0,0 +1,122 @@
+package com.codex.vb6.extractor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-run memo of referenced files. Every path is resolved to its real path once, and each real
+ * file is extracted once; projects referencing the same file share the resulting instance.
+ */
+final class SharedFiles {
+    private final ConcurrentHashMap<Path, Optional<Path>> realPaths = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Path, CompletableFuture<Object>> analyses = new ConcurrentHashMap<>();
+    private final LongAdder references = new LongAdder();
+
+    /** Returns the real path of {@code path}, or null when its existence cannot be confirmed. */
+    Path realPath(Path path) {
+        return realPaths.computeIfAbsent(path, key -> {
+            try {
+                return Optional.of(key.toRealPath());
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    // The first caller extracts; concurrent callers for the same file wait for its result.
+    @SuppressWarnings("unchecked")
+    <T> T analysis(Path realPath, Callable<T> extract) throws IOException {
+        references.increment();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = analyses.putIfAbsent(realPath, future);
+        if (existing == null) {
+            try {
+                future.complete(extract.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+            existing = future;
+        }
+        try {
+            if (!existing.isDone()) {
+                await(existing);
+            }
+            return (T) existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + realPath);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    // Callers are often ForkJoinPool workers of a parallel scan. Waiting as a managed block lets the
+    // pool start a spare worker meanwhile, so a file extracted by one task does not idle the others.
+    private static void await(CompletableFuture<Object> future) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        future.whenComplete((value, failure) -> done.countDown());
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+                done.await();
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return future.isDone();
+            }
+        });
+    }
+
+    // Same memo for the pipelined scan: only the first reference starts the extraction.
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> analysisAsync(Path realPath, Supplier<CompletableFuture<T>> extract) {
+        references.increment();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = analyses.putIfAbsent(realPath, future);
+        if (existing != null) {
+            return (CompletableFuture<T>) existing;
+        }
+        try {
+            extract.get().whenComplete((value, failure) -> {
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return (CompletableFuture<T>) future;
+    }
+
+    long references() {
+        return references.sum();
+    }
+
+    long uniqueFiles() {
+        return analyses.size();
+    }
+}
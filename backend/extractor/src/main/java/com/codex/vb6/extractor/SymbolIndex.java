@@ -0,0 +1,454 @@
+package com.codex.vb6.extractor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index from VB6 identifiers to the routines and events that define them and the calls
+ * that name them, read through a memory mapping.
+ *
+ * <p>Keys are identifiers in lower case, since VB6 names are case-insensitive. A definition is
+ * filed under its name and its qualified name ({@code module1.calctax}); a call under its target
+ * and, for a dotted target, also under the last segment.
+ *
+ * <p>Layout, all integers big-endian: a header with counts and section offsets; the occurrences
+ * sorted by key, in blocks of {@link #BLOCK_SIZE}; an offset per block; and the string table, an
+ * offset array over UTF-8 data. Within a block each key stores only what differs from the key
+ * before it, and the other fields are varints referring to the string table. A lookup binary
+ * searches the blocks by their first key and decodes at most the blocks its keys fall in.
+ */
+public final class SymbolIndex {
+    private static final int MAGIC = 0x56425349;
+    private static final int VERSION = 1;
+    private static final int BLOCK_SIZE = 64;
+    private static final Kind[] KINDS = Kind.values();
+
+    private static final int COUNT = 8;
+    private static final int BLOCK_COUNT = 12;
+    private static final int STRING_COUNT = 16;
+    private static final int BLOCK_OFFSETS = 20;
+    private static final int STRING_OFFSETS = 24;
+    private static final int STRING_DATA = 28;
+    private static final int HEADER_SIZE = 32;
+
+    public enum Kind {
+        ROUTINE, EVENT, CALL, SHOW, LOAD, BUILTIN;
+
+        public boolean isDefinition() {
+            return this == ROUTINE || this == EVENT;
+        }
+    }
+
+    /**
+     * {@code name} is the routine or event name, or the call target, as written. {@code scope} is
+     * the module or form of a definition and the qualified routine or event of a call.
+     */
+    public record Occurrence(String key, Kind kind, String name, String scope, String file, int line) {
+    }
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int blockCount;
+    private final int stringCount;
+    private final int blockOffsets;
+    private final int stringOffsets;
+    private final int stringData;
+
+    private SymbolIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a symbol index of this version");
+        }
+        count = buffer.getInt(COUNT);
+        blockCount = buffer.getInt(BLOCK_COUNT);
+        stringCount = buffer.getInt(STRING_COUNT);
+        blockOffsets = buffer.getInt(BLOCK_OFFSETS);
+        stringOffsets = buffer.getInt(STRING_OFFSETS);
+        stringData = buffer.getInt(STRING_DATA);
+        if (blockOffsets < HEADER_SIZE || stringOffsets != blockOffsets + 4 * blockCount
+                || stringData != stringOffsets + 4 * (stringCount + 1)
+                || stringData > buffer.capacity()
+                || stringData + buffer.getInt(stringOffsets + 4 * stringCount) != buffer.capacity()) {
+            throw new IOException("Truncated symbol index");
+        }
+    }
+
+    public static SymbolIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Symbol index larger than 2 GB: " + file);
+            }
+            return new SymbolIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** The key an identifier or qualified name is filed under. */
+    public static String normalize(String name) {
+        return name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /** Number of occurrences, counting a definition once per key. */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Occurrences of {@code query}, a name or {@code Module.Name}; a trailing {@code *} matches
+     * every key that starts with the text before it. Sorted by key, kind, file and line, and cut
+     * off after {@code limit} results.
+     */
+    public List<Occurrence> lookup(String query, Set<Kind> kinds, int limit) {
+        String normalized = normalize(query);
+        boolean prefix = normalized.endsWith("*");
+        byte[] wanted = (prefix ? normalized.substring(0, normalized.length() - 1) : normalized)
+                .getBytes(StandardCharsets.UTF_8);
+        List<Occurrence> result = new ArrayList<>();
+        if (blockCount == 0 || limit <= 0) {
+            return result;
+        }
+        int block = firstBlock(wanted);
+        // Blocks are stored back to back and each starts with a whole key, so one cursor reads on.
+        Cursor cursor = new Cursor(blockStart(block));
+        for (int i = BLOCK_SIZE * block; i < count && result.size() < limit; i++) {
+            cursor.next();
+            int order = cursor.key.compareTo(wanted);
+            boolean match = prefix ? cursor.key.startsWith(wanted) : order == 0;
+            if (match) {
+                Occurrence occurrence = cursor.occurrence();
+                if (kinds.contains(occurrence.kind())) {
+                    result.add(occurrence);
+                }
+            } else if (order > 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    // The last block whose first key sorts before the query; earlier blocks hold only smaller keys.
+    private int firstBlock(byte[] wanted) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            Cursor first = new Cursor(blockStart(mid));
+            first.next();
+            if (first.key.compareTo(wanted) < 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private int blockStart(int block) {
+        return buffer.getInt(blockOffsets + 4 * block);
+    }
+
+    private String string(int index) {
+        if (index < 0) {
+            return null;
+        }
+        int start = buffer.getInt(stringOffsets + 4 * index);
+        byte[] bytes = new byte[buffer.getInt(stringOffsets + 4 * index + 4) - start];
+        buffer.get(stringData + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Reads occurrences one after the other; fields other than the key are decoded on demand.
+    private final class Cursor {
+        private final Key key = new Key();
+        private int position;
+        private int fields;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        void next() {
+            if (fields != 0) {
+                position = fields;
+                for (int i = 0; i < 5; i++) {
+                    varint();
+                }
+            }
+            int shared = varint();
+            int suffix = varint();
+            key.ensure(shared + suffix);
+            buffer.get(position, key.bytes, shared, suffix);
+            key.length = shared + suffix;
+            position += suffix;
+            fields = position;
+        }
+
+        Occurrence occurrence() {
+            int saved = position;
+            position = fields;
+            Occurrence occurrence = new Occurrence(new String(key.bytes, 0, key.length, StandardCharsets.UTF_8),
+                    KINDS[varint()], string(varint() - 1), string(varint() - 1), string(varint() - 1), varint());
+            position = saved;
+            return occurrence;
+        }
+
+        private int varint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    private static final class Key {
+        private byte[] bytes = new byte[64];
+        private int length;
+
+        void ensure(int size) {
+            if (size > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size, 2 * bytes.length));
+            }
+        }
+
+        int compareTo(byte[] other) {
+            return Arrays.compareUnsigned(bytes, 0, length, other, 0, other.length);
+        }
+
+        boolean startsWith(byte[] prefix) {
+            return length >= prefix.length && Arrays.equals(bytes, 0, prefix.length, prefix, 0, prefix.length);
+        }
+    }
+
+    /**
+     * Collects the occurrences of each analyzed file; safe to feed from several threads. Adding a
+     * file again replaces what was collected for it, so after a change only the changed files have
+     * to be added before the index is written again.
+     */
+    public static final class Builder {
+        private final Map<String, List<Occurrence>> files = new ConcurrentHashMap<>();
+
+        /** Replaces the occurrences of {@code file}; with neither analysis it is dropped. */
+        void add(String file, FrmAnalysis form, BasAnalysis module) {
+            if (form == null && module == null) {
+                files.remove(file);
+                return;
+            }
+            List<Occurrence> occurrences = new ArrayList<>();
+            if (form != null) {
+                for (FrmEvent event : form.events()) {
+                    define(occurrences, Kind.EVENT, event.name(), form.formName(), file, event.lineNumber());
+                    calls(occurrences, event.calls(), qualified(form.formName(), event.name()), file);
+                }
+            }
+            if (module != null) {
+                for (BasRoutine routine : module.routines()) {
+                    define(occurrences, Kind.ROUTINE, routine.name(), module.moduleName(), file,
+                            routine.lineNumber());
+                    calls(occurrences, routine.calls(), qualified(module.moduleName(), routine.name()), file);
+                }
+            }
+            files.put(file, List.copyOf(occurrences));
+        }
+
+        /** Drops the files not in {@code keep}, e.g. the ones no project references any more. */
+        public void retainFiles(Set<String> keep) {
+            files.keySet().retainAll(keep);
+        }
+
+        /** Writes the index; the file is replaced atomically. */
+        public void write(Path file) throws IOException {
+            List<String> paths = new ArrayList<>(files.keySet());
+            paths.sort(null);
+            Writer writer = new Writer();
+            List<Row> rows = new ArrayList<>();
+            // Most keys occur many times; rows with the same key share one array. Strings get their
+            // ids here, while the occurrences are still visited in the order they were created in.
+            Map<String, byte[]> keys = new HashMap<>();
+            for (int rank = 0; rank < paths.size(); rank++) {
+                int fileId = writer.id(paths.get(rank));
+                for (Occurrence occurrence : files.getOrDefault(paths.get(rank), List.of())) {
+                    long order = (long) occurrence.kind().ordinal() << 56 | (long) rank << 32 | occurrence.line();
+                    byte[] key = keys.computeIfAbsent(occurrence.key(), k -> k.getBytes(StandardCharsets.UTF_8));
+                    rows.add(new Row(key, order, writer.id(occurrence.name()), writer.id(occurrence.scope()),
+                            fileId));
+                }
+            }
+            rows.sort(Row.ORDER);
+            writer.write(file, rows);
+        }
+
+        private static void define(List<Occurrence> out, Kind kind, String name, String scope, String file,
+                                   int line) {
+            if (name == null || name.isBlank()) {
+                return;
+            }
+            out.add(new Occurrence(normalize(name), kind, name, scope, file, line));
+            if (scope != null && !scope.isBlank()) {
+                out.add(new Occurrence(normalize(scope + "." + name), kind, name, scope, file, line));
+            }
+        }
+
+        private static void calls(List<Occurrence> out, List<? extends CallSite> calls, String scope,
+                                  String file) {
+            for (CallSite call : calls) {
+                String target = call.target();
+                if (target == null || target.isBlank()) {
+                    continue;
+                }
+                Kind kind = Kind.valueOf(call.kind().name());
+                out.add(new Occurrence(normalize(target), kind, target, scope, file, call.lineNumber()));
+                int dot = target.lastIndexOf('.');
+                if (dot >= 0 && dot < target.length() - 1) {
+                    out.add(new Occurrence(normalize(target.substring(dot + 1)), kind, target, scope, file,
+                            call.lineNumber()));
+                }
+            }
+        }
+
+        private static String qualified(String scope, String name) {
+            return scope == null ? name : scope + "." + name;
+        }
+    }
+
+    // Sorted by key bytes, then by kind, file rank and line, which are packed into order.
+    private record Row(byte[] key, long order, int name, int scope, int file) {
+        static final Comparator<Row> ORDER = (a, b) -> {
+            int result = a.key == b.key ? 0 : Arrays.compareUnsigned(a.key, b.key);
+            if (result == 0) {
+                result = Long.compare(a.order, b.order);
+            }
+            return result != 0 ? result : Integer.compare(a.name, b.name);
+        };
+
+        int kind() {
+            return (int) (order >>> 56);
+        }
+
+        int line() {
+            return (int) order;
+        }
+    }
+
+    private static final class Writer {
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private byte[] blocks = new byte[4096];
+        private int size;
+
+        void write(Path file, List<Row> rows) throws IOException {
+            int blockCount = (rows.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            int[] blockOffsets = new int[blockCount];
+            byte[] previous = new byte[0];
+            for (int i = 0; i < rows.size(); i++) {
+                if (i % BLOCK_SIZE == 0) {
+                    blockOffsets[i / BLOCK_SIZE] = HEADER_SIZE + size;
+                    previous = new byte[0];
+                }
+                Row row = rows.get(i);
+                int shared = Arrays.mismatch(previous, row.key);
+                if (shared < 0) {
+                    shared = previous.length;
+                }
+                varint(shared);
+                varint(row.key.length - shared);
+                bytes(row.key, shared);
+                varint(row.kind());
+                varint(row.name + 1);
+                varint(row.scope + 1);
+                varint(row.file + 1);
+                varint(row.line());
+                previous = row.key;
+            }
+            byte[][] encoded = new byte[strings.size()][];
+            long stringBytes = 0;
+            for (int s = 0; s < encoded.length; s++) {
+                encoded[s] = strings.get(s).getBytes(StandardCharsets.UTF_8);
+                stringBytes += encoded[s].length;
+            }
+            long offsets = (long) HEADER_SIZE + size;
+            long stringOffsets = offsets + 4L * blockCount;
+            long stringData = stringOffsets + 4L * (strings.size() + 1);
+            if (stringData + stringBytes > Integer.MAX_VALUE) {
+                throw new IOException("Symbol index would exceed 2 GB");
+            }
+
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temp), 1 << 16))) {
+                for (int value : new int[]{MAGIC, VERSION, rows.size(), blockCount, strings.size(),
+                        (int) offsets, (int) stringOffsets, (int) stringData}) {
+                    out.writeInt(value);
+                }
+                out.write(blocks, 0, size);
+                for (int offset : blockOffsets) {
+                    out.writeInt(offset);
+                }
+                int stringOffset = 0;
+                out.writeInt(0);
+                for (byte[] bytes : encoded) {
+                    stringOffset += bytes.length;
+                    out.writeInt(stringOffset);
+                }
+                for (byte[] bytes : encoded) {
+                    out.write(bytes);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private void varint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                blocks[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            blocks[size++] = (byte) value;
+        }
+
+        private void bytes(byte[] value, int from) {
+            ensure(value.length - from);
+            System.arraycopy(value, from, blocks, size, value.length - from);
+            size += value.length - from;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > blocks.length) {
+                blocks = Arrays.copyOf(blocks, Math.max(size + extra, blocks.length * 2));
+            }
+        }
+
+        private int id(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return stringIndex.computeIfAbsent(value, key -> {
+                strings.add(key);
+                return strings.size() - 1;
+            });
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.codex.vb6.extractor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * VB6 keywords, statements, runtime functions and global objects that the call scanner would
+ * otherwise report as {@code CALL} targets ({@code If x Then}, {@code Len(s)}, a bare {@code End}).
+ *
+ * <p>A call target is a built-in when its first segment ({@code Err} in {@code Err.Raise}) is in
+ * the set, compared case-insensitively. Lookups hash the characters of the source line directly,
+ * so a dropped call never allocates its target string. {@link Mode} decides whether such calls
+ * are dropped, reported with {@link CallKind#BUILTIN}, or kept as plain calls.
+ */
+public final class VbBuiltins {
+    public enum Mode {
+        DROP,
+        TAG,
+        KEEP
+    }
+
+    private static final String[] DEFAULT_NAMES = {
+            // Keywords and statements
+            "AddressOf", "And", "AppActivate", "As", "Beep", "ByRef", "ByVal", "Call", "Case", "ChDir",
+            "ChDrive", "Close", "Const", "Date", "Declare", "DeleteSetting", "Dim", "Do", "DoEvents", "Each",
+            "Else", "ElseIf", "Empty", "End", "Enum", "Eqv", "Erase", "Error", "Event", "Exit", "False",
+            "FileCopy", "For", "Friend", "Function", "Get", "Global", "GoSub", "GoTo", "If", "Imp",
+            "Implements", "In", "Input", "Is", "Kill", "Let", "Like", "Line", "Load", "Lock", "Loop", "LSet",
+            "MkDir", "Mod", "Name", "New", "Next", "Not", "Nothing", "Null", "On", "Open", "Option",
+            "Optional", "Or", "ParamArray", "Preserve", "Print", "Private", "Property", "Public", "Put",
+            "RaiseEvent", "Randomize", "ReDim", "Rem", "Reset", "Resume", "Return", "RmDir", "RSet",
+            "SavePicture", "SaveSetting", "Seek", "Select", "SendKeys", "Set", "SetAttr", "Static", "Step",
+            "Stop", "Sub", "Then", "Time", "To", "True", "Type", "TypeOf", "Unload", "Unlock", "Until",
+            "Wend", "While", "Width", "With", "WithEvents", "Write", "Xor",
+            // Runtime functions
+            "Abs", "Array", "Asc", "AscB", "AscW", "Atn", "CBool", "CByte", "CCur", "CDate", "CDbl", "CDec",
+            "Choose", "Chr", "ChrB", "ChrW", "CInt", "CLng", "Command", "Cos", "CreateObject", "CSng", "CStr",
+            "CurDir", "CVar", "CVDate", "CVErr", "DateAdd", "DateDiff", "DatePart", "DateSerial", "DateValue",
+            "Day", "DDB", "Dir", "Environ", "EOF", "Exp", "FileAttr", "FileDateTime", "FileLen", "Filter",
+            "Fix", "Format", "FormatCurrency", "FormatDateTime", "FormatNumber", "FormatPercent", "FreeFile",
+            "FV", "GetAllSettings", "GetAttr", "GetObject", "GetSetting", "Hex", "Hour", "IIf", "IMEStatus",
+            "InputB", "InputBox", "InStr", "InStrB", "InStrRev", "Int", "IPmt", "IRR", "IsArray", "IsDate",
+            "IsEmpty", "IsError", "IsMissing", "IsNull", "IsNumeric", "IsObject", "Join", "LBound", "LCase",
+            "Left", "LeftB", "Len", "LenB", "LoadPicture", "LoadResData", "LoadResPicture", "LoadResString",
+            "Loc", "LOF", "Log", "LTrim", "Mid", "MidB", "Minute", "MIRR", "Month", "MonthName", "MsgBox",
+            "Now", "NPer", "NPV", "Oct", "Partition", "Pmt", "PPmt", "PV", "QBColor", "Rate", "Replace",
+            "RGB", "Right", "RightB", "Rnd", "Round", "RTrim", "Second", "Sgn", "Shell", "Sin", "SLN",
+            "Space", "Spc", "Split", "Sqr", "Str", "StrComp", "StrConv", "String", "StrReverse", "Switch",
+            "SYD", "Tab", "Tan", "Timer", "TimeSerial", "TimeValue", "Trim", "TypeName", "UBound", "UCase",
+            "Val", "VarType", "Weekday", "WeekdayName", "Year",
+            // Global objects
+            "App", "Clipboard", "Debug", "Err", "Forms", "Printer", "Printers", "Screen", "VBA"
+    };
+
+    // Tagging rather than dropping: several names (Log, Replace, Split, Open, Name...) are also common
+    // names of project routines, and only the call graph can tell which one a call refers to.
+    private static final VbBuiltins DEFAULTS = new VbBuiltins(Mode.TAG, List.of(DEFAULT_NAMES));
+
+    private final Mode mode;
+    private final String[] names;
+    // Open-addressing table of indexes + 1 into names; 0 marks a free slot.
+    private final int[] slots;
+
+    private VbBuiltins(Mode mode, Collection<String> names) {
+        this.mode = mode;
+        TreeSet<String> unique = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        unique.addAll(names);
+        this.names = unique.toArray(new String[0]);
+        int capacity = Integer.highestOneBit(Math.max(this.names.length, 1) * 4);
+        this.slots = new int[capacity];
+        for (int i = 0; i < this.names.length; i++) {
+            String name = this.names[i];
+            int slot = hash(name, 0, name.length()) & (capacity - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    /** The built-in name set, tagging matching calls as {@link CallKind#BUILTIN}. */
+    public static VbBuiltins defaults() {
+        return DEFAULTS;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public VbBuiltins withMode(Mode value) {
+        return value == mode ? this : new VbBuiltins(value, List.of(names));
+    }
+
+    /** Adds project-specific names, e.g. functions of a type library every project references. */
+    public VbBuiltins withNames(Collection<String> extra) {
+        List<String> all = new ArrayList<>(List.of(names));
+        all.addAll(extra);
+        return new VbBuiltins(mode, all);
+    }
+
+    /**
+     * Reads one name per line; blank lines and lines starting with {@code #} or {@code '} are
+     * ignored.
+     */
+    public VbBuiltins withNamesFrom(Path file) throws IOException {
+        List<String> extra = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String name = line.strip();
+            if (!name.isEmpty() && name.charAt(0) != '#' && name.charAt(0) != '\'') {
+                extra.add(name);
+            }
+        }
+        return withNames(extra);
+    }
+
+    public boolean isBuiltin(CharSequence target) {
+        return isBuiltin(target, 0, target.length());
+    }
+
+    /** Whether the call target in {@code text[start, end)} is a built-in. */
+    public boolean isBuiltin(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '.') {
+                end = i;
+                break;
+            }
+        }
+        int mask = slots.length - 1;
+        int slot = hash(text, start, end) & mask;
+        while (slots[slot] != 0) {
+            String name = names[slots[slot] - 1];
+            if (name.length() == end - start && regionEqualsIgnoreCase(text, start, name)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    // Settings that change extraction output, for AnalyzerOptions#fingerprint().
+    String fingerprint() {
+        int hash = 1;
+        for (String name : names) {
+            hash = 31 * hash + name.toLowerCase(Locale.ROOT).hashCode();
+        }
+        return mode.name() + ":" + names.length + ":" + Integer.toHexString(hash);
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + Character.toLowerCase(text.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean regionEqualsIgnoreCase(CharSequence text, int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char a = text.charAt(start + i);
+            char b = name.charAt(i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
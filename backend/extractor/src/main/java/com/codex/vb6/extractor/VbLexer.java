@@ -0,0 +1,483 @@
+package com.codex.vb6.extractor;
+
+/**
+ * Single-pass VB6 line scanner shared by {@link FrmExtractor} and {@link BasExtractor}.
+ *
+ * <p>Each method walks the line at most once and mirrors the word-boundary, case-insensitive
+ * and end-of-line semantics of the regular expressions it replaced. {@link #scanCalls} also
+ * recognizes string literals and comments: nothing inside {@code "..."} or after a {@code '} or
+ * {@code Rem} comment is reported, and a call followed only by a comment counts as one at the end
+ * of the line. With {@code codeOnly} off it reports exactly what the regular expressions did,
+ * including targets inside strings and trailing comments.
+ */
+final class VbLexer {
+    interface CallSink {
+        void accept(CallKind kind, int start, int end);
+    }
+
+    record RoutineStart(String kind, String name) {
+    }
+
+    enum DesignerLine {
+        BEGIN,
+        END,
+        BEGIN_PROPERTY,
+        END_PROPERTY,
+        PROPERTY
+    }
+
+    record ControlStart(String type, String name) {
+    }
+
+    private VbLexer() {
+    }
+
+    static String formName(CharSequence line) {
+        int i = skipSpace(line, 0);
+        if (!keyword(line, i, "begin")) {
+            return null;
+        }
+        i = requireSpace(line, i + 5);
+        if (i < 0 || !keyword(line, i, "vb.form")) {
+            return null;
+        }
+        i = requireSpace(line, i + 7);
+        if (i < 0) {
+            return null;
+        }
+        int end = wordEnd(line, i);
+        return end > i ? line.subSequence(i, end).toString() : null;
+    }
+
+    static String moduleName(CharSequence line) {
+        int i = skipSpace(line, 0);
+        if (!keyword(line, i, "attribute")) {
+            return null;
+        }
+        i = requireSpace(line, i + 9);
+        if (i < 0 || !keyword(line, i, "vb_name")) {
+            return null;
+        }
+        i = skipSpace(line, i + 7);
+        if (i >= line.length() || line.charAt(i) != '=') {
+            return null;
+        }
+        i = skipSpace(line, i + 1);
+        if (i >= line.length() || line.charAt(i) != '"') {
+            return null;
+        }
+        int start = i + 1;
+        for (int j = start; j < line.length(); j++) {
+            if (line.charAt(j) == '"') {
+                return j > start ? line.subSequence(start, j).toString() : null;
+            }
+        }
+        return null;
+    }
+
+    static String eventName(CharSequence line) {
+        int i = skipModifier(line, skipSpace(line, 0), false);
+        i = skipSpace(line, i);
+        if (!keyword(line, i, "sub")) {
+            return null;
+        }
+        int start = requireSpace(line, i + 3);
+        if (start < 0) {
+            return null;
+        }
+        int end = wordEnd(line, start);
+        if (!hasInnerUnderscore(line, start, end)) {
+            return null;
+        }
+        int open = skipSpace(line, end);
+        if (open >= line.length() || line.charAt(open) != '(' || !closesParameterList(line, open)) {
+            return null;
+        }
+        return line.subSequence(start, end).toString();
+    }
+
+    static RoutineStart routineStart(CharSequence line) {
+        int i = skipModifier(line, skipSpace(line, 0), true);
+        i = skipSpace(line, i);
+        int kindEnd;
+        if (keyword(line, i, "sub")) {
+            kindEnd = i + 3;
+        } else if (keyword(line, i, "function")) {
+            kindEnd = i + 8;
+        } else {
+            return null;
+        }
+        int start = requireSpace(line, kindEnd);
+        if (start < 0 || start >= line.length() || !isIdentStart(line.charAt(start))) {
+            return null;
+        }
+        int end = identEnd(line, start);
+        if (isWordAt(line, end)) {
+            return null;
+        }
+        return new RoutineStart(line.subSequence(i, kindEnd).toString().toUpperCase(),
+                line.subSequence(start, end).toString());
+    }
+
+    /**
+     * Classifies a line of the .frm designer block ({@code Begin VB.Form ... End}) by its first
+     * word only; property lines, the bulk of the block, cost one character check.
+     */
+    static DesignerLine designerLine(CharSequence line) {
+        int i = skipSpace(line, 0);
+        if (i < line.length()) {
+            char c = line.charAt(i);
+            if (c == 'B' || c == 'b') {
+                if (keyword(line, i, "beginproperty")) {
+                    return DesignerLine.BEGIN_PROPERTY;
+                }
+                if (keyword(line, i, "begin") && requireSpace(line, i + 5) >= 0) {
+                    return DesignerLine.BEGIN;
+                }
+            } else if (c == 'E' || c == 'e') {
+                if (keyword(line, i, "endproperty")) {
+                    return DesignerLine.END_PROPERTY;
+                }
+                if (keyword(line, i, "end") && isLineEnd(line, skipSpace(line, i + 3))) {
+                    return DesignerLine.END;
+                }
+            }
+        }
+        return DesignerLine.PROPERTY;
+    }
+
+    /** Type and name of a {@code Begin VB.CommandButton cmdOK} line; the name may be null. */
+    static ControlStart controlStart(CharSequence line) {
+        int i = requireSpace(line, skipSpace(line, 0) + 5);
+        int typeEnd = i;
+        while (typeEnd < line.length() && !isSpace(line.charAt(typeEnd))) {
+            typeEnd++;
+        }
+        int nameStart = skipSpace(line, typeEnd);
+        int nameEnd = wordEnd(line, nameStart);
+        return new ControlStart(line.subSequence(i, typeEnd).toString(),
+                nameEnd > nameStart ? line.subSequence(nameStart, nameEnd).toString() : null);
+    }
+
+    static boolean isEndSub(CharSequence line) {
+        int i = endKeyword(line);
+        return i >= 0 && keyword(line, i, "sub") && isLineEnd(line, skipSpace(line, i + 3));
+    }
+
+    static boolean isEndRoutine(CharSequence line) {
+        int i = endKeyword(line);
+        if (i < 0) {
+            return false;
+        }
+        if (keyword(line, i, "sub")) {
+            return isLineEnd(line, skipSpace(line, i + 3));
+        }
+        return keyword(line, i, "function") && isLineEnd(line, skipSpace(line, i + 8));
+    }
+
+    /**
+     * Reports call sites in line order per kind. {@code SHOW} and {@code LOAD} are only
+     * recognized when {@code formCalls} is set; each kind resumes scanning after its own
+     * previous match, as independent {@code Matcher.find} loops did. {@code codeOnly} skips
+     * string literals and stops at a comment.
+     */
+    static void scanCalls(CharSequence line, boolean formCalls, boolean codeOnly, CallSink sink) {
+        int length = codeOnly ? codeEnd(line) : line.length();
+        int callFrom = 0;
+        int showFrom = 0;
+        int loadFrom = 0;
+        int p = 0;
+        while (p < length) {
+            char c = line.charAt(p);
+            if (codeOnly && c == '"') {
+                p = stringEnd(line, p, length);
+                continue;
+            }
+            if (!isIdentStart(c) || isWordBefore(line, p)) {
+                p++;
+                continue;
+            }
+            int identEnd = identEnd(line, p);
+
+            if (formCalls && p >= showFrom && identEnd < length && line.charAt(identEnd) == '.'
+                    && keyword(line, identEnd + 1, "show") && !isWordAt(line, identEnd + 5)) {
+                sink.accept(CallKind.SHOW, p, identEnd);
+                showFrom = identEnd + 5;
+            }
+
+            if (formCalls && p >= loadFrom && keyword(line, p, "load")) {
+                int target = requireSpace(line, p + 4);
+                if (target >= 0 && target < length && isIdentStart(line.charAt(target))) {
+                    int targetEnd = identEnd(line, target);
+                    if (!isWordAt(line, targetEnd)) {
+                        sink.accept(CallKind.LOAD, target, targetEnd);
+                        loadFrom = targetEnd;
+                    }
+                }
+            }
+
+            if (p >= callFrom) {
+                callFrom = matchCall(line, p, identEnd, length, sink, callFrom);
+            }
+
+            p = identEnd;
+        }
+    }
+
+    private static int matchCall(CharSequence line, int p, int identEnd, int limit, CallSink sink,
+                                 int callFrom) {
+        if (keyword(line, p, "call")) {
+            int target = requireSpace(line, p + 4);
+            if (target >= 0 && target < limit) {
+                long chain = callChain(line, target, limit);
+                if (chain >= 0) {
+                    return emitCall(line, target, (int) (chain >>> 32), (int) chain, sink);
+                }
+            }
+        }
+        long chain = callChain(line, p, identEnd, limit);
+        if (chain >= 0) {
+            return emitCall(line, p, (int) (chain >>> 32), (int) chain, sink);
+        }
+        return callFrom;
+    }
+
+    private static int emitCall(CharSequence line, int start, int end, int matchEnd, CallSink sink) {
+        if (end - start != 4 || !keyword(line, start, "call")) {
+            sink.accept(CallKind.CALL, start, end);
+        }
+        return matchEnd;
+    }
+
+    private static long callChain(CharSequence line, int start, int limit) {
+        if (start >= line.length() || !isIdentStart(line.charAt(start))) {
+            return -1;
+        }
+        return callChain(line, start, identEnd(line, start), limit);
+    }
+
+    // Returns (targetEnd << 32 | matchEnd) for "ident[.ident] ( " or "ident[.ident]" at end of line;
+    // code ends at limit when a comment cuts the line short.
+    private static long callChain(CharSequence line, int start, int identEnd, int limit) {
+        int end = identEnd;
+        if (end < line.length() && line.charAt(end) == '.') {
+            if (end + 1 >= line.length() || !isIdentStart(line.charAt(end + 1))) {
+                return -1;
+            }
+            end = identEnd(line, end + 1);
+        }
+        int k = skipSpace(line, end);
+        int matchEnd;
+        if (k < line.length() && line.charAt(k) == '(') {
+            matchEnd = k + 1;
+        } else if (limit < line.length() ? k == limit : isLineEnd(line, k)) {
+            matchEnd = k;
+        } else {
+            return -1;
+        }
+        return ((long) end << 32) | matchEnd;
+    }
+
+    // Start of the comment that ends the line, a ' or a Rem statement outside strings, or the line length.
+    private static int codeEnd(CharSequence line) {
+        int length = line.length();
+        boolean statementStart = true;
+        int i = 0;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                i = stringEnd(line, i, length);
+                statementStart = false;
+            } else if (c == '\'') {
+                return i;
+            } else if (c == ':') {
+                statementStart = true;
+                i++;
+            } else if (isSpace(c)) {
+                i++;
+            } else if (isIdentStart(c)) {
+                int end = wordEnd(line, i + 1);
+                if (statementStart && end - i == 3 && keyword(line, i, "rem")) {
+                    return i;
+                }
+                statementStart = false;
+                i = end;
+            } else {
+                statementStart = false;
+                i++;
+            }
+        }
+        return length;
+    }
+
+    // Index after the literal opening at start; "" inside it is an escaped quote. Unterminated runs to limit.
+    private static int stringEnd(CharSequence line, int start, int limit) {
+        int i = start + 1;
+        while (i < limit) {
+            if (line.charAt(i) == '"') {
+                if (i + 1 < limit && line.charAt(i + 1) == '"') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return limit;
+    }
+
+    private static int endKeyword(CharSequence line) {
+        int i = skipSpace(line, 0);
+        if (!keyword(line, i, "end")) {
+            return -1;
+        }
+        return requireSpace(line, i + 3);
+    }
+
+    private static int skipModifier(CharSequence line, int i, boolean allowFriend) {
+        if (keyword(line, i, "public")) {
+            return i + 6;
+        }
+        if (keyword(line, i, "private")) {
+            return i + 7;
+        }
+        if (allowFriend && keyword(line, i, "friend")) {
+            return i + 6;
+        }
+        return i;
+    }
+
+    private static boolean hasInnerUnderscore(CharSequence line, int start, int end) {
+        for (int i = end - 2; i > start; i--) {
+            if (line.charAt(i) == '_') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // "( ... )" followed only by whitespace, with no line terminator inside the parentheses.
+    private static boolean closesParameterList(CharSequence line, int open) {
+        int length = line.length();
+        int limit = length;
+        if (limit > 0 && isLineTerminator(line.charAt(limit - 1)) && !isSpace(line.charAt(limit - 1))) {
+            limit--;
+        }
+        int close = limit - 1;
+        while (close > open && isSpace(line.charAt(close))) {
+            close--;
+        }
+        if (close <= open || line.charAt(close) != ')') {
+            return false;
+        }
+        for (int i = open + 1; i < close; i++) {
+            if (isLineTerminator(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean keyword(CharSequence line, int at, String lowerKeyword) {
+        int length = lowerKeyword.length();
+        if (at < 0 || at + length > line.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(at + i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if (c != lowerKeyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipSpace(CharSequence line, int i) {
+        while (i < line.length() && isSpace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int requireSpace(CharSequence line, int i) {
+        if (i >= line.length() || !isSpace(line.charAt(i))) {
+            return -1;
+        }
+        return skipSpace(line, i);
+    }
+
+    private static int identEnd(CharSequence line, int i) {
+        return wordEnd(line, i + 1);
+    }
+
+    private static int wordEnd(CharSequence line, int i) {
+        while (i < line.length() && isIdentPart(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isLineEnd(CharSequence line, int i) {
+        int length = line.length();
+        if (i == length) {
+            return true;
+        }
+        if (i == length - 1) {
+            return isLineTerminator(line.charAt(i));
+        }
+        return i == length - 2 && line.charAt(i) == '\r' && line.charAt(i + 1) == '\n';
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isIdentStart(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_';
+    }
+
+    private static boolean isIdentPart(char c) {
+        return isIdentStart(c) || (c >= '0' && c <= '9');
+    }
+
+    // Word-boundary classification used by java.util.regex for \b without UNICODE_CHARACTER_CLASS.
+    private static boolean isWordAt(CharSequence line, int i) {
+        if (i >= line.length()) {
+            return false;
+        }
+        int ch = Character.codePointAt(line, i);
+        return isWord(ch) || (Character.getType(ch) == Character.NON_SPACING_MARK && hasBaseCharacter(line, i));
+    }
+
+    private static boolean isWordBefore(CharSequence line, int i) {
+        if (i <= 0) {
+            return false;
+        }
+        int ch = Character.codePointBefore(line, i);
+        return isWord(ch) || (Character.getType(ch) == Character.NON_SPACING_MARK && hasBaseCharacter(line, i - 1));
+    }
+
+    private static boolean isWord(int ch) {
+        return ch == '_' || Character.isLetterOrDigit(ch);
+    }
+
+    private static boolean hasBaseCharacter(CharSequence line, int i) {
+        for (int x = i; x >= 0; x--) {
+            int ch = Character.codePointAt(line, x);
+            if (Character.isLetterOrDigit(ch)) {
+                return true;
+            }
+            if (Character.getType(ch) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
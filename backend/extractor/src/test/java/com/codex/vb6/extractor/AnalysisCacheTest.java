@@ -0,0 +1,129 @@
+package com.codex.vb6.extractor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class AnalysisCacheTest {
+    private static final AnalyzerOptions OPTIONS = AnalyzerOptions.defaults().withFrmControls(true);
+
+    @TempDir
+    Path root;
+
+    @Test
+    void unchangedFilesHitAfterReopen() throws IOException {
+        Path form = write("frmMain.frm", "Attribute VB_Name = \"frmMain\"", "Private Sub Form_Load()", "    Call Start",
+                "End Sub");
+        Path module = write("Main.bas", "Attribute VB_Name = \"Main\"", "Public Sub Start()", "    Call Helper",
+                "End Sub");
+        Path file = root.resolve("cache.bin");
+        AnalysisCache cache = AnalysisCache.open(file, OPTIONS.fingerprint());
+        FrmAnalysis expectedForm = cache.form(form, OPTIONS);
+        BasAnalysis expectedModule = cache.module(module, OPTIONS);
+        assertEquals(0, cache.hits());
+        assertEquals(2, cache.misses());
+        cache.save();
+
+        AnalysisCache reopened = AnalysisCache.open(file, OPTIONS.fingerprint());
+        assertEquals(expectedForm, reopened.form(form, OPTIONS));
+        assertEquals(expectedModule, reopened.module(module, OPTIONS));
+        assertEquals(2, reopened.hits());
+        assertEquals(0, reopened.misses());
+
+        AnalysisCache otherOptions = AnalysisCache.open(file, OPTIONS.withFrmControls(false).fingerprint());
+        otherOptions.module(module, OPTIONS);
+        assertEquals(1, otherOptions.misses());
+    }
+
+    @Test
+    void changedFilesAreExtractedAgain() throws IOException {
+        Path module = write("Main.bas", "Attribute VB_Name = \"Main\"", "Public Sub Start()", "    Call Helper",
+                "End Sub");
+        Path file = root.resolve("cache.bin");
+        AnalysisCache cache = AnalysisCache.open(file, OPTIONS.fingerprint());
+        BasAnalysis first = cache.module(module, OPTIONS);
+        cache.save();
+
+        // A touched file with the same content is recognized by its hash.
+        Files.setLastModifiedTime(module, FileTime.fromMillis(Files.getLastModifiedTime(module).toMillis() + 5_000));
+        AnalysisCache touched = AnalysisCache.open(file, OPTIONS.fingerprint());
+        assertEquals(first, touched.module(module, OPTIONS));
+        assertEquals(1, touched.hits());
+        touched.save();
+
+        // An edit that keeps the size: the hash tells it apart from a touch.
+        FileTime modified = Files.getLastModifiedTime(module);
+        write("Main.bas", "Attribute VB_Name = \"Main\"", "Public Sub Start()", "    Call Worker",
+                "End Sub");
+        Files.setLastModifiedTime(module, FileTime.fromMillis(modified.toMillis() + 5_000));
+        AnalysisCache edited = AnalysisCache.open(file, OPTIONS.fingerprint());
+        BasAnalysis second = edited.module(module, OPTIONS);
+        assertNotEquals(first, second);
+        assertEquals("Worker", second.routines().get(0).calls().get(0).target());
+        assertEquals(1, edited.misses());
+
+        edited.invalidate();
+        edited.module(module, OPTIONS);
+        assertEquals(2, edited.misses());
+        assertEquals(0, edited.hits());
+    }
+
+    @Test
+    void damagedCacheFileIsTreatedAsEmpty() throws IOException {
+        Path form = write("frmMain.frm", "Begin VB.Form frmMain", "   Caption = \"Main\"", "End",
+                "Attribute VB_Name = \"frmMain\"", "Private Sub Form_Load()", "    Call Start", "    frmOther.Show",
+                "End Sub");
+        Path module = write("Main.bas", "Attribute VB_Name = \"Main\"", "Public Sub Start()", "    Call Helper",
+                "End Sub");
+        Path file = root.resolve("cache.bin");
+        AnalysisCache cache = AnalysisCache.open(file, OPTIONS.fingerprint());
+        FrmAnalysis expectedForm = cache.form(form, OPTIONS);
+        BasAnalysis expectedModule = cache.module(module, OPTIONS);
+        cache.save();
+        byte[] valid = Files.readAllBytes(file);
+
+        // Every byte replaced by values that make lengths negative or huge, kinds and indexes invalid.
+        for (int offset = 0; offset < valid.length; offset++) {
+            for (byte value : new byte[] {(byte) 0x7F, (byte) 0x80, (byte) 0xFF}) {
+                byte[] damaged = valid.clone();
+                damaged[offset] = value;
+                Files.write(file, damaged);
+                AnalysisCache reopened = AnalysisCache.open(file, OPTIONS.fingerprint());
+                reopened.form(form, OPTIONS);
+                reopened.module(module, OPTIONS);
+            }
+        }
+
+        byte[] hugeHash = valid.clone();
+        ByteBuffer.wrap(hugeHash).putInt(hashLengthOffset(valid), Integer.MAX_VALUE);
+        Files.write(file, hugeHash);
+        AnalysisCache reopened = AnalysisCache.open(file, OPTIONS.fingerprint());
+        assertEquals(expectedForm, reopened.form(form, OPTIONS));
+        assertEquals(expectedModule, reopened.module(module, OPTIONS));
+        assertEquals(0, reopened.hits());
+    }
+
+    // Header: magic, version, fingerprint; then the entry count and the first key, size and mtime.
+    private static int hashLengthOffset(byte[] file) {
+        ByteBuffer buffer = ByteBuffer.wrap(file);
+        int offset = 8;
+        offset += 4 + buffer.getInt(offset);
+        offset += 4;
+        offset += 4 + buffer.getInt(offset);
+        return offset + 16;
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(root.resolve(name), List.of(lines), StandardCharsets.UTF_8);
+    }
+}
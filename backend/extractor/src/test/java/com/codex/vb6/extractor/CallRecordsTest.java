@@ -0,0 +1,42 @@
+package com.codex.vb6.extractor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CallRecordsTest {
+    @Test
+    void legacyConstructorKeepsTypeTargetAndLine() {
+        FrmCall form = new FrmCall("SHOW", "frmMain", "frmMain.Show vbModal");
+        assertEquals(CallKind.SHOW, form.kind());
+        assertEquals("SHOW", form.type());
+        assertEquals("frmMain", form.target());
+        assertEquals("frmMain.Show vbModal", form.line());
+
+        BasCall module = new BasCall("CALL", "Module1.Calc", "  Call Module1.Calc(1)  ");
+        assertEquals("CALL", module.type());
+        assertEquals("  Call Module1.Calc(1)  ", module.line());
+        assertNull(new BasCall("CALL", "DoWork", null).line());
+    }
+
+    @Test
+    void callsFromDifferentTablesCompareByLineText() {
+        LineTable first = new LineTable();
+        first.add(3, "  Call DoWork  ");
+        first.add(7, "Other");
+        first.freeze();
+        LineTable second = LineTable.single(3, "Call DoWork");
+
+        BasCall a = new BasCall(CallKind.CALL, "DoWork", 3, first);
+        BasCall b = new BasCall(CallKind.CALL, "DoWork", 3, second);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, new BasCall(CallKind.CALL, "DoWork", 3, LineTable.single(3, "Call DoWork()")));
+        assertNotEquals(a, new BasCall(CallKind.BUILTIN, "DoWork", 3, second));
+
+        assertEquals(new FrmCall(CallKind.LOAD, "frmB", 7, first), new FrmCall(CallKind.LOAD, "frmB", 7,
+                LineTable.single(7, "Other")));
+    }
+}
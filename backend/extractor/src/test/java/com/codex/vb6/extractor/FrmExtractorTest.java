@@ -0,0 +1,38 @@
+package com.codex.vb6.extractor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FrmExtractorTest {
+    @TempDir
+    Path root;
+
+    @Test
+    void unbalancedDesignerBlockDoesNotSwallowCode() throws IOException {
+        Path frm = root.resolve("frmMain.frm");
+        Files.write(frm, List.of("Begin VB.Form frmMain", "   Caption = \"Main\"", "   Begin VB.CommandButton cmdOK",
+                "      Caption = \"OK\"", "End", "Attribute VB_Name = \"frmMain\"", "Private Sub cmdOK_Click()",
+                "    Call DoWork", "End Sub"), StandardCharsets.UTF_8);
+
+        for (boolean controls : new boolean[] {false, true}) {
+            FrmAnalysis form = FrmExtractor.analyze(frm, AnalyzerOptions.defaults().withFrmControls(controls));
+            assertEquals("frmMain", form.formName());
+            assertEquals(1, form.events().size());
+            FrmEvent event = form.events().get(0);
+            assertEquals("cmdOK_Click", event.name());
+            assertEquals(List.of("DoWork"), event.calls().stream().map(FrmCall::target).toList());
+            if (controls) {
+                assertEquals("frmMain", form.designer().name());
+                assertEquals("cmdOK", form.designer().children().get(0).name());
+            }
+        }
+    }
+}
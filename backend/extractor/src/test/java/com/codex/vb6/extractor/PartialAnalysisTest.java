@@ -0,0 +1,37 @@
+package com.codex.vb6.extractor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartialAnalysisTest {
+    private static final ProjectAnalysis EMPTY = new ProjectAnalysis(List.of());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void fingerprintSurvivesTheFile() throws IOException {
+        String fingerprint = AnalyzerOptions.defaults().fingerprint();
+        Path file = dir.resolve("shard-0-of-1.partial");
+        new PartialAnalysis(new Shard(0, 1), "/src", fingerprint, EMPTY).write(file);
+        assertEquals(fingerprint, PartialAnalysis.read(file).fingerprint());
+    }
+
+    @Test
+    void partialsWithDifferentOptionsAreNotMerged() {
+        AnalyzerOptions options = AnalyzerOptions.defaults();
+        List<PartialAnalysis> partials = List.of(
+                new PartialAnalysis(new Shard(0, 2), "/src", options.fingerprint(), EMPTY),
+                new PartialAnalysis(new Shard(1, 2), "/src", options.withFrmControls(true).fingerprint(), EMPTY));
+        IOException e = assertThrows(IOException.class, () -> PartialAnalysis.merge(partials));
+        assertTrue(e.getMessage().contains("frmControls"), e.getMessage());
+    }
+}
@@ -0,0 +1,62 @@
+package com.codex.vb6.extractor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanMetricsTest {
+    @TempDir
+    Path root;
+
+    @Test
+    void sequentialThroughputUsesSummedTime() throws IOException {
+        for (int p = 0; p < 3; p++) {
+            Path dir = Files.createDirectories(root.resolve("p" + p));
+            write(dir.resolve("App.vbp"), "Type=Exe", "Name=\"App" + p + "\"", "Form=frmMain.frm", "Module=Main; Main.bas");
+            write(dir.resolve("frmMain.frm"), "Begin VB.Form frmMain", "End", "Attribute VB_Name = \"frmMain\"",
+                    "Private Sub Form_Load()", "    Call Start", "End Sub");
+            write(dir.resolve("Main.bas"), "Attribute VB_Name = \"Main\"", "Public Sub Start()", "    Call Helper",
+                    "End Sub", "Private Sub Helper()", "End Sub");
+        }
+        ScanMetrics metrics = ScanMetrics.enabled(0);
+        ProjectAnalyzer.analyze(root, AnalyzerOptions.defaults().withMetrics(metrics));
+
+        for (ScanMetrics.PhaseStats phase : metrics.phases()) {
+            if (phase.phase() != ScanMetrics.Phase.FRM && phase.phase() != ScanMetrics.Phase.BAS) {
+                continue;
+            }
+            assertEquals(3, phase.files());
+            // One thread never overlaps two files, so busy time is the summed time, not the scan's span.
+            assertEquals(phase.nanos(), phase.busyNanos());
+            assertEquals(phase.files() / (phase.nanos() / 1_000_000_000.0), phase.filesPerSecond(), 1e-6);
+            assertEquals(phase.bytes() / (phase.nanos() / 1_000_000_000.0), phase.bytesPerSecond(), 1e-6);
+        }
+    }
+
+    @Test
+    void overlappingSpansCountOnce() throws InterruptedException {
+        ScanMetrics metrics = ScanMetrics.enabled(0);
+        ScanMetrics.Span outer = metrics.begin(ScanMetrics.Phase.GRAPH);
+        ScanMetrics.Span inner = metrics.begin(ScanMetrics.Phase.GRAPH);
+        Thread.sleep(5);
+        inner.end();
+        outer.end();
+
+        ScanMetrics.PhaseStats graph = metrics.phases().get(ScanMetrics.Phase.GRAPH.ordinal());
+        assertEquals(2, graph.calls());
+        assertTrue(graph.busyNanos() < graph.nanos(), graph.toString());
+        assertTrue(graph.busyNanos() >= 5_000_000, graph.toString());
+    }
+
+    private static void write(Path file, String... lines) throws IOException {
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+    }
+}
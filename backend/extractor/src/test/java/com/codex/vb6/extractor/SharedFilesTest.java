@@ -0,0 +1,84 @@
+package com.codex.vb6.extractor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SharedFilesTest {
+    private static final int PROJECTS = 6;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void sharedFilesAreExtractedOnceAndShared() throws IOException {
+        write("Common/Util.bas", "Attribute VB_Name = \"Util\"", "Public Sub Log(ByVal s As String)", "End Sub");
+        write("Common/frmAbout.frm", "Begin VB.Form frmAbout", "End", "Attribute VB_Name = \"frmAbout\"",
+                "Private Sub Form_Load()", "    Call Util.Log(\"about\")", "End Sub");
+        for (int p = 0; p < PROJECTS; p++) {
+            // Different spellings of the same files resolve to one real path.
+            String common = p % 2 == 0 ? "../Common/" : "../p0/../Common/";
+            write("p" + p + "/P" + p + ".vbp", "Type=Exe", "Name=\"P" + p + "\"", "Form=" + common + "frmAbout.frm",
+                    "Module=Util; " + common + "Util.bas", "Module=Own; Own.bas");
+            write("p" + p + "/Own.bas", "Attribute VB_Name = \"Own\"", "Public Sub Main()", "End Sub");
+        }
+
+        for (AnalyzerOptions options : List.of(AnalyzerOptions.defaults(),
+                AnalyzerOptions.defaults().withParallelism(4), AnalyzerOptions.defaults().withPipeline(2))) {
+            long[] shared = new long[2];
+            ProjectAnalysis analysis = ProjectAnalyzer.analyze(root, options, new ProjectListener() {
+                @Override
+                public void projectAnalyzed(ProjectSummary project) {
+                }
+
+                @Override
+                public void filesShared(long references, long uniqueFiles) {
+                    shared[0] = references;
+                    shared[1] = uniqueFiles;
+                }
+            });
+
+            List<ProjectSummary> projects = analysis.projects();
+            assertEquals(PROJECTS, projects.size());
+            assertEquals(3 * PROJECTS, shared[0], options.toString());
+            assertEquals(2 + PROJECTS, shared[1], options.toString());
+            ProjectSummary first = projects.get(0);
+            for (ProjectSummary project : projects) {
+                assertSame(first.forms().get(0), project.forms().get(0), project.vbpPath());
+                assertSame(module(first, "Util"), module(project, "Util"), project.vbpPath());
+                if (project != first) {
+                    assertNotSame(module(first, "Own"), module(project, "Own"), project.vbpPath());
+                }
+            }
+        }
+    }
+
+    @Test
+    void separateRunsDoNotShare() throws IOException {
+        write("Common/Util.bas", "Attribute VB_Name = \"Util\"", "Public Sub Log()", "End Sub");
+        Path vbp = write("p/P.vbp", "Type=Exe", "Name=\"P\"", "Module=Util; ../Common/Util.bas");
+        ProjectSummary first = ProjectAnalyzer.analyzeProject(vbp, AnalyzerOptions.defaults());
+        ProjectSummary second = ProjectAnalyzer.analyzeProject(vbp, AnalyzerOptions.defaults());
+        assertNotSame(first.modules().get(0), second.modules().get(0));
+        assertEquals(first.modules().get(0), second.modules().get(0));
+    }
+
+    private static BasAnalysis module(ProjectSummary project, String name) {
+        return project.modules().stream().filter(module -> module.moduleName().equals(name)).findFirst().orElseThrow();
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+    }
+}
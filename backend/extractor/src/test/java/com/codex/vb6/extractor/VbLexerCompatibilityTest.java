@@ -0,0 +1,219 @@
+package com.codex.vb6.extractor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the extractors report the same events, routines and calls as the per-line regex
+ * cascade VbLexer replaced. {@link RegexExtractor} is that cascade, kept verbatim as the oracle.
+ * Built-ins are kept so both sides see every call, and the regex-compatible mode is used since
+ * the cascade also reported calls inside strings and comments.
+ */
+class VbLexerCompatibilityTest {
+    private static final AnalyzerOptions OPTIONS = AnalyzerOptions.defaults()
+            .withBuiltins(VbBuiltins.defaults().withMode(VbBuiltins.Mode.KEEP))
+            .withRegexCompatible(true);
+
+    private static final String[] TOKENS = {
+            "Call", "Call ", "DoWork", "frmMain", "Module1.Calc", ".Show", "Load ", "Show", "(", ")", "()", "'",
+            "\"", "_", " ", "  ", "\t", ".", "x", " = ", "If ", " Then ", "Foo$", ",", ":", "1", "Mod_1",
+            "a.b.c", "Rem ", "End Sub", "é", "中", "Sub ", "Form_Load", "Me.Show", "vbModal", "Set f = New ",
+            "Err.Raise", "Private ", "Public "
+    };
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void goldenFormMatchesRegexCascade() throws Exception {
+        Path frm = resource("Legacy.frm");
+        assertEquals(RegexExtractor.frm(frm), describe(FrmExtractor.analyze(frm, OPTIONS)));
+    }
+
+    @Test
+    void goldenModuleMatchesRegexCascade() throws Exception {
+        Path bas = resource("Legacy.bas");
+        assertEquals(RegexExtractor.bas(bas), describe(BasExtractor.analyze(bas, OPTIONS)));
+    }
+
+    @Test
+    void fuzzedLinesMatchRegexCascade() throws IOException {
+        Random random = new Random(20240611L);
+        for (int round = 0; round < 50; round++) {
+            List<String> body = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                StringBuilder line = new StringBuilder();
+                int tokens = random.nextInt(8);
+                for (int t = 0; t < tokens; t++) {
+                    line.append(TOKENS[random.nextInt(TOKENS.length)]);
+                }
+                body.add(line.toString());
+            }
+
+            Path frm = temp.resolve("Fuzz" + round + ".frm");
+            Files.write(frm, wrap("Private Sub Form_Load()", body), StandardCharsets.UTF_8);
+            assertEquals(RegexExtractor.frm(frm), describe(FrmExtractor.analyze(frm, OPTIONS)), frm.toString());
+
+            Path bas = temp.resolve("Fuzz" + round + ".bas");
+            Files.write(bas, wrap("Public Sub Fuzz()", body), StandardCharsets.UTF_8);
+            assertEquals(RegexExtractor.bas(bas), describe(BasExtractor.analyze(bas, OPTIONS)), bas.toString());
+        }
+    }
+
+    private static List<String> wrap(String header, List<String> body) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Attribute VB_Name = \"Fuzz\"");
+        lines.add(header);
+        lines.addAll(body);
+        lines.add("End Sub");
+        return lines;
+    }
+
+    private static Path resource(String name) throws URISyntaxException {
+        return Path.of(VbLexerCompatibilityTest.class.getResource("/compat/" + name).toURI());
+    }
+
+    private static List<String> describe(FrmAnalysis form) {
+        List<String> result = new ArrayList<>();
+        result.add("form " + form.formName());
+        for (FrmEvent event : form.events()) {
+            result.add("event " + event.name() + " @" + event.lineNumber());
+            for (FrmCall call : event.calls()) {
+                result.add(call.type() + " " + call.target() + " | " + call.line());
+            }
+        }
+        return result;
+    }
+
+    private static List<String> describe(BasAnalysis module) {
+        List<String> result = new ArrayList<>();
+        result.add("module " + module.moduleName());
+        for (BasRoutine routine : module.routines()) {
+            result.add(routine.kind() + " " + routine.name() + " @" + routine.lineNumber());
+            for (BasCall call : routine.calls()) {
+                result.add(call.type() + " " + call.target() + " | " + call.line());
+            }
+        }
+        return result;
+    }
+
+    // The extraction before VbLexer, reduced to the same description as describe().
+    private static final class RegexExtractor {
+        private static final Pattern FORM_NAME = Pattern.compile("^\\s*Begin\\s+VB\\.Form\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+        private static final Pattern EVENT_START = Pattern.compile("^\\s*(?:Public|Private)?\\s*Sub\\s+(\\w+)_([A-Za-z0-9_]+)\\s*\\(.*\\)\\s*$", Pattern.CASE_INSENSITIVE);
+        private static final Pattern EVENT_END = Pattern.compile("^\\s*End\\s+Sub\\s*$", Pattern.CASE_INSENSITIVE);
+        private static final Pattern MODULE_NAME = Pattern.compile("^\\s*Attribute\\s+VB_Name\\s*=\\s*\"([^\"]+)\"", Pattern.CASE_INSENSITIVE);
+        private static final Pattern ROUTINE_START = Pattern.compile("^\\s*(?:Public|Private|Friend)?\\s*(Sub|Function)\\s+([A-Za-z_][A-Za-z0-9_]*)\\b", Pattern.CASE_INSENSITIVE);
+        private static final Pattern ROUTINE_END = Pattern.compile("^\\s*End\\s+(Sub|Function)\\s*$", Pattern.CASE_INSENSITIVE);
+        private static final Pattern CALL_PATTERN = Pattern.compile("\\b(Call\\s+)?([A-Za-z_][A-Za-z0-9_]*(?:\\.[A-Za-z_][A-Za-z0-9_]*)?)\\s*(?:\\(|$)", Pattern.CASE_INSENSITIVE);
+        private static final Pattern SHOW_PATTERN = Pattern.compile("\\b([A-Za-z_][A-Za-z0-9_]*)\\.Show\\b", Pattern.CASE_INSENSITIVE);
+        private static final Pattern LOAD_PATTERN = Pattern.compile("\\bLoad\\s+([A-Za-z_][A-Za-z0-9_]*)\\b", Pattern.CASE_INSENSITIVE);
+
+        static List<String> frm(Path path) throws IOException {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            String formName = null;
+            List<String> events = new ArrayList<>();
+            List<String> current = null;
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (formName == null) {
+                    Matcher formMatcher = FORM_NAME.matcher(line);
+                    if (formMatcher.find()) {
+                        formName = formMatcher.group(1);
+                    }
+                }
+                Matcher startMatcher = EVENT_START.matcher(line);
+                if (startMatcher.find()) {
+                    current = new ArrayList<>();
+                    current.add("event " + startMatcher.group(1) + "_" + startMatcher.group(2) + " @" + (i + 1));
+                    continue;
+                }
+                if (current != null) {
+                    if (EVENT_END.matcher(line).find()) {
+                        events.addAll(current);
+                        current = null;
+                        continue;
+                    }
+                    current.addAll(calls(line, true));
+                }
+            }
+            List<String> result = new ArrayList<>();
+            result.add("form " + formName);
+            result.addAll(events);
+            return result;
+        }
+
+        static List<String> bas(Path path) throws IOException {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            String moduleName = null;
+            List<String> routines = new ArrayList<>();
+            List<String> current = null;
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (moduleName == null) {
+                    Matcher nameMatcher = MODULE_NAME.matcher(line);
+                    if (nameMatcher.find()) {
+                        moduleName = nameMatcher.group(1);
+                    }
+                }
+                Matcher routineStart = ROUTINE_START.matcher(line);
+                if (routineStart.find()) {
+                    current = new ArrayList<>();
+                    current.add(routineStart.group(1).toUpperCase() + " " + routineStart.group(2) + " @" + (i + 1));
+                    continue;
+                }
+                if (current != null) {
+                    if (ROUTINE_END.matcher(line).find()) {
+                        routines.addAll(current);
+                        current = null;
+                        continue;
+                    }
+                    current.addAll(calls(line, false));
+                }
+            }
+            List<String> result = new ArrayList<>();
+            result.add("module " + moduleName);
+            result.addAll(routines);
+            return result;
+        }
+
+        private static List<String> calls(String line, boolean formCalls) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("'")) {
+                return List.of();
+            }
+            List<String> calls = new ArrayList<>();
+            if (formCalls) {
+                Matcher showMatcher = SHOW_PATTERN.matcher(line);
+                while (showMatcher.find()) {
+                    calls.add("SHOW " + showMatcher.group(1) + " | " + trimmed);
+                }
+                Matcher loadMatcher = LOAD_PATTERN.matcher(line);
+                while (loadMatcher.find()) {
+                    calls.add("LOAD " + loadMatcher.group(1) + " | " + trimmed);
+                }
+            }
+            Matcher callMatcher = CALL_PATTERN.matcher(line);
+            while (callMatcher.find()) {
+                String target = callMatcher.group(2);
+                if (target != null && !target.equalsIgnoreCase("Call")) {
+                    calls.add("CALL " + target + " | " + trimmed);
+                }
+            }
+            return calls;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.codex.vb6.extractor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VbLexerTest {
+    @Test
+    void skipsCallsInsideStringLiterals() {
+        assertEquals(List.of("CALL MsgBox"), calls("MsgBox(\"Call Hidden(1) here\")", false));
+        assertEquals(List.of("CALL Log", "CALL After"), calls("Log(\"say \"\"Quoted(1)\"\" now\"): After(2)", false));
+        assertEquals(List.of(), calls("s = \"Unterminated(1)", false));
+    }
+
+    @Test
+    void stopsAtComments() {
+        assertEquals(List.of("CALL Compute"), calls("x = Compute(y) ' Call Hidden(1)", false));
+        assertEquals(List.of("CALL DoWork"), calls("DoWork ' then nothing", false));
+        assertEquals(List.of("CALL Tick"), calls("Tick(1): Rem Call Hidden(1)", false));
+        assertEquals(List.of(), calls("Rem Call Hidden(1)", false));
+        assertEquals(List.of("CALL Remove"), calls("Remove(1)", false));
+        assertEquals(List.of("CALL MsgBox"), calls("MsgBox(\"it's Rem\") ' Hidden(1)", false));
+    }
+
+    @Test
+    void formCallsStopAtComments() {
+        assertEquals(List.of("SHOW frmMain", "CALL frmMain.Show"), calls("frmMain.Show ' Load frmOther", true));
+        assertEquals(List.of(), calls("s = \"Don't Load frmQuoted\"", true));
+    }
+
+    @Test
+    void regexCompatibleModeKeepsStringsAndComments() {
+        List<String> found = new ArrayList<>();
+        String line = "x = Compute(y) ' Call Hidden(1)";
+        VbLexer.scanCalls(line, false, false,
+                (kind, start, end) -> found.add(kind + " " + line.substring(start, end)));
+        assertEquals(List.of("CALL Compute", "CALL Hidden"), found);
+    }
+
+    private static List<String> calls(String line, boolean formCalls) {
+        List<String> found = new ArrayList<>();
+        VbLexer.scanCalls(line, formCalls, true,
+                (kind, start, end) -> found.add(kind + " " + line.substring(start, end)));
+        return found;
+    }
+}
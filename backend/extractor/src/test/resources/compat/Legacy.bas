@@ -0,0 +1,35 @@
+Attribute VB_Name = "Legacy"
+Option Explicit
+
+Public Sub Main()
+    ' Call CommentedOut
+    Call InitApp
+    Call   Util.Setup(1, 2)
+    x = Compute(y) ' trailing Call Hidden(1)
+    MsgBox "it's Call Quoted(1) here"
+    total = Sum(a, _
+        Other(b))
+    If Ready Then DoWork
+    frmMain.Show
+    Load frmMain
+End Sub
+
+Private Function Compute(ByVal y As Long) As Long
+    Compute = Helper(y) + Len(CStr(y))
+    Select Case y
+        Case 1: Call One
+        Case Else: Two
+    End Select
+End Function
+
+Friend Sub Shutdown
+    Call
+    Err.Raise 5
+    Worker.Stop$
+    Dim a(10) As Long
+    ReDim Preserve a(20)
+    For i = 1 To 10: Tick i: Next
+End Sub
+
+Function NoEnd()
+    Call Dangling
@@ -0,0 +1,388 @@
+package com.codex.vb6.graph;
+
+import com.codex.vb6.extractor.BasAnalysis;
+import com.codex.vb6.extractor.BasCall;
+import com.codex.vb6.extractor.BasRoutine;
+import com.codex.vb6.extractor.FrmAnalysis;
+import com.codex.vb6.extractor.FrmCall;
+import com.codex.vb6.extractor.FrmEvent;
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectSummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Differences between two analyses of the same code base and their call graphs: routines and
+ * events added, removed or moved, call sites moved, and call edges added or removed.
+ *
+ * <p>Each side is reduced to a sorted run and the runs are compared in one merge pass.
+ * Definitions are matched by their node id, so a routine whose line changed is MOVED rather than
+ * removed and added again. A call site only counts as moved when its offset from the enclosing
+ * routine or event changed, so lines inserted above a routine move the routine, not each call in
+ * it. Edges carry no lines and are matched on the ids of their ends and their label.
+ */
+public final class AnalysisDiff {
+    public enum Change {
+        ADDED, REMOVED, MOVED
+    }
+
+    /** A routine or event; the line is 0 on the side it is missing from. */
+    public record DefinitionChange(Change change, GraphNode node, int oldLine, int newLine) {
+    }
+
+    /** A call site of a routine or event present on both sides whose offset within it changed. */
+    public record CallMove(String callerId, String type, String target, int oldLine, int newLine) {
+    }
+
+    public record EdgeChange(Change change, GraphNode from, GraphNode to, String label) {
+    }
+
+    /**
+     * Changes ordered by id, and call edges by the position of their ends in the new graph.
+     * {@code addedNodes} and {@code removedNodes} hold the ids of graph nodes of one side only.
+     */
+    public record Result(List<DefinitionChange> definitions,
+                         List<CallMove> calls,
+                         List<EdgeChange> edges,
+                         Set<String> addedNodes,
+                         Set<String> removedNodes,
+                         int unchangedDefinitions,
+                         int unchangedEdges) {
+        public boolean isEmpty() {
+            return definitions.isEmpty() && calls.isEmpty() && edges.isEmpty();
+        }
+
+        public int definitionCount(Change change) {
+            return (int) definitions.stream().filter(definition -> definition.change() == change).count();
+        }
+
+        public int edgeCount(Change change) {
+            return (int) edges.stream().filter(edge -> edge.change() == change).count();
+        }
+    }
+
+    private AnalysisDiff() {
+    }
+
+    public static Result compare(ProjectAnalysis oldAnalysis, GraphView oldGraph,
+                                 ProjectAnalysis newAnalysis, GraphView newGraph) {
+        List<DefinitionChange> definitions = new ArrayList<>();
+        List<CallMove> calls = new ArrayList<>();
+        int unchangedDefinitions = compareDefinitions(definitions(oldAnalysis), definitions(newAnalysis),
+                definitions, calls);
+
+        List<EdgeChange> edges = new ArrayList<>();
+        Set<String> addedNodes = new HashSet<>();
+        Set<String> removedNodes = new HashSet<>();
+        int unchangedEdges = compareEdges(oldGraph, newGraph, edges, addedNodes, removedNodes);
+        return new Result(List.copyOf(definitions), List.copyOf(calls), List.copyOf(edges),
+                Set.copyOf(addedNodes), Set.copyOf(removedNodes), unchangedDefinitions, unchangedEdges);
+    }
+
+    /**
+     * Renders the changed call edges as a {@code graph TD} diagram without code fences: added
+     * edges solid, removed ones dotted, and nodes of one side only styled as added or removed.
+     * Edges that would take the diagram past {@code maxNodes} nodes are left out and counted in a
+     * comment.
+     */
+    public static String mermaid(Result diff, int maxNodes) {
+        Map<String, GraphNode> nodes = new LinkedHashMap<>();
+        StringBuilder edgeLines = new StringBuilder();
+        int omitted = 0;
+        for (EdgeChange edge : diff.edges()) {
+            int added = (nodes.containsKey(edge.from().id()) ? 0 : 1)
+                    + (edge.to().id().equals(edge.from().id()) || nodes.containsKey(edge.to().id()) ? 0 : 1);
+            if (nodes.size() + added > maxNodes) {
+                omitted++;
+                continue;
+            }
+            nodes.putIfAbsent(edge.from().id(), edge.from());
+            nodes.putIfAbsent(edge.to().id(), edge.to());
+            edgeLines.append("  ").append(MermaidRenderer.sanitize(edge.from().id()))
+                    .append(edge.change() == Change.ADDED ? " -->|" : " -.->|").append(edge.label()).append("| ")
+                    .append(MermaidRenderer.sanitize(edge.to().id())).append('\n');
+        }
+
+        StringBuilder builder = new StringBuilder(edgeLines.length() + nodes.size() * 32 + 128);
+        builder.append("graph TD\n");
+        builder.append("  classDef added fill:#d4f8d4,stroke:#2a7a2a\n");
+        builder.append("  classDef removed fill:#f8d4d4,stroke:#a52a2a,stroke-dasharray:4 2\n");
+        for (GraphNode node : nodes.values()) {
+            builder.append("  ").append(MermaidRenderer.sanitize(node.id())).append("[\"")
+                    .append(MermaidRenderer.escapeLabel(node.label())).append("\"]");
+            if (diff.addedNodes().contains(node.id())) {
+                builder.append(":::added");
+            } else if (diff.removedNodes().contains(node.id())) {
+                builder.append(":::removed");
+            }
+            builder.append('\n');
+        }
+        builder.append(edgeLines);
+        if (omitted > 0) {
+            builder.append("  %% ").append(omitted).append(" changed edges omitted\n");
+        }
+        return builder.toString();
+    }
+
+    private record Definition(String id, GraphNodeType type, String name, int line, Object source) {
+        List<Call> calls() {
+            List<Call> calls = new ArrayList<>();
+            if (source instanceof BasRoutine routine) {
+                for (BasCall call : routine.calls()) {
+                    calls.add(new Call(call.type(), call.target(), call.lineNumber()));
+                }
+            } else if (source instanceof FrmEvent event) {
+                for (FrmCall call : event.calls()) {
+                    calls.add(new Call(call.type(), call.target(), call.lineNumber()));
+                }
+            }
+            return calls;
+        }
+    }
+
+    private record Call(String type, String target, int line) {
+    }
+
+    private static final Comparator<Definition> DEFINITION_ORDER =
+            Comparator.comparing(Definition::id).thenComparingInt(Definition::line);
+
+    private static List<Definition> definitions(ProjectAnalysis analysis) {
+        List<Definition> definitions = new ArrayList<>();
+        for (ProjectSummary project : analysis.projects()) {
+            String projectId = GraphBuilder.projectId(project);
+            for (FrmAnalysis form : project.forms()) {
+                String formId = GraphBuilder.formId(projectId, form);
+                for (FrmEvent event : form.events()) {
+                    definitions.add(new Definition(GraphBuilder.eventId(formId, event), GraphNodeType.EVENT,
+                            event.name(), event.lineNumber(), event));
+                }
+            }
+            for (BasAnalysis module : project.modules()) {
+                String moduleId = GraphBuilder.moduleId(projectId, module);
+                for (BasRoutine routine : module.routines()) {
+                    definitions.add(new Definition(GraphBuilder.routineId(moduleId, routine), GraphNodeType.ROUTINE,
+                            routine.name(), routine.lineNumber(), routine));
+                }
+            }
+        }
+        definitions.sort(DEFINITION_ORDER);
+        return definitions;
+    }
+
+    // Definitions sharing an id are paired in line order; returns the number of unchanged pairs.
+    private static int compareDefinitions(List<Definition> before, List<Definition> after,
+                                          List<DefinitionChange> changes, List<CallMove> moves) {
+        int unchanged = 0;
+        int i = 0;
+        int j = 0;
+        while (i < before.size() || j < after.size()) {
+            int order = i == before.size() ? 1
+                    : j == after.size() ? -1
+                    : before.get(i).id().compareTo(after.get(j).id());
+            if (order < 0) {
+                Definition removed = before.get(i++);
+                changes.add(new DefinitionChange(Change.REMOVED, node(removed), removed.line(), 0));
+            } else if (order > 0) {
+                Definition added = after.get(j++);
+                changes.add(new DefinitionChange(Change.ADDED, node(added), 0, added.line()));
+            } else {
+                Definition old = before.get(i++);
+                Definition current = after.get(j++);
+                if (old.line() != current.line()) {
+                    changes.add(new DefinitionChange(Change.MOVED, node(current), old.line(), current.line()));
+                } else {
+                    unchanged++;
+                }
+                compareCalls(old, current, moves);
+            }
+        }
+        return unchanged;
+    }
+
+    // Calls are grouped by (type, target); a group whose size changed is an edit, reflected in the
+    // edges if anything, so only groups of equal size are paired up by offset.
+    private static void compareCalls(Definition old, Definition current, List<CallMove> moves) {
+        if (sameOffsets(old, current)) {
+            return;
+        }
+        List<Call> before = old.calls();
+        List<Call> after = current.calls();
+        if (before.isEmpty() || after.isEmpty()) {
+            return;
+        }
+        Comparator<Call> order = Comparator.comparing(Call::type).thenComparing(Call::target).thenComparingInt(Call::line);
+        before.sort(order);
+        after.sort(order);
+        int first = moves.size();
+        int i = 0;
+        int j = 0;
+        while (i < before.size() && j < after.size()) {
+            Call call = before.get(i);
+            int group = call.type().compareTo(after.get(j).type());
+            if (group == 0) {
+                group = call.target().compareTo(after.get(j).target());
+            }
+            if (group < 0) {
+                i++;
+                continue;
+            }
+            if (group > 0) {
+                j++;
+                continue;
+            }
+            int endBefore = groupEnd(before, i);
+            int endAfter = groupEnd(after, j);
+            if (endBefore - i == endAfter - j) {
+                for (; i < endBefore; i++, j++) {
+                    int oldLine = before.get(i).line();
+                    int newLine = after.get(j).line();
+                    if (oldLine - old.line() != newLine - current.line()) {
+                        moves.add(new CallMove(current.id(), call.type(), call.target(), oldLine, newLine));
+                    }
+                }
+            }
+            i = endBefore;
+            j = endAfter;
+        }
+        moves.subList(first, moves.size()).sort(Comparator.comparingInt(CallMove::newLine));
+    }
+
+    // The common case, checked on the stored call arrays without creating records: the same calls
+    // in the same order at the same offsets, so the definition is unchanged or moved as a whole.
+    private static boolean sameOffsets(Definition old, Definition current) {
+        if (old.source() instanceof BasRoutine before && current.source() instanceof BasRoutine after) {
+            return before.sameCallOffsets(after);
+        }
+        if (old.source() instanceof FrmEvent before && current.source() instanceof FrmEvent after) {
+            return before.sameCallOffsets(after);
+        }
+        return false;
+    }
+
+    private static int groupEnd(List<Call> calls, int start) {
+        Call first = calls.get(start);
+        int end = start + 1;
+        while (end < calls.size() && calls.get(end).type().equals(first.type())
+                && calls.get(end).target().equals(first.target())) {
+            end++;
+        }
+        return end;
+    }
+
+    private static GraphNode node(Definition definition) {
+        return new GraphNode(definition.id(), definition.type(), definition.name());
+    }
+
+    /**
+     * Old nodes and labels are renumbered into the index space of the new graph, old-only ones
+     * after the new ones, so every edge packs into one long ordered by (from, to, label) and both
+     * edge sets compare as sorted long arrays. Returns the number of edges
+     * found on both sides.
+     */
+    private static int compareEdges(GraphView oldGraph, GraphView newGraph, List<EdgeChange> changes,
+                                    Set<String> addedNodes, Set<String> removedNodes) {
+        int newNodes = newGraph.nodeCount();
+        boolean[] matched = new boolean[newNodes];
+        int[] nodeMap = new int[oldGraph.nodeCount()];
+        List<GraphNode> oldOnly = new ArrayList<>();
+        for (int n = 0; n < nodeMap.length; n++) {
+            GraphNode node = oldGraph.node(n);
+            int index = newGraph.indexOf(node.id());
+            if (index < 0) {
+                index = newNodes + oldOnly.size();
+                oldOnly.add(node);
+                removedNodes.add(node.id());
+            } else {
+                matched[index] = true;
+            }
+            nodeMap[n] = index;
+        }
+        for (int n = 0; n < newNodes; n++) {
+            if (!matched[n]) {
+                addedNodes.add(newGraph.node(n).id());
+            }
+        }
+
+        Map<String, Integer> labelIndex = new HashMap<>();
+        List<String> labels = new ArrayList<>();
+        for (int l = 0; l < newGraph.labelCount(); l++) {
+            labelIndex.put(newGraph.label(l), l);
+            labels.add(newGraph.label(l));
+        }
+        int[] labelMap = new int[oldGraph.labelCount()];
+        for (int l = 0; l < labelMap.length; l++) {
+            String label = oldGraph.label(l);
+            Integer index = labelIndex.get(label);
+            if (index == null) {
+                index = labels.size();
+                labelIndex.put(label, index);
+                labels.add(label);
+            }
+            labelMap[l] = index;
+        }
+
+        int nodeBits = bits(newNodes + oldOnly.size());
+        int labelBits = bits(labels.size());
+        if (2 * nodeBits + labelBits > 63) {
+            throw new IllegalArgumentException("Graphs too large to compare: " + (newNodes + oldOnly.size())
+                    + " nodes, " + labels.size() + " labels");
+        }
+        long[] before = new long[oldGraph.edgeCount()];
+        for (int e = 0; e < before.length; e++) {
+            before[e] = key(nodeMap[oldGraph.edgeFrom(e)], nodeMap[oldGraph.edgeTo(e)],
+                    labelMap[oldGraph.edgeLabelId(e)], nodeBits, labelBits);
+        }
+        long[] after = new long[newGraph.edgeCount()];
+        for (int e = 0; e < after.length; e++) {
+            after[e] = key(newGraph.edgeFrom(e), newGraph.edgeTo(e), newGraph.edgeLabelId(e), nodeBits, labelBits);
+        }
+        Arrays.sort(before);
+        Arrays.sort(after);
+
+        // Both graphs de-duplicate edges, so each key occurs at most once per side.
+        int unchanged = 0;
+        int i = 0;
+        int j = 0;
+        while (i < before.length || j < after.length) {
+            if (j == after.length || (i < before.length && before[i] < after[j])) {
+                changes.add(edgeChange(Change.REMOVED, before[i++], newGraph, oldOnly, labels, nodeBits, labelBits));
+            } else if (i == before.length || after[j] < before[i]) {
+                changes.add(edgeChange(Change.ADDED, after[j++], newGraph, oldOnly, labels, nodeBits, labelBits));
+            } else {
+                unchanged++;
+                i++;
+                j++;
+            }
+        }
+        return unchanged;
+    }
+
+    private static int bits(int count) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(count));
+    }
+
+    private static long key(int from, int to, int label, int nodeBits, int labelBits) {
+        return ((long) from << (nodeBits + labelBits)) | ((long) to << labelBits) | label;
+    }
+
+    private static EdgeChange edgeChange(Change change, long key, GraphView newGraph, List<GraphNode> oldOnly,
+                                         List<String> labels, int nodeBits, int labelBits) {
+        long nodeMask = (1L << nodeBits) - 1;
+        int label = (int) (key & ((1L << labelBits) - 1));
+        int to = (int) ((key >>> labelBits) & nodeMask);
+        int from = (int) (key >>> (nodeBits + labelBits));
+        return new EdgeChange(change, node(newGraph, oldOnly, from), node(newGraph, oldOnly, to), labels.get(label));
+    }
+
+    private static GraphNode node(GraphView newGraph, List<GraphNode> oldOnly, int index) {
+        return index < newGraph.nodeCount() ? newGraph.node(index) : oldOnly.get(index - newGraph.nodeCount());
+    }
+}
@@ -9,55 +9,230 @@ import com.codex.vb6.extractor.FrmEvent;
 import com.codex.vb6.extractor.ProjectAnalysis;
 import com.codex.vb6.extractor.ProjectSummary;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 public final class GraphBuilder {
     private GraphBuilder() {
     }
 
     public static GraphModel build(ProjectAnalysis analysis) {
         GraphModel model = new GraphModel();
+        for (ProjectSummary project : analysis.projects()) {
+            addProject(model, project);
+        }
+        return model;
+    }
+
+    /**
+     * Same graph as {@link #build(ProjectAnalysis)}. Each project is built into a graph of its own
+     * on one of {@code parallelism} threads; the calling thread appends them to the result in
+     * project order as they complete, so only that thread ever touches the result.
+     */
+    public static GraphModel build(ProjectAnalysis analysis, int parallelism) {
+        if (parallelism <= 1) {
+            return build(analysis);
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<GraphModel>> tasks = new ArrayList<>();
+            for (ProjectSummary project : analysis.projects()) {
+                tasks.add(pool.submit(() -> {
+                    GraphModel fragment = new GraphModel();
+                    addProject(fragment, project);
+                    return fragment;
+                }));
+            }
+            GraphModel model = new GraphModel();
+            for (ForkJoinTask<GraphModel> task : tasks) {
+                model.addAll(task.join());
+            }
+            return model;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 
+    /**
+     * Patches {@code model} after the projects with the given ids changed: the nodes of those
+     * projects in {@code previous} are removed with their edges, and the projects of
+     * {@code analysis} with those ids are added again at the end. The nodes to remove are looked
+     * up by the ids the previous projects produce, so the cost follows the changed projects rather
+     * than the size of the graph.
+     */
+    public static void replaceProjects(GraphModel model, ProjectAnalysis previous, ProjectAnalysis analysis,
+                                       Set<String> projectIds) {
+        BitSet owned = new BitSet(model.nodeCount());
+        for (ProjectSummary project : previous.projects()) {
+            if (projectIds.contains(projectId(project))) {
+                markNodes(model, project, owned);
+            }
+        }
+        model.removeNodes(owned);
         for (ProjectSummary project : analysis.projects()) {
-            String projectId = "project:" + nullSafe(project.project().name(), project.vbpPath());
-            model.addNode(new GraphNode(projectId, GraphNodeType.PROJECT, nullSafe(project.project().name(), "(project)")));
-
-            for (FrmAnalysis form : project.forms()) {
-                String formId = projectId + ":form:" + nullSafe(form.formName(), "unknown");
-                model.addNode(new GraphNode(formId, GraphNodeType.FORM, nullSafe(form.formName(), "(form)")));
-                model.addEdge(new GraphEdge(projectId, formId, "HAS_FORM"));
-
-                for (FrmEvent event : form.events()) {
-                    String eventId = formId + ":event:" + event.name();
-                    model.addNode(new GraphNode(eventId, GraphNodeType.EVENT, event.name()));
-                    model.addEdge(new GraphEdge(formId, eventId, "HAS_EVENT"));
-
-                    for (FrmCall call : event.calls()) {
-                        String targetId = projectId + ":call:" + call.target();
-                        model.addNode(new GraphNode(targetId, GraphNodeType.CALL_TARGET, call.target()));
-                        model.addEdge(new GraphEdge(eventId, targetId, call.type()));
+            if (projectIds.contains(projectId(project))) {
+                addProject(model, project);
+            }
+        }
+    }
+
+    /** Id of the PROJECT node; every other node of the project uses it as prefix. */
+    public static String projectId(ProjectSummary project) {
+        return "project:" + nullSafe(project.project().name(), project.vbpPath());
+    }
+
+    /**
+     * Adds one project. Adding the projects of an analysis one by one, in order, gives the same
+     * graph as {@link #build}, so the graph can grow while later projects are still analyzed.
+     */
+    public static void addProject(GraphModel model, ProjectSummary project) {
+        String projectId = projectId(project);
+        int projectNode = model.addNode(new GraphNode(projectId, GraphNodeType.PROJECT, nullSafe(project.project().name(), "(project)")));
+
+        // Declare every form and routine first so calls can resolve regardless of file order.
+        SymbolTable symbols = new SymbolTable();
+        // Unresolved targets repeat a lot; their node is looked up by target, not by a fresh id string.
+        Map<String, Integer> callTargets = new HashMap<>();
+        int[] formNodes = new int[project.forms().size()];
+        String[] formIds = new String[formNodes.length];
+        for (int f = 0; f < formNodes.length; f++) {
+            FrmAnalysis form = project.forms().get(f);
+            formIds[f] = formId(projectId, form);
+            formNodes[f] = model.addNode(new GraphNode(formIds[f], GraphNodeType.FORM, nullSafe(form.formName(), "(form)")));
+            symbols.addForm(form.formName(), formNodes[f]);
+        }
+        int[] moduleNodes = new int[project.modules().size()];
+        int[][] routineNodes = new int[moduleNodes.length][];
+        for (int m = 0; m < moduleNodes.length; m++) {
+            BasAnalysis module = project.modules().get(m);
+            String moduleId = moduleId(projectId, module);
+            moduleNodes[m] = model.addNode(new GraphNode(moduleId, GraphNodeType.MODULE, nullSafe(module.moduleName(), "(module)")));
+            routineNodes[m] = new int[module.routines().size()];
+            for (int r = 0; r < routineNodes[m].length; r++) {
+                BasRoutine routine = module.routines().get(r);
+                String routineId = routineId(moduleId, routine);
+                routineNodes[m][r] = model.addNode(new GraphNode(routineId, GraphNodeType.ROUTINE, routine.name()));
+                symbols.addRoutine(module.moduleName(), routine.name(), routineNodes[m][r]);
+            }
+        }
+
+        for (int f = 0; f < formNodes.length; f++) {
+            FrmAnalysis form = project.forms().get(f);
+            String formId = formIds[f];
+            model.addEdge(projectNode, formNodes[f], "HAS_FORM");
+
+            for (FrmEvent event : form.events()) {
+                String eventId = eventId(formId, event);
+                int eventNode = model.addNode(new GraphNode(eventId, GraphNodeType.EVENT, event.name()));
+                model.addEdge(formNodes[f], eventNode, "HAS_EVENT");
+
+                for (FrmCall call : event.calls()) {
+                    int targetNode = resolve(model, symbols, callTargets, projectId, call.type(), call.target(), null);
+                    if (targetNode != SymbolTable.UNRESOLVED) {
+                        model.addEdge(eventNode, targetNode, edgeLabel(call.type()));
                     }
                 }
             }
+        }
 
-            for (BasAnalysis module : project.modules()) {
-                String moduleId = projectId + ":module:" + nullSafe(module.moduleName(), "unknown");
-                model.addNode(new GraphNode(moduleId, GraphNodeType.MODULE, nullSafe(module.moduleName(), "(module)")));
-                model.addEdge(new GraphEdge(projectId, moduleId, "HAS_MODULE"));
+        for (int m = 0; m < moduleNodes.length; m++) {
+            BasAnalysis module = project.modules().get(m);
+            model.addEdge(projectNode, moduleNodes[m], "HAS_MODULE");
 
-                for (BasRoutine routine : module.routines()) {
-                    String routineId = moduleId + ":routine:" + routine.name();
-                    model.addNode(new GraphNode(routineId, GraphNodeType.ROUTINE, routine.name()));
-                    model.addEdge(new GraphEdge(moduleId, routineId, routine.kind()));
+            List<BasRoutine> routines = module.routines();
+            for (int r = 0; r < routines.size(); r++) {
+                BasRoutine routine = routines.get(r);
+                model.addEdge(moduleNodes[m], routineNodes[m][r], routine.kind());
 
-                    for (BasCall call : routine.calls()) {
-                        String targetId = projectId + ":call:" + call.target();
-                        model.addNode(new GraphNode(targetId, GraphNodeType.CALL_TARGET, call.target()));
-                        model.addEdge(new GraphEdge(routineId, targetId, call.type()));
+                for (BasCall call : routine.calls()) {
+                    int targetNode = resolve(model, symbols, callTargets, projectId, call.type(), call.target(), module.moduleName());
+                    if (targetNode != SymbolTable.UNRESOLVED) {
+                        model.addEdge(routineNodes[m][r], targetNode, edgeLabel(call.type()));
                     }
                 }
             }
         }
+    }
 
-        return model;
+    static String formId(String projectId, FrmAnalysis form) {
+        return projectId + ":form:" + nullSafe(form.formName(), "unknown");
+    }
+
+    static String eventId(String formId, FrmEvent event) {
+        return formId + ":event:" + event.name();
+    }
+
+    static String moduleId(String projectId, BasAnalysis module) {
+        return projectId + ":module:" + nullSafe(module.moduleName(), "unknown");
+    }
+
+    static String routineId(String moduleId, BasRoutine routine) {
+        return moduleId + ":routine:" + routine.name();
+    }
+
+    // Sets the index of every node addProject can have created for the project; calls that resolved
+    // to a form or routine have no CALL_TARGET node and are skipped.
+    private static void markNodes(GraphModel model, ProjectSummary project, BitSet owned) {
+        String projectId = projectId(project);
+        mark(model, projectId, owned);
+        for (FrmAnalysis form : project.forms()) {
+            String formId = formId(projectId, form);
+            mark(model, formId, owned);
+            for (FrmEvent event : form.events()) {
+                mark(model, eventId(formId, event), owned);
+                for (FrmCall call : event.calls()) {
+                    mark(model, callTargetId(projectId, call.target()), owned);
+                }
+            }
+        }
+        for (BasAnalysis module : project.modules()) {
+            String moduleId = moduleId(projectId, module);
+            mark(model, moduleId, owned);
+            for (BasRoutine routine : module.routines()) {
+                mark(model, routineId(moduleId, routine), owned);
+                for (BasCall call : routine.calls()) {
+                    mark(model, callTargetId(projectId, call.target()), owned);
+                }
+            }
+        }
+    }
+
+    private static void mark(GraphModel model, String id, BitSet owned) {
+        int index = model.indexOf(id);
+        if (index >= 0) {
+            owned.set(index);
+        }
+    }
+
+    static String callTargetId(String projectId, String target) {
+        return projectId + ":call:" + target;
+    }
+
+    // Falls back to a project-scoped CALL_TARGET node when the target is not declared in the project.
+    // BUILTIN calls resolve like CALL, so a project's own Sub Log is still linked; a built-in that
+    // the project does not declare stays UNRESOLVED and is left out of the graph.
+    private static int resolve(GraphModel model, SymbolTable symbols, Map<String, Integer> callTargets,
+                               String projectId, String type, String target, String callingModule) {
+        int node = switch (type) {
+            case "CALL", "BUILTIN" -> symbols.routine(target, callingModule);
+            default -> symbols.form(target);
+        };
+        if (node != SymbolTable.UNRESOLVED || type.equals("BUILTIN")) {
+            return node;
+        }
+        return callTargets.computeIfAbsent(target, key ->
+                model.addNode(new GraphNode(callTargetId(projectId, key), GraphNodeType.CALL_TARGET, key)));
+    }
+
+    // A resolved BUILTIN call is a call into the project and takes part in call flows like one.
+    private static String edgeLabel(String type) {
+        return type.equals("BUILTIN") ? "CALL" : type;
     }
 
     private static String nullSafe(String value, String fallback) {
@@ -1,25 +1,376 @@
 package com.codex.vb6.graph;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Directed graph store with de-duplicated nodes and edges.
+ *
+ * <p>Nodes are interned to dense int indexes in insertion order, and edges are kept in
+ * parallel primitive arrays (from, to, label index). Forward and reverse adjacency is built
+ * lazily in compressed form the first time it is needed after a change, so walking the
+ * callers or callees of a node costs constant time per neighbour.
+ *
+ * <p>Edges only connect nodes of the graph: {@link #addEdge(GraphEdge)} rejects an edge whose
+ * endpoint id was never added with an {@link IllegalArgumentException}, where the list-backed
+ * model used to keep such dangling edges. Add the endpoints first.
+ */
+public final class GraphModel implements GraphView {
+    private static final int INITIAL_EDGES = 64;
 
-public final class GraphModel {
     private final List<GraphNode> nodes = new ArrayList<>();
-    private final List<GraphEdge> edges = new ArrayList<>();
+    private final Map<String, Integer> nodeIndex = new HashMap<>();
+    private final List<String> labels = new ArrayList<>();
+    private final Map<String, Integer> labelIndex = new HashMap<>();
+
+    private int[] edgeFrom = new int[INITIAL_EDGES];
+    private int[] edgeTo = new int[INITIAL_EDGES];
+    private int[] edgeLabel = new int[INITIAL_EDGES];
+    private int edgeCount;
+    // Open-addressing set of edge indexes + 1, keyed by (from, to, label); 0 marks a free slot.
+    private int[] edgeSlots = new int[INITIAL_EDGES * 2];
+
+    private Adjacency outgoing;
+    private Adjacency incoming;
 
-    public void addNode(GraphNode node) {
+    /**
+     * Adds the node unless a node with the same id exists, and returns the index of the node
+     * stored under that id. The first node added for an id wins.
+     */
+    public int addNode(GraphNode node) {
+        Integer existing = nodeIndex.putIfAbsent(node.id(), nodes.size());
+        if (existing != null) {
+            return existing;
+        }
         nodes.add(node);
+        outgoing = null;
+        incoming = null;
+        return nodes.size() - 1;
+    }
+
+    /**
+     * Adds the edge unless an identical one exists.
+     *
+     * @throws IllegalArgumentException if either endpoint is not a node of this graph
+     */
+    public boolean addEdge(GraphEdge edge) {
+        return addEdge(requireIndex(edge.fromId()), requireIndex(edge.toId()), edge.label());
+    }
+
+    public boolean addEdge(int from, int to, String label) {
+        if (from < 0 || from >= nodes.size() || to < 0 || to >= nodes.size()) {
+            throw new IndexOutOfBoundsException("Edge " + from + " -> " + to + " outside " + nodes.size() + " nodes");
+        }
+        return addEdgeId(from, to, labelId(label));
+    }
+
+    /**
+     * Appends the nodes and edges of {@code other} as if each had been added here in its order,
+     * so nodes and edges already present are kept once and first nodes still win.
+     */
+    public void addAll(GraphModel other) {
+        int[] nodeMap = new int[other.nodes.size()];
+        for (int n = 0; n < nodeMap.length; n++) {
+            nodeMap[n] = addNode(other.nodes.get(n));
+        }
+        int[] labelMap = new int[other.labels.size()];
+        for (int l = 0; l < labelMap.length; l++) {
+            labelMap[l] = labelId(other.labels.get(l));
+        }
+        int needed = edgeCount + other.edgeCount;
+        if (needed > edgeFrom.length) {
+            edgeFrom = Arrays.copyOf(edgeFrom, needed);
+            edgeTo = Arrays.copyOf(edgeTo, needed);
+            edgeLabel = Arrays.copyOf(edgeLabel, needed);
+        }
+        if (needed * 2 > edgeSlots.length) {
+            rehash(Integer.highestOneBit(needed * 2 - 1) << 1);
+        }
+        for (int e = 0; e < other.edgeCount; e++) {
+            addEdgeId(nodeMap[other.edgeFrom[e]], nodeMap[other.edgeTo[e]], labelMap[other.edgeLabel[e]]);
+        }
+    }
+
+    private int labelId(String label) {
+        return labelIndex.computeIfAbsent(label, key -> {
+            labels.add(key);
+            return labels.size() - 1;
+        });
+    }
+
+    private boolean addEdgeId(int from, int to, int labelId) {
+        int mask = edgeSlots.length - 1;
+        int slot = hash(from, to, labelId) & mask;
+        while (edgeSlots[slot] != 0) {
+            int e = edgeSlots[slot] - 1;
+            if (edgeFrom[e] == from && edgeTo[e] == to && edgeLabel[e] == labelId) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (edgeCount == edgeFrom.length) {
+            int capacity = edgeCount + (edgeCount >> 1);
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeLabel = Arrays.copyOf(edgeLabel, capacity);
+        }
+        edgeFrom[edgeCount] = from;
+        edgeTo[edgeCount] = to;
+        edgeLabel[edgeCount] = labelId;
+        edgeSlots[slot] = ++edgeCount;
+        if (edgeCount * 2 > edgeSlots.length) {
+            rehash(edgeSlots.length * 2);
+        }
+        outgoing = null;
+        incoming = null;
+        return true;
+    }
+
+    /**
+     * Removes the matching nodes together with every edge touching them, and returns how many
+     * nodes were removed. Remaining nodes and edges keep their relative order but are renumbered,
+     * so indexes obtained before the call are no longer valid.
+     */
+    public int removeNodes(Predicate<GraphNode> filter) {
+        BitSet removed = new BitSet(nodes.size());
+        for (int n = 0; n < nodes.size(); n++) {
+            if (filter.test(nodes.get(n))) {
+                removed.set(n);
+            }
+        }
+        return removeNodes(removed);
+    }
+
+    /**
+     * Same as {@link #removeNodes(Predicate)} for the nodes at the set indexes. Nodes before the
+     * first removed one keep their index; edges are compacted in one pass over the edge arrays.
+     */
+    public int removeNodes(BitSet indexes) {
+        int first = indexes.nextSetBit(0);
+        if (first < 0 || first >= nodes.size()) {
+            return 0;
+        }
+        int[] remap = new int[nodes.size()];
+        for (int n = 0; n < first; n++) {
+            remap[n] = n;
+        }
+        int kept = first;
+        for (int n = first; n < nodes.size(); n++) {
+            GraphNode node = nodes.get(n);
+            if (indexes.get(n)) {
+                remap[n] = -1;
+                nodeIndex.remove(node.id());
+            } else {
+                nodes.set(kept, node);
+                nodeIndex.put(node.id(), kept);
+                remap[n] = kept++;
+            }
+        }
+        int removed = nodes.size() - kept;
+        nodes.subList(kept, nodes.size()).clear();
+
+        int keptEdges = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            int from = remap[edgeFrom[e]];
+            int to = remap[edgeTo[e]];
+            if (from >= 0 && to >= 0) {
+                edgeFrom[keptEdges] = from;
+                edgeTo[keptEdges] = to;
+                edgeLabel[keptEdges] = edgeLabel[e];
+                keptEdges++;
+            }
+        }
+        edgeCount = keptEdges;
+        rehash(edgeSlots.length);
+        outgoing = null;
+        incoming = null;
+        return removed;
     }
 
-    public void addEdge(GraphEdge edge) {
-        edges.add(edge);
+    @Override
+    public int nodeCount() {
+        return nodes.size();
     }
 
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int indexOf(String id) {
+        Integer index = nodeIndex.get(id);
+        return index == null ? -1 : index;
+    }
+
+    @Override
+    public GraphNode node(int index) {
+        return nodes.get(index);
+    }
+
+    @Override
+    public GraphNodeType nodeType(int index) {
+        return nodes.get(index).type();
+    }
+
+    @Override
+    public int edgeFrom(int edge) {
+        return edgeFrom[checkEdge(edge)];
+    }
+
+    @Override
+    public int edgeTo(int edge) {
+        return edgeTo[checkEdge(edge)];
+    }
+
+    @Override
+    public String edgeLabel(int edge) {
+        return labels.get(edgeLabel[checkEdge(edge)]);
+    }
+
+    @Override
+    public int edgeLabelId(int edge) {
+        return edgeLabel[checkEdge(edge)];
+    }
+
+    @Override
+    public int labelCount() {
+        return labels.size();
+    }
+
+    @Override
+    public String label(int labelId) {
+        return labels.get(labelId);
+    }
+
+    public GraphEdge edge(int edge) {
+        checkEdge(edge);
+        return new GraphEdge(nodes.get(edgeFrom[edge]).id(), nodes.get(edgeTo[edge]).id(), labels.get(edgeLabel[edge]));
+    }
+
+    @Override
+    public int outDegree(int node) {
+        return outgoing().degree(node);
+    }
+
+    @Override
+    public int outEdge(int node, int k) {
+        return outgoing().edge(node, k);
+    }
+
+    @Override
+    public int inDegree(int node) {
+        return incoming().degree(node);
+    }
+
+    @Override
+    public int inEdge(int node, int k) {
+        return incoming().edge(node, k);
+    }
+
+    /** Read-only view in insertion order; it reflects later additions. */
     public List<GraphNode> nodes() {
-        return List.copyOf(nodes);
+        return Collections.unmodifiableList(nodes);
     }
 
+    /** Read-only view in insertion order; edges are materialized on access. */
     public List<GraphEdge> edges() {
-        return List.copyOf(edges);
+        return new AbstractList<>() {
+            @Override
+            public GraphEdge get(int index) {
+                return edge(index);
+            }
+
+            @Override
+            public int size() {
+                return edgeCount;
+            }
+        };
+    }
+
+    private int requireIndex(String id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown node: " + id);
+        }
+        return index;
+    }
+
+    private int checkEdge(int edge) {
+        if (edge < 0 || edge >= edgeCount) {
+            throw new IndexOutOfBoundsException("Edge " + edge + " outside " + edgeCount + " edges");
+        }
+        return edge;
+    }
+
+    private void rehash(int capacity) {
+        edgeSlots = new int[capacity];
+        int mask = edgeSlots.length - 1;
+        for (int e = 0; e < edgeCount; e++) {
+            int slot = hash(edgeFrom[e], edgeTo[e], edgeLabel[e]) & mask;
+            while (edgeSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            edgeSlots[slot] = e + 1;
+        }
+    }
+
+    private static int hash(int from, int to, int label) {
+        int h = ((from * 31 + to) * 31 + label) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Adjacency outgoing() {
+        if (outgoing == null) {
+            outgoing = new Adjacency(nodes.size(), edgeFrom, edgeCount);
+        }
+        return outgoing;
+    }
+
+    private Adjacency incoming() {
+        if (incoming == null) {
+            incoming = new Adjacency(nodes.size(), edgeTo, edgeCount);
+        }
+        return incoming;
+    }
+
+    // Compressed sparse rows: the edges of node n are edges[offsets[n] .. offsets[n + 1]).
+    private static final class Adjacency {
+        private final int[] offsets;
+        private final int[] edges;
+
+        Adjacency(int nodeCount, int[] endpoint, int edgeCount) {
+            offsets = new int[nodeCount + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                offsets[endpoint[e] + 1]++;
+            }
+            for (int n = 0; n < nodeCount; n++) {
+                offsets[n + 1] += offsets[n];
+            }
+            edges = new int[edgeCount];
+            int[] next = Arrays.copyOf(offsets, nodeCount);
+            for (int e = 0; e < edgeCount; e++) {
+                edges[next[endpoint[e]]++] = e;
+            }
+        }
+
+        int degree(int node) {
+            return offsets[node + 1] - offsets[node];
+        }
+
+        int edge(int node, int k) {
+            if (k < 0 || k >= degree(node)) {
+                throw new IndexOutOfBoundsException("Edge " + k + " of node " + node);
+            }
+            return edges[offsets[node] + k];
+        }
     }
 }
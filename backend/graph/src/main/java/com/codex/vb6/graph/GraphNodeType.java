@@ -6,5 +6,6 @@ public enum GraphNodeType {
     EVENT,
     MODULE,
     ROUTINE,
+    /** A call, show or load target that does not resolve to a routine or form of the project. */
     CALL_TARGET
 }
@@ -0,0 +1,213 @@
+package com.codex.vb6.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Impact queries over the call graph built by {@link GraphBuilder}.
+ *
+ * <p>Queries follow control-flow edges only: {@code CALL}, {@code SHOW} and {@code LOAD}, plus
+ * {@code HAS_EVENT} so that showing a form reaches its event handlers. All traversals are
+ * iterative with int-array work lists and {@link BitSet} visited sets, so graph size is bounded
+ * by heap rather than stack depth.
+ */
+public final class GraphQuery {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final Set<String> FLOW_LABELS = Set.of("CALL", "SHOW", "LOAD", "HAS_EVENT");
+
+    /** Nodes found by a traversal in breadth-first order, with their distance from the start. */
+    public record Reach(int[] nodes, int[] depths) {
+    }
+
+    private GraphQuery() {
+    }
+
+    /** Everything {@code node} can invoke, directly or within {@code maxDepth} steps. */
+    public static Reach callees(GraphView model, int node, int maxDepth) {
+        return traverse(model, new int[]{node}, maxDepth, true);
+    }
+
+    /** Everything that can invoke {@code node}, directly or within {@code maxDepth} steps. */
+    public static Reach callers(GraphView model, int node, int maxDepth) {
+        return traverse(model, new int[]{node}, maxDepth, false);
+    }
+
+    /** Everything reachable from a node; for a form this covers all of its events. */
+    public static Reach reachable(GraphView model, int node) {
+        return callees(model, node, UNLIMITED);
+    }
+
+    /**
+     * Routines that cannot be reached from any form event or from a {@code Main} routine.
+     * Routines only called through unresolved targets are reported as well.
+     */
+    public static int[] deadRoutines(GraphView model) {
+        int[] roots = new int[16];
+        int rootCount = 0;
+        for (int n = 0; n < model.nodeCount(); n++) {
+            GraphNodeType type = model.nodeType(n);
+            boolean root = type == GraphNodeType.EVENT
+                    || (type == GraphNodeType.ROUTINE && "Main".equalsIgnoreCase(model.node(n).label()));
+            if (root) {
+                if (rootCount == roots.length) {
+                    roots = Arrays.copyOf(roots, rootCount * 2);
+                }
+                roots[rootCount++] = n;
+            }
+        }
+        BitSet live = new BitSet(model.nodeCount());
+        int[] seeds = Arrays.copyOf(roots, rootCount);
+        for (int n : seeds) {
+            live.set(n);
+        }
+        for (int n : traverse(model, seeds, UNLIMITED, true).nodes()) {
+            live.set(n);
+        }
+
+        int[] dead = new int[16];
+        int deadCount = 0;
+        for (int n = live.nextClearBit(0); n < model.nodeCount(); n = live.nextClearBit(n + 1)) {
+            if (model.nodeType(n) == GraphNodeType.ROUTINE) {
+                if (deadCount == dead.length) {
+                    dead = Arrays.copyOf(dead, deadCount * 2);
+                }
+                dead[deadCount++] = n;
+            }
+        }
+        return Arrays.copyOf(dead, deadCount);
+    }
+
+    /**
+     * Strongly connected components that contain a cycle (more than one node, or a node that
+     * invokes itself), found with an iterative Tarjan walk. Each component is sorted by node index.
+     */
+    public static List<int[]> cycles(GraphView model) {
+        boolean[] flow = flowLabels(model);
+        int nodeCount = model.nodeCount();
+        int[] index = new int[nodeCount];
+        Arrays.fill(index, -1);
+        int[] low = new int[nodeCount];
+        int[] stack = new int[nodeCount];
+        BitSet onStack = new BitSet(nodeCount);
+        int[] frameNode = new int[nodeCount];
+        int[] frameEdge = new int[nodeCount];
+        int counter = 0;
+        int stackSize = 0;
+        List<int[]> components = new ArrayList<>();
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int frames = 0;
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack.set(root);
+            frameNode[frames] = root;
+            frameEdge[frames++] = 0;
+
+            while (frames > 0) {
+                int v = frameNode[frames - 1];
+                int k = frameEdge[frames - 1];
+                if (k < model.outDegree(v)) {
+                    frameEdge[frames - 1]++;
+                    int e = model.outEdge(v, k);
+                    if (!flow[model.edgeLabelId(e)]) {
+                        continue;
+                    }
+                    int w = model.edgeTo(e);
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack.set(w);
+                        frameNode[frames] = w;
+                        frameEdge[frames++] = 0;
+                    } else if (onStack.get(w)) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                frames--;
+                if (low[v] == index[v]) {
+                    int start = stackSize;
+                    do {
+                        onStack.clear(stack[--start]);
+                    } while (stack[start] != v);
+                    int[] component = Arrays.copyOfRange(stack, start, stackSize);
+                    stackSize = start;
+                    if (component.length > 1 || invokesItself(model, flow, v)) {
+                        Arrays.sort(component);
+                        components.add(component);
+                    }
+                }
+                if (frames > 0) {
+                    int parent = frameNode[frames - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+        return components;
+    }
+
+    private static Reach traverse(GraphView model, int[] seeds, int maxDepth, boolean forward) {
+        boolean[] flow = flowLabels(model);
+        BitSet visited = new BitSet(model.nodeCount());
+        int[] queue = new int[Math.max(16, seeds.length * 2)];
+        int[] depths = new int[queue.length];
+        int tail = 0;
+        for (int seed : seeds) {
+            visited.set(seed);
+            queue[tail++] = seed;
+        }
+
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            int depth = depths[head];
+            if (depth >= maxDepth) {
+                continue;
+            }
+            int degree = forward ? model.outDegree(node) : model.inDegree(node);
+            for (int k = 0; k < degree; k++) {
+                int e = forward ? model.outEdge(node, k) : model.inEdge(node, k);
+                if (!flow[model.edgeLabelId(e)]) {
+                    continue;
+                }
+                int next = forward ? model.edgeTo(e) : model.edgeFrom(e);
+                if (visited.get(next)) {
+                    continue;
+                }
+                visited.set(next);
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, tail * 2);
+                    depths = Arrays.copyOf(depths, tail * 2);
+                }
+                queue[tail] = next;
+                depths[tail++] = depth + 1;
+            }
+        }
+        return new Reach(Arrays.copyOfRange(queue, seeds.length, tail), Arrays.copyOfRange(depths, seeds.length, tail));
+    }
+
+    private static boolean invokesItself(GraphView model, boolean[] flow, int node) {
+        for (int k = 0; k < model.outDegree(node); k++) {
+            int e = model.outEdge(node, k);
+            if (model.edgeTo(e) == node && flow[model.edgeLabelId(e)]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean[] flowLabels(GraphView model) {
+        boolean[] flow = new boolean[model.labelCount()];
+        for (int label = 0; label < flow.length; label++) {
+            flow[label] = FLOW_LABELS.contains(model.label(label));
+        }
+        return flow;
+    }
+}
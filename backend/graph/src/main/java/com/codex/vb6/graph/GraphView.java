@@ -0,0 +1,41 @@
+package com.codex.vb6.graph;
+
+/**
+ * Read access to a call graph by dense node, edge and label indexes, implemented by the in-memory
+ * {@link GraphModel} and by a memory-mapped {@link Snapshot}.
+ */
+public interface GraphView {
+    int nodeCount();
+
+    int edgeCount();
+
+    GraphNode node(int index);
+
+    GraphNodeType nodeType(int index);
+
+    /** Returns the index of the node with this id, or -1. */
+    int indexOf(String id);
+
+    int edgeFrom(int edge);
+
+    int edgeTo(int edge);
+
+    String edgeLabel(int edge);
+
+    /** Returns the interned label index of the edge, in {@code [0, labelCount())}. */
+    int edgeLabelId(int edge);
+
+    int labelCount();
+
+    String label(int labelId);
+
+    int outDegree(int node);
+
+    /** Returns the index of the {@code k}-th edge leaving {@code node}, in insertion order. */
+    int outEdge(int node, int k);
+
+    int inDegree(int node);
+
+    /** Returns the index of the {@code k}-th edge entering {@code node}, in insertion order. */
+    int inEdge(int node, int k);
+}
@@ -0,0 +1,41 @@
+package com.codex.vb6.graph;
+
+/**
+ * Layout limits for {@link MermaidRenderer#render(GraphModel, MermaidOptions)}.
+ *
+ * <p>{@code collapseFanIn} folds the incoming edges of any {@code CALL_TARGET} with more callers
+ * than that into one summary edge from its project (0 disables it). {@code maxNodes} and
+ * {@code maxEdges} bound each diagram; larger graphs are split into several diagrams.
+ */
+public record MermaidOptions(boolean clusterProjects, int collapseFanIn, int maxNodes, int maxEdges) {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    public MermaidOptions {
+        if (collapseFanIn < 0) {
+            throw new IllegalArgumentException("collapseFanIn must be >= 0: " + collapseFanIn);
+        }
+        if (maxNodes < 2 || maxEdges < 1) {
+            throw new IllegalArgumentException("budget too small: " + maxNodes + " nodes, " + maxEdges + " edges");
+        }
+    }
+
+    public static MermaidOptions defaults() {
+        return new MermaidOptions(false, 0, UNLIMITED, UNLIMITED);
+    }
+
+    public MermaidOptions withClusterProjects(boolean value) {
+        return new MermaidOptions(value, collapseFanIn, maxNodes, maxEdges);
+    }
+
+    public MermaidOptions withCollapseFanIn(int value) {
+        return new MermaidOptions(clusterProjects, value, maxNodes, maxEdges);
+    }
+
+    public MermaidOptions withMaxNodes(int value) {
+        return new MermaidOptions(clusterProjects, collapseFanIn, value, maxEdges);
+    }
+
+    public MermaidOptions withMaxEdges(int value) {
+        return new MermaidOptions(clusterProjects, collapseFanIn, maxNodes, value);
+    }
+}
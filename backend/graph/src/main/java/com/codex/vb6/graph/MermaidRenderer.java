@@ -1,25 +1,275 @@
 package com.codex.vb6.graph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
 public final class MermaidRenderer {
     private MermaidRenderer() {
     }
 
     public static String render(GraphModel model) {
+        String[] ids = new String[model.nodeCount()];
         StringBuilder builder = new StringBuilder();
         builder.append("```mermaid\n");
         builder.append("graph TD\n");
 
-        for (GraphEdge edge : model.edges()) {
-            builder.append("  ").append(sanitize(edge.fromId())).append(" -->|")
-                    .append(edge.label()).append("| ")
-                    .append(sanitize(edge.toId())).append("\n");
+        for (int e = 0; e < model.edgeCount(); e++) {
+            builder.append("  ").append(id(model, ids, model.edgeFrom(e))).append(" -->|")
+                    .append(model.edgeLabel(e)).append("| ")
+                    .append(id(model, ids, model.edgeTo(e))).append("\n");
         }
 
         builder.append("```\n");
         return builder.toString();
     }
 
-    private static String sanitize(String value) {
-        return value.replaceAll("[^A-Za-z0-9_]", "_");
+    /**
+     * Renders the graph as one or more {@code graph TD} diagrams (without code fences), each
+     * within the node and edge budget. Edges are grouped by the project that owns their source
+     * node, so a project only spans several diagrams when it alone exceeds the budget.
+     */
+    public static List<String> render(GraphModel model, MermaidOptions options) {
+        String[] ids = new String[model.nodeCount()];
+        int[] owner = projectOwners(model);
+        int[] callers = new int[model.nodeCount()];
+        int[] collapsed = collapsedTargets(model, options, owner, callers);
+        int[] edges = edgesByProject(model, owner);
+
+        Chunker chunker = new Chunker(model, options, ids, owner);
+        int next = 0;
+        for (int e : edges) {
+            int group = groupOf(model, owner, model.edgeFrom(e));
+            while (next < collapsed.length && owner[collapsed[next]] < group) {
+                chunker.addSummary(owner[collapsed[next]], collapsed[next], callers[collapsed[next]]);
+                next++;
+            }
+            if (callers[model.edgeTo(e)] == 0) {
+                chunker.addEdge(e);
+            }
+        }
+        for (; next < collapsed.length; next++) {
+            chunker.addSummary(owner[collapsed[next]], collapsed[next], callers[collapsed[next]]);
+        }
+        return chunker.finish();
+    }
+
+    /**
+     * Mermaid-safe identifier: every code point outside {@code [A-Za-z0-9_]} becomes {@code _}.
+     * This is what {@code value.replaceAll("[^A-Za-z0-9_]", "_")} returns, since regex character
+     * classes also match a surrogate pair as one character.
+     */
+    public static String sanitize(String value) {
+        StringBuilder builder = null;
+        int i = 0;
+        while (i < value.length()) {
+            int ch = value.codePointAt(i);
+            boolean safe = (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9') || ch == '_';
+            if (!safe && builder == null) {
+                builder = new StringBuilder(value.length()).append(value, 0, i);
+            }
+            if (builder != null) {
+                builder.append(safe ? (char) ch : '_');
+            }
+            i += Character.charCount(ch);
+        }
+        return builder == null ? value : builder.toString();
+    }
+
+    private static String id(GraphModel model, String[] ids, int node) {
+        String id = ids[node];
+        if (id == null) {
+            id = sanitize(model.node(node).id());
+            ids[node] = id;
+        }
+        return id;
+    }
+
+    // Every node is reached from its project through outgoing edges; -1 for nodes outside any project.
+    private static int[] projectOwners(GraphModel model) {
+        int[] owner = new int[model.nodeCount()];
+        Arrays.fill(owner, -1);
+        int[] queue = new int[model.nodeCount()];
+        for (int project = 0; project < model.nodeCount(); project++) {
+            if (model.node(project).type() != GraphNodeType.PROJECT || owner[project] >= 0) {
+                continue;
+            }
+            owner[project] = project;
+            queue[0] = project;
+            int tail = 1;
+            for (int head = 0; head < tail; head++) {
+                int node = queue[head];
+                for (int k = 0; k < model.outDegree(node); k++) {
+                    int next = model.edgeTo(model.outEdge(node, k));
+                    if (owner[next] < 0) {
+                        owner[next] = project;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return owner;
+    }
+
+    // Fills callers[] for CALL_TARGET nodes above the fan-in limit and returns them ordered by owner.
+    private static int[] collapsedTargets(GraphModel model, MermaidOptions options, int[] owner, int[] callers) {
+        if (options.collapseFanIn() == 0) {
+            return new int[0];
+        }
+        List<Integer> collapsed = new ArrayList<>();
+        for (int n = 0; n < model.nodeCount(); n++) {
+            if (model.node(n).type() == GraphNodeType.CALL_TARGET && owner[n] >= 0
+                    && model.inDegree(n) > options.collapseFanIn()) {
+                callers[n] = model.inDegree(n);
+                collapsed.add(n);
+            }
+        }
+        return collapsed.stream()
+                .sorted((a, b) -> Integer.compare(owner[a], owner[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    // Counting sort of edge indexes by the owner of their source; edges outside projects come last.
+    private static int[] edgesByProject(GraphModel model, int[] owner) {
+        int groups = model.nodeCount() + 1;
+        int[] start = new int[groups + 1];
+        for (int e = 0; e < model.edgeCount(); e++) {
+            start[groupOf(model, owner, model.edgeFrom(e)) + 1]++;
+        }
+        for (int g = 0; g < groups; g++) {
+            start[g + 1] += start[g];
+        }
+        int[] sorted = new int[model.edgeCount()];
+        for (int e = 0; e < model.edgeCount(); e++) {
+            sorted[start[groupOf(model, owner, model.edgeFrom(e))]++] = e;
+        }
+        return sorted;
+    }
+
+    private static int groupOf(GraphModel model, int[] owner, int node) {
+        return owner[node] >= 0 ? owner[node] : model.nodeCount();
+    }
+
+    private static final class Chunker {
+        private final GraphModel model;
+        private final MermaidOptions options;
+        private final String[] ids;
+        private final int[] owner;
+        private final List<String> diagrams = new ArrayList<>();
+        private final BitSet inChunk = new BitSet();
+        private final StringBuilder edgeLines = new StringBuilder();
+        private int[] chunkNodes = new int[64];
+        private int nodeCount;
+        private int edgeCount;
+
+        Chunker(GraphModel model, MermaidOptions options, String[] ids, int[] owner) {
+            this.model = model;
+            this.options = options;
+            this.ids = ids;
+            this.owner = owner;
+        }
+
+        void addEdge(int edge) {
+            int from = model.edgeFrom(edge);
+            int to = model.edgeTo(edge);
+            reserve(from, to);
+            edgeLines.append("  ").append(id(model, ids, from)).append(" -->|")
+                    .append(model.edgeLabel(edge)).append("| ")
+                    .append(id(model, ids, to)).append('\n');
+        }
+
+        void addSummary(int project, int target, int callers) {
+            reserve(project, target);
+            edgeLines.append("  ").append(id(model, ids, project)).append(" -.->|")
+                    .append(callers).append(" callers| ")
+                    .append(id(model, ids, target)).append('\n');
+        }
+
+        List<String> finish() {
+            if (edgeCount > 0 || diagrams.isEmpty()) {
+                flush();
+            }
+            return diagrams;
+        }
+
+        private void reserve(int from, int to) {
+            int added = (inChunk.get(from) ? 0 : 1) + (to == from || inChunk.get(to) ? 0 : 1);
+            if (edgeCount > 0 && (edgeCount + 1 > options.maxEdges() || nodeCount + added > options.maxNodes())) {
+                flush();
+            }
+            include(from);
+            include(to);
+            edgeCount++;
+        }
+
+        private void include(int node) {
+            if (inChunk.get(node)) {
+                return;
+            }
+            inChunk.set(node);
+            if (nodeCount == chunkNodes.length) {
+                chunkNodes = Arrays.copyOf(chunkNodes, nodeCount * 2);
+            }
+            chunkNodes[nodeCount++] = node;
+        }
+
+        private void flush() {
+            StringBuilder builder = new StringBuilder(edgeLines.length() + nodeCount * 32 + 16);
+            builder.append("graph TD\n");
+            int[] nodes = Arrays.copyOf(chunkNodes, nodeCount);
+            if (options.clusterProjects()) {
+                // Owner first, node index second; nodes outside any project sort ahead and stay unclustered.
+                long[] keys = new long[nodes.length];
+                for (int i = 0; i < nodes.length; i++) {
+                    keys[i] = ((long) (owner[nodes[i]] + 1) << 32) | nodes[i];
+                }
+                Arrays.sort(keys);
+                int current = -1;
+                for (long key : keys) {
+                    int node = (int) key;
+                    int project = (int) (key >>> 32) - 1;
+                    if (project != current) {
+                        if (current >= 0) {
+                            builder.append("  end\n");
+                        }
+                        current = project;
+                        if (project >= 0) {
+                            builder.append("  subgraph ").append(id(model, ids, project)).append("_cluster[\"")
+                                    .append(escapeLabel(model.node(project).label())).append("\"]\n");
+                        }
+                    }
+                    builder.append(project >= 0 ? "    " : "  ");
+                    declare(builder, node);
+                }
+                if (current >= 0) {
+                    builder.append("  end\n");
+                }
+            } else {
+                for (int node : nodes) {
+                    builder.append("  ");
+                    declare(builder, node);
+                }
+            }
+            builder.append(edgeLines);
+            diagrams.add(builder.toString());
+
+            for (int node : nodes) {
+                inChunk.clear(node);
+            }
+            nodeCount = 0;
+            edgeCount = 0;
+            edgeLines.setLength(0);
+        }
+
+        private void declare(StringBuilder builder, int node) {
+            builder.append(id(model, ids, node)).append("[\"")
+                    .append(escapeLabel(model.node(node).label())).append("\"]\n");
+        }
+    }
+
+    static String escapeLabel(String label) {
+        return label == null ? "" : label.replace("\"", "#quot;");
     }
 }
@@ -0,0 +1,514 @@
+package com.codex.vb6.graph;
+
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectCodec;
+import com.codex.vb6.extractor.ProjectSummary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a {@link ProjectAnalysis} and its {@link GraphModel}, read through a memory
+ * mapping. Opening one only checks the header, so it takes the same time for any size; the graph
+ * is answered straight from the mapped arrays and a project is decoded when it is asked for.
+ *
+ * <p>Layout, all integers big-endian: a header with counts and section offsets; labels; nodes as
+ * (id, label, type) triples; an open-addressing table from id hash to node; edges as (from, to,
+ * label) triples; outgoing and incoming adjacency in compressed rows; a (path, name, record offset)
+ * index of the projects; the project records as varints, see {@link ProjectCodec}; and last the
+ * string table, an offset array over UTF-8 data. Strings are stored once and referred to by index
+ * everywhere else. Files are limited to 2 GB, the size of one mapping.
+ */
+public final class Snapshot implements GraphView {
+    private static final int MAGIC = 0x5642534E;
+    private static final int VERSION = 1;
+    private static final GraphNodeType[] NODE_TYPES = GraphNodeType.values();
+
+    private static final int STRING_COUNT = 8;
+    private static final int LABEL_COUNT = 12;
+    private static final int NODE_COUNT = 16;
+    private static final int EDGE_COUNT = 20;
+    private static final int PROJECT_COUNT = 24;
+    private static final int SLOT_COUNT = 28;
+    // Section offsets follow the counts, in file order.
+    private static final int SECTIONS = 32;
+    private static final int SECTION_COUNT = 11;
+    private static final int HEADER_SIZE = SECTIONS + 4 * SECTION_COUNT;
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int labelCount;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int projectCount;
+    private final int slotCount;
+    private final int labels;
+    private final int nodes;
+    private final int slots;
+    private final int edges;
+    private final int outOffsets;
+    private final int outEdges;
+    private final int inOffsets;
+    private final int inEdges;
+    private final int projects;
+    private final int records;
+    private final int stringOffsets;
+    private final int stringData;
+
+    private Snapshot(Path file, ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a snapshot of this version: " + file);
+        }
+        stringCount = buffer.getInt(STRING_COUNT);
+        labelCount = buffer.getInt(LABEL_COUNT);
+        nodeCount = buffer.getInt(NODE_COUNT);
+        edgeCount = buffer.getInt(EDGE_COUNT);
+        projectCount = buffer.getInt(PROJECT_COUNT);
+        slotCount = buffer.getInt(SLOT_COUNT);
+        // indexOf probes until an empty slot, so the table needs a power-of-two size above the node count.
+        if (nodeCount < 0 || slotCount <= nodeCount || Integer.bitCount(slotCount) != 1) {
+            throw corrupt(file, slotCount + " lookup slots for " + nodeCount + " nodes");
+        }
+        int[] offsets = new int[SECTION_COUNT];
+        for (int s = 0; s < SECTION_COUNT; s++) {
+            offsets[s] = buffer.getInt(SECTIONS + 4 * s);
+        }
+        long[] sizes = sectionSizes(labelCount, nodeCount, slotCount, edgeCount, projectCount,
+                (long) offsets[10] - offsets[9], stringCount);
+        long end = HEADER_SIZE;
+        for (int s = 0; s < SECTION_COUNT; s++) {
+            if (offsets[s] != end || sizes[s] < 0) {
+                throw corrupt(file, "section " + s + " at offset " + offsets[s] + " with " + sizes[s]
+                        + " bytes, expected offset " + end);
+            }
+            end += sizes[s];
+            if (end > buffer.capacity()) {
+                throw corrupt(file, "section " + s + " ends at " + end + ", past the " + buffer.capacity()
+                        + " bytes of the file");
+            }
+        }
+        labels = offsets[0];
+        nodes = offsets[1];
+        slots = offsets[2];
+        edges = offsets[3];
+        outOffsets = offsets[4];
+        outEdges = offsets[5];
+        inOffsets = offsets[6];
+        inEdges = offsets[7];
+        projects = offsets[8];
+        records = offsets[9];
+        stringOffsets = offsets[10];
+        stringData = (int) end;
+        long stringBytes = buffer.getInt(stringOffsets + 4 * stringCount);
+        if (buffer.getInt(stringOffsets) != 0 || stringData + stringBytes != buffer.capacity()) {
+            throw corrupt(file, stringBytes + " bytes of strings at offset " + stringData + " in a file of "
+                    + buffer.capacity() + " bytes");
+        }
+    }
+
+    private static IOException corrupt(Path file, String detail) {
+        return new IOException("Corrupt snapshot " + file + ": " + detail);
+    }
+
+    // Byte sizes of the sections in file order; counts read from a damaged header can make them negative.
+    private static long[] sectionSizes(int labelCount, int nodeCount, int slotCount, int edgeCount,
+                                       int projectCount, long recordSize, int stringCount) {
+        return new long[]{4L * labelCount, 12L * nodeCount, 4L * slotCount, 12L * edgeCount,
+                4L * (nodeCount + 1L), 4L * edgeCount, 4L * (nodeCount + 1L), 4L * edgeCount,
+                12L * projectCount, recordSize, 4L * (stringCount + 1L)};
+    }
+
+    public static Snapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2 GB: " + file);
+            }
+            // The mapping stays valid after the channel is closed.
+            return new Snapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** Writes the analysis and the graph built from it; the file is replaced atomically. */
+    public static void write(Path file, ProjectAnalysis analysis, GraphModel graph) throws IOException {
+        new Writer(analysis, graph).write(file);
+    }
+
+    public int projectCount() {
+        return projectCount;
+    }
+
+    public String projectPath(int project) {
+        return string(buffer.getInt(projectEntry(project)));
+    }
+
+    public String projectName(int project) {
+        return string(buffer.getInt(projectEntry(project) + 4));
+    }
+
+    /** Decodes one project. */
+    public ProjectSummary project(int project) {
+        try {
+            return ProjectCodec.read(new Cursor(records + buffer.getInt(projectEntry(project) + 8)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt snapshot record " + project, e);
+        }
+    }
+
+    /** Decodes every project. */
+    public ProjectAnalysis analysis() {
+        List<ProjectSummary> result = new ArrayList<>(projectCount);
+        for (int p = 0; p < projectCount; p++) {
+            result.add(project(p));
+        }
+        return new ProjectAnalysis(List.copyOf(result));
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public GraphNode node(int index) {
+        int node = nodes + 12 * checkNode(index);
+        return new GraphNode(string(buffer.getInt(node)), NODE_TYPES[buffer.getInt(node + 8)],
+                string(buffer.getInt(node + 4)));
+    }
+
+    @Override
+    public GraphNodeType nodeType(int index) {
+        return NODE_TYPES[buffer.getInt(nodes + 12 * checkNode(index) + 8)];
+    }
+
+    // Compares UTF-8 bytes in place, so a lookup decodes no strings.
+    @Override
+    public int indexOf(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int mask = slotCount - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int node = buffer.getInt(slots + 4 * slot) - 1;
+            if (node < 0) {
+                return -1;
+            }
+            if (stringEquals(buffer.getInt(nodes + 12 * node), key)) {
+                return node;
+            }
+        }
+    }
+
+    @Override
+    public int edgeFrom(int edge) {
+        return buffer.getInt(edges + 12 * checkEdge(edge));
+    }
+
+    @Override
+    public int edgeTo(int edge) {
+        return buffer.getInt(edges + 12 * checkEdge(edge) + 4);
+    }
+
+    @Override
+    public String edgeLabel(int edge) {
+        return label(edgeLabelId(edge));
+    }
+
+    @Override
+    public int edgeLabelId(int edge) {
+        return buffer.getInt(edges + 12 * checkEdge(edge) + 8);
+    }
+
+    @Override
+    public int labelCount() {
+        return labelCount;
+    }
+
+    @Override
+    public String label(int labelId) {
+        if (labelId < 0 || labelId >= labelCount) {
+            throw new IndexOutOfBoundsException("Label " + labelId + " outside " + labelCount + " labels");
+        }
+        return string(buffer.getInt(labels + 4 * labelId));
+    }
+
+    @Override
+    public int outDegree(int node) {
+        return degree(outOffsets, checkNode(node));
+    }
+
+    @Override
+    public int outEdge(int node, int k) {
+        return adjacent(outOffsets, outEdges, node, k);
+    }
+
+    @Override
+    public int inDegree(int node) {
+        return degree(inOffsets, checkNode(node));
+    }
+
+    @Override
+    public int inEdge(int node, int k) {
+        return adjacent(inOffsets, inEdges, node, k);
+    }
+
+    private int degree(int offsets, int node) {
+        return buffer.getInt(offsets + 4 * node + 4) - buffer.getInt(offsets + 4 * node);
+    }
+
+    private int adjacent(int offsets, int adjacency, int node, int k) {
+        if (k < 0 || k >= degree(offsets, checkNode(node))) {
+            throw new IndexOutOfBoundsException("Edge " + k + " of node " + node);
+        }
+        return buffer.getInt(adjacency + 4 * (buffer.getInt(offsets + 4 * node) + k));
+    }
+
+    private String string(int index) {
+        if (index < 0) {
+            return null;
+        }
+        int start = buffer.getInt(stringOffsets + 4 * index);
+        byte[] bytes = new byte[buffer.getInt(stringOffsets + 4 * index + 4) - start];
+        buffer.get(stringData + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean stringEquals(int index, byte[] key) {
+        int start = buffer.getInt(stringOffsets + 4 * index);
+        if (buffer.getInt(stringOffsets + 4 * index + 4) - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(stringData + start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int projectEntry(int project) {
+        if (project < 0 || project >= projectCount) {
+            throw new IndexOutOfBoundsException("Project " + project + " outside " + projectCount + " projects");
+        }
+        return projects + 12 * project;
+    }
+
+    private int checkNode(int node) {
+        if (node < 0 || node >= nodeCount) {
+            throw new IndexOutOfBoundsException("Node " + node + " outside " + nodeCount + " nodes");
+        }
+        return node;
+    }
+
+    private int checkEdge(int edge) {
+        if (edge < 0 || edge >= edgeCount) {
+            throw new IndexOutOfBoundsException("Edge " + edge + " outside " + edgeCount + " edges");
+        }
+        return edge;
+    }
+
+    // FNV-1a over the UTF-8 bytes; part of the format, so it must not change between versions.
+    private static int hash(byte[] bytes) {
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xFF)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    // Reads a project record; string references are index + 1, with 0 for null.
+    private final class Cursor implements ProjectCodec.Input {
+        private int position;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public int varint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        @Override
+        public String string() {
+            return Snapshot.this.string(varint() - 1);
+        }
+    }
+
+    private static final class Writer implements ProjectCodec.Output {
+        private final ProjectAnalysis analysis;
+        private final GraphModel graph;
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private byte[] records = new byte[4096];
+        private int recordSize;
+
+        Writer(ProjectAnalysis analysis, GraphModel graph) {
+            this.analysis = analysis;
+            this.graph = graph;
+        }
+
+        void write(Path file) throws IOException {
+            int projectCount = analysis.projects().size();
+            int[] projectIndex = new int[projectCount * 3];
+            for (int p = 0; p < projectCount; p++) {
+                ProjectSummary project = analysis.projects().get(p);
+                projectIndex[3 * p] = id(project.vbpPath());
+                projectIndex[3 * p + 1] = id(project.project().name());
+                projectIndex[3 * p + 2] = recordSize;
+                ProjectCodec.write(this, project);
+            }
+            int nodeCount = graph.nodeCount();
+            int edgeCount = graph.edgeCount();
+            int labelCount = graph.labelCount();
+            int[] labelIds = new int[labelCount];
+            for (int l = 0; l < labelCount; l++) {
+                labelIds[l] = id(graph.label(l));
+            }
+            int[] nodeIds = new int[nodeCount * 3];
+            for (int n = 0; n < nodeCount; n++) {
+                GraphNode node = graph.node(n);
+                nodeIds[3 * n] = id(node.id());
+                nodeIds[3 * n + 1] = id(node.label());
+                nodeIds[3 * n + 2] = node.type().ordinal();
+            }
+            byte[][] encoded = new byte[strings.size()][];
+            long stringBytes = 0;
+            for (int s = 0; s < encoded.length; s++) {
+                encoded[s] = strings.get(s).getBytes(StandardCharsets.UTF_8);
+                stringBytes += encoded[s].length;
+            }
+            int slotCount = Integer.highestOneBit(Math.max(2 * nodeCount, 1) * 2 - 1);
+            int[] slots = new int[slotCount];
+            for (int n = 0; n < nodeCount; n++) {
+                int slot = hash(encoded[nodeIds[3 * n]]) & (slotCount - 1);
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & (slotCount - 1);
+                }
+                slots[slot] = n + 1;
+            }
+
+            long[] sections = new long[SECTION_COUNT];
+            long offset = HEADER_SIZE;
+            long[] sizes = sectionSizes(labelCount, nodeCount, slotCount, edgeCount, projectCount, recordSize,
+                    strings.size());
+            for (int s = 0; s < SECTION_COUNT; s++) {
+                sections[s] = offset;
+                offset += sizes[s];
+            }
+            if (offset + stringBytes > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot would exceed 2 GB");
+            }
+
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                for (int count : new int[]{strings.size(), labelCount, nodeCount, edgeCount, projectCount, slotCount}) {
+                    out.writeInt(count);
+                }
+                for (long section : sections) {
+                    out.writeInt((int) section);
+                }
+                writeInts(out, labelIds);
+                writeInts(out, nodeIds);
+                writeInts(out, slots);
+                for (int e = 0; e < edgeCount; e++) {
+                    out.writeInt(graph.edgeFrom(e));
+                    out.writeInt(graph.edgeTo(e));
+                    out.writeInt(graph.edgeLabelId(e));
+                }
+                writeAdjacency(out, true);
+                writeAdjacency(out, false);
+                writeInts(out, projectIndex);
+                out.write(records, 0, recordSize);
+                int stringOffset = 0;
+                out.writeInt(0);
+                for (byte[] bytes : encoded) {
+                    stringOffset += bytes.length;
+                    out.writeInt(stringOffset);
+                }
+                for (byte[] bytes : encoded) {
+                    out.write(bytes);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public void varint(int value) {
+            if (recordSize + 5 > records.length) {
+                records = Arrays.copyOf(records, records.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                records[recordSize++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            records[recordSize++] = (byte) value;
+        }
+
+        @Override
+        public void string(String value) {
+            varint(id(value) + 1);
+        }
+
+        private int id(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return stringIndex.computeIfAbsent(value, key -> {
+                strings.add(key);
+                return strings.size() - 1;
+            });
+        }
+
+        private void writeAdjacency(DataOutputStream out, boolean outgoing) throws IOException {
+            int total = 0;
+            out.writeInt(0);
+            for (int n = 0; n < graph.nodeCount(); n++) {
+                total += outgoing ? graph.outDegree(n) : graph.inDegree(n);
+                out.writeInt(total);
+            }
+            for (int n = 0; n < graph.nodeCount(); n++) {
+                int degree = outgoing ? graph.outDegree(n) : graph.inDegree(n);
+                for (int k = 0; k < degree; k++) {
+                    out.writeInt(outgoing ? graph.outEdge(n, k) : graph.inEdge(n, k));
+                }
+            }
+        }
+
+        private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+            for (int value : values) {
+                out.writeInt(value);
+            }
+        }
+    }
+}
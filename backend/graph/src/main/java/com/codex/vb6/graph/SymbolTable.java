@@ -0,0 +1,70 @@
+package com.codex.vb6.graph;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Case-insensitive index of the forms, modules and routines declared in one project, mapping
+ * call targets to graph node indexes.
+ *
+ * <p>Unqualified routine names are looked up in the calling module first and then across the
+ * project; a name declared in more than one module is ambiguous and does not resolve.
+ */
+public final class SymbolTable {
+    public static final int UNRESOLVED = -1;
+
+    private static final int AMBIGUOUS = -2;
+
+    private final Map<String, Integer> forms = new HashMap<>();
+    private final Map<String, Map<String, Integer>> modules = new HashMap<>();
+    private final Map<String, Integer> routines = new HashMap<>();
+
+    public void addForm(String formName, int node) {
+        if (formName != null) {
+            forms.putIfAbsent(key(formName), node);
+        }
+    }
+
+    public void addRoutine(String moduleName, String routineName, int node) {
+        if (moduleName == null || routineName == null) {
+            return;
+        }
+        String routine = key(routineName);
+        Map<String, Integer> declared = modules.computeIfAbsent(key(moduleName), name -> new HashMap<>());
+        if (declared.putIfAbsent(routine, node) == null) {
+            routines.merge(routine, node, (first, second) -> first.equals(second) ? first : AMBIGUOUS);
+        }
+    }
+
+    /** Resolves a {@code SHOW} or {@code LOAD} target. */
+    public int form(String target) {
+        return forms.getOrDefault(key(target), UNRESOLVED);
+    }
+
+    /**
+     * Resolves a {@code CALL} target, either {@code Routine} or {@code Module.Routine}.
+     * {@code callingModule} is null when the call is made from a form.
+     */
+    public int routine(String target, String callingModule) {
+        int dot = target.indexOf('.');
+        if (dot >= 0) {
+            Map<String, Integer> declared = modules.get(key(target.substring(0, dot)));
+            return declared == null ? UNRESOLVED : declared.getOrDefault(key(target.substring(dot + 1)), UNRESOLVED);
+        }
+        String routine = key(target);
+        if (callingModule != null) {
+            Map<String, Integer> declared = modules.get(key(callingModule));
+            Integer local = declared == null ? null : declared.get(routine);
+            if (local != null) {
+                return local;
+            }
+        }
+        int global = routines.getOrDefault(routine, UNRESOLVED);
+        return global == AMBIGUOUS ? UNRESOLVED : global;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,71 @@
+package com.codex.vb6.graph;
+
+import com.codex.vb6.extractor.BasCall;
+import com.codex.vb6.extractor.CallKind;
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectAnalyzer;
+import com.codex.vb6.extractor.ProjectSummary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphBuilderBuiltinsTest {
+    private static final String PROJECT = "project:\"Demo\"";
+    private static final String LOG = PROJECT + ":module:Logging:routine:Log";
+
+    @TempDir
+    Path root;
+
+    @Test
+    void userRoutineNamedLikeBuiltinIsLinked() throws IOException {
+        write("Demo.vbp", "Type=Exe", "Name=\"Demo\"", "Form=frmMain.frm", "Module=Logging; Logging.bas",
+                "Module=Startup; Startup.bas");
+        write("Logging.bas", "Attribute VB_Name = \"Logging\"", "Public Sub Log(ByVal message As String)",
+                "    Debug.Print(message)", "End Sub");
+        write("Startup.bas", "Attribute VB_Name = \"Startup\"", "Public Sub Main()", "    Call Log(\"start\")",
+                "    MsgBox(\"ready\")", "End Sub");
+        write("frmMain.frm", "Begin VB.Form frmMain", "End", "Attribute VB_Name = \"frmMain\"",
+                "Private Sub Form_Load()", "    Log(\"loaded\")", "End Sub");
+
+        ProjectAnalysis analysis = ProjectAnalyzer.analyze(root);
+        ProjectSummary project = analysis.projects().get(0);
+        List<BasCall> mainCalls = project.modules().stream()
+                .filter(module -> module.moduleName().equals("Startup"))
+                .findFirst().orElseThrow().routines().get(0).calls();
+        assertEquals(List.of(CallKind.BUILTIN, CallKind.BUILTIN), mainCalls.stream().map(BasCall::kind).toList());
+
+        GraphModel graph = GraphBuilder.build(analysis);
+        assertTrue(hasEdge(graph, PROJECT + ":module:Startup:routine:Main", LOG, "CALL"));
+        assertTrue(hasEdge(graph, PROJECT + ":form:frmMain:event:Form_Load", LOG, "CALL"));
+        // Built-ins the project does not declare stay out of the graph.
+        assertEquals(-1, graph.indexOf(PROJECT + ":call:MsgBox"));
+        assertEquals(-1, graph.indexOf(PROJECT + ":call:Debug.Print"));
+        // Call flows follow the resolved calls, so Log is not reported as dead code.
+        assertTrue(GraphQuery.callers(graph, graph.indexOf(LOG), GraphQuery.UNLIMITED).nodes().length >= 2);
+        assertTrue(Arrays.stream(GraphQuery.deadRoutines(graph)).noneMatch(node -> node == graph.indexOf(LOG)));
+    }
+
+    private static boolean hasEdge(GraphModel graph, String from, String to, String label) {
+        int node = graph.indexOf(from);
+        for (int k = 0; node >= 0 && k < graph.outDegree(node); k++) {
+            int edge = graph.outEdge(node, k);
+            if (graph.node(graph.edgeTo(edge)).id().equals(to) && graph.edgeLabel(edge).equals(label)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void write(String name, String... lines) throws IOException {
+        Files.write(root.resolve(name), List.of(lines), StandardCharsets.UTF_8);
+    }
+}
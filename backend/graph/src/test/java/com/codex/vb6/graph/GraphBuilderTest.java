@@ -0,0 +1,86 @@
+package com.codex.vb6.graph;
+
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectAnalyzer;
+import com.codex.vb6.extractor.ProjectSummary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GraphBuilderTest {
+    private static final int PROJECTS = 16;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void parallelBuildMatchesSequentialOrder() throws IOException {
+        ProjectAnalysis analysis = sample();
+        GraphModel sequential = GraphBuilder.build(analysis);
+        for (int parallelism : new int[] {1, 2, 4, 8}) {
+            GraphModel parallel = GraphBuilder.build(analysis, parallelism);
+            assertEquals(sequential.nodes(), parallel.nodes(), "parallelism " + parallelism);
+            assertEquals(sequential.edges(), parallel.edges(), "parallelism " + parallelism);
+        }
+    }
+
+    @Test
+    void addingProjectsOneByOneMatchesBuild() throws IOException {
+        ProjectAnalysis analysis = sample();
+        GraphModel model = new GraphModel();
+        for (ProjectSummary project : analysis.projects()) {
+            GraphBuilder.addProject(model, project);
+        }
+        GraphModel built = GraphBuilder.build(analysis);
+        assertEquals(built.nodes(), model.nodes());
+        assertEquals(built.edges(), model.edges());
+    }
+
+    @Test
+    void replacedProjectsMoveToTheEnd() throws IOException {
+        ProjectAnalysis analysis = sample();
+        GraphModel model = GraphBuilder.build(analysis);
+        ProjectSummary changed = analysis.projects().get(3);
+        GraphBuilder.replaceProjects(model, analysis, analysis, Set.of(GraphBuilder.projectId(changed)));
+
+        GraphModel expected = new GraphModel();
+        for (ProjectSummary project : analysis.projects()) {
+            if (project != changed) {
+                GraphBuilder.addProject(expected, project);
+            }
+        }
+        GraphBuilder.addProject(expected, changed);
+        assertEquals(expected.nodes(), model.nodes());
+        assertEquals(expected.edges(), model.edges());
+    }
+
+    private ProjectAnalysis sample() throws IOException {
+        write("Common/Util.bas", "Attribute VB_Name = \"Util\"", "Public Sub Log(ByVal s As String)",
+                "    Debug.Print s", "End Sub");
+        for (int p = 0; p < PROJECTS; p++) {
+            String dir = "p" + (p < 10 ? "0" : "") + p + "/";
+            write(dir + "P.vbp", "Type=Exe", "Name=\"P" + p + "\"", "Form=frmMain.frm", "Module=Mod; Mod.bas",
+                    "Module=Util; ../Common/Util.bas");
+            write(dir + "frmMain.frm", "Begin VB.Form frmMain", "End", "Attribute VB_Name = \"frmMain\"",
+                    "Private Sub Form_Load()", "    Call Mod.Init", "    frmOther.Show", "End Sub",
+                    "Private Sub cmdOK_Click()", "    Log(\"ok\")", "    Work" + (p % 3) + "(1)", "End Sub");
+            write(dir + "Mod.bas", "Attribute VB_Name = \"Mod\"", "Public Sub Init()", "    Call Util.Log(\"init\")",
+                    "    Call Helper", "End Sub", "Private Sub Helper()", "    Call Init", "End Sub");
+        }
+        return ProjectAnalyzer.analyze(root);
+    }
+
+    private void write(String name, String... lines) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,73 @@
+package com.codex.vb6.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphModelTest {
+    private static final GraphNode MAIN = new GraphNode("p:module:M:routine:Main", GraphNodeType.ROUTINE, "Main");
+    private static final GraphNode LOG = new GraphNode("p:call:Log", GraphNodeType.CALL_TARGET, "Log");
+
+    @Test
+    void firstNodeForAnIdWins() {
+        GraphModel graph = new GraphModel();
+        assertEquals(0, graph.addNode(MAIN));
+        assertEquals(1, graph.addNode(LOG));
+        assertEquals(1, graph.addNode(new GraphNode(LOG.id(), GraphNodeType.ROUTINE, "Other")));
+        assertEquals(List.of(MAIN, LOG), graph.nodes());
+        assertEquals(1, graph.indexOf(LOG.id()));
+        assertEquals(-1, graph.indexOf("p:call:Missing"));
+    }
+
+    @Test
+    void identicalEdgesAreKeptOnce() {
+        GraphModel graph = new GraphModel();
+        graph.addNode(MAIN);
+        graph.addNode(LOG);
+        assertTrue(graph.addEdge(new GraphEdge(MAIN.id(), LOG.id(), "CALL")));
+        assertFalse(graph.addEdge(new GraphEdge(MAIN.id(), LOG.id(), "CALL")));
+        assertFalse(graph.addEdge(0, 1, "CALL"));
+        assertTrue(graph.addEdge(0, 1, "SHOW"));
+        assertTrue(graph.addEdge(1, 0, "CALL"));
+        assertEquals(List.of(new GraphEdge(MAIN.id(), LOG.id(), "CALL"), new GraphEdge(MAIN.id(), LOG.id(), "SHOW"),
+                new GraphEdge(LOG.id(), MAIN.id(), "CALL")), graph.edges());
+        assertEquals(2, graph.outDegree(0));
+        assertEquals(1, graph.inDegree(0));
+    }
+
+    @Test
+    void edgesToUnknownNodesAreRejected() {
+        GraphModel graph = new GraphModel();
+        graph.addNode(MAIN);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> graph.addEdge(new GraphEdge(MAIN.id(), "p:call:Missing", "CALL")));
+        assertTrue(e.getMessage().contains("p:call:Missing"), e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> graph.addEdge(new GraphEdge("p:call:Missing", MAIN.id(), "CALL")));
+        assertThrows(IndexOutOfBoundsException.class, () -> graph.addEdge(0, 1, "CALL"));
+        assertEquals(0, graph.edgeCount());
+    }
+
+    @Test
+    void mergedGraphsKeepNodesAndEdgesOnce() {
+        GraphModel first = new GraphModel();
+        first.addNode(MAIN);
+        first.addNode(LOG);
+        first.addEdge(0, 1, "CALL");
+        GraphModel second = new GraphModel();
+        second.addNode(LOG);
+        second.addNode(MAIN);
+        second.addEdge(1, 0, "CALL");
+        second.addEdge(0, 1, "CALL");
+
+        first.addAll(second);
+        assertEquals(List.of(MAIN, LOG), first.nodes());
+        assertEquals(List.of(new GraphEdge(MAIN.id(), LOG.id(), "CALL"), new GraphEdge(LOG.id(), MAIN.id(), "CALL")),
+                first.edges());
+    }
+}
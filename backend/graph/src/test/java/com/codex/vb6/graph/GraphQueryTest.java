@@ -0,0 +1,87 @@
+package com.codex.vb6.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GraphQueryTest {
+    private static final int LOAD = 0;
+    private static final int A = 1;
+    private static final int B = 2;
+    private static final int C = 3;
+    private static final int UNUSED = 4;
+    private static final int MAIN = 5;
+    private static final int SETUP = 6;
+    private static final int RECURSE = 7;
+    private static final int MODULE = 8;
+
+    @Test
+    void breadthFirstWalksRespectDepthAndDirection() {
+        GraphModel graph = sample();
+        assertReach(GraphQuery.callees(graph, LOAD, 1), new int[] {A}, new int[] {1});
+        assertReach(GraphQuery.callees(graph, LOAD, GraphQuery.UNLIMITED), new int[] {A, B, C}, new int[] {1, 2, 3});
+        // The module's SUB edge to A is structure, not a call.
+        assertReach(GraphQuery.callers(graph, A, GraphQuery.UNLIMITED),
+                new int[] {LOAD, C, UNUSED, B}, new int[] {1, 1, 1, 2});
+        assertReach(GraphQuery.callers(graph, A, 0), new int[0], new int[0]);
+        assertReach(GraphQuery.reachable(graph, MAIN), new int[] {SETUP}, new int[] {1});
+    }
+
+    @Test
+    void cyclesAreComponentsWithALoop() {
+        List<int[]> cycles = GraphQuery.cycles(sample());
+        assertEquals(2, cycles.size());
+        assertArrayEquals(new int[] {A, B, C}, cycles.get(0));
+        assertArrayEquals(new int[] {RECURSE}, cycles.get(1));
+    }
+
+    @Test
+    void deadRoutinesAreNotReachableFromEventsOrMain() {
+        assertArrayEquals(new int[] {UNUSED, RECURSE}, GraphQuery.deadRoutines(sample()));
+    }
+
+    @Test
+    void longChainsDoNotRecurse() {
+        int length = 200_000;
+        GraphModel graph = new GraphModel();
+        for (int n = 0; n < length; n++) {
+            graph.addNode(new GraphNode("r" + n, GraphNodeType.ROUTINE, "R" + n));
+        }
+        for (int n = 0; n < length; n++) {
+            graph.addEdge(n, (n + 1) % length, "CALL");
+        }
+        List<int[]> cycles = GraphQuery.cycles(graph);
+        assertEquals(1, cycles.size());
+        assertEquals(length, cycles.get(0).length);
+        GraphQuery.Reach reach = GraphQuery.callees(graph, 0, GraphQuery.UNLIMITED);
+        assertEquals(length - 1, reach.nodes().length);
+        assertEquals(length - 1, reach.depths()[length - 2]);
+    }
+
+    // Form_Load -> A -> B -> C -> A, Unused -> A, Main -> Setup, Recurse -> Recurse.
+    private static GraphModel sample() {
+        GraphModel graph = new GraphModel();
+        graph.addNode(new GraphNode("form:event:Form_Load", GraphNodeType.EVENT, "Form_Load"));
+        for (String name : List.of("A", "B", "C", "Unused", "Main", "Setup", "Recurse")) {
+            graph.addNode(new GraphNode("routine:" + name, GraphNodeType.ROUTINE, name));
+        }
+        graph.addNode(new GraphNode("module:M", GraphNodeType.MODULE, "M"));
+        graph.addEdge(LOAD, A, "CALL");
+        graph.addEdge(A, B, "CALL");
+        graph.addEdge(B, C, "CALL");
+        graph.addEdge(C, A, "CALL");
+        graph.addEdge(UNUSED, A, "CALL");
+        graph.addEdge(MAIN, SETUP, "CALL");
+        graph.addEdge(RECURSE, RECURSE, "CALL");
+        graph.addEdge(MODULE, A, "SUB");
+        return graph;
+    }
+
+    private static void assertReach(GraphQuery.Reach reach, int[] nodes, int[] depths) {
+        assertArrayEquals(nodes, reach.nodes());
+        assertArrayEquals(depths, reach.depths());
+    }
+}
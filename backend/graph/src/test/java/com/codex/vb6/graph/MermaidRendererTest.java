@@ -0,0 +1,96 @@
+package com.codex.vb6.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MermaidRendererTest {
+    @Test
+    void unlimitedBudgetRendersOneDiagram() {
+        GraphModel graph = sample();
+        List<String> diagrams = MermaidRenderer.render(graph, MermaidOptions.defaults());
+        assertEquals(1, diagrams.size());
+        assertTrue(diagrams.get(0).startsWith("graph TD\n"));
+        assertEquals(graph.edgeCount(), edgeLines(diagrams).size());
+        assertEquals(graph.nodeCount(), nodeLines(diagrams.get(0)).size());
+    }
+
+    @Test
+    void diagramsAreSplitWithinTheBudget() {
+        GraphModel graph = sample();
+        List<String> whole = edgeLines(MermaidRenderer.render(graph, MermaidOptions.defaults()));
+        for (MermaidOptions budget : List.of(MermaidOptions.defaults().withMaxEdges(3),
+                MermaidOptions.defaults().withMaxNodes(4))) {
+            List<String> diagrams = MermaidRenderer.render(graph, budget);
+            assertTrue(diagrams.size() > 1, budget.toString());
+            for (String diagram : diagrams) {
+                assertTrue(edgeLines(List.of(diagram)).size() <= budget.maxEdges(), diagram);
+                assertTrue(nodeLines(diagram).size() <= budget.maxNodes(), diagram);
+            }
+            // Splitting keeps every edge once and in order.
+            assertEquals(whole, edgeLines(diagrams));
+        }
+    }
+
+    @Test
+    void fanInAboveTheLimitCollapsesToOneSummaryEdge() {
+        List<String> lines = edgeLines(
+                MermaidRenderer.render(sample(), MermaidOptions.defaults().withCollapseFanIn(3)));
+        assertTrue(lines.contains("  project_A -.->|5 callers| project_A_call_Log"), lines.toString());
+        assertTrue(lines.stream().noneMatch(line -> line.endsWith("|CALL| project_A_call_Log")), lines.toString());
+        // Project B's target has a single caller and keeps its edge.
+        assertTrue(lines.contains("  project_B_routine_Main -->|CALL| project_B_call_Log"), lines.toString());
+    }
+
+    @Test
+    void projectsAreClusteredAsSubgraphs() {
+        String diagram = MermaidRenderer.render(sample(), MermaidOptions.defaults().withClusterProjects(true)).get(0);
+        assertTrue(diagram.contains("  subgraph project_A_cluster[\"A\"]\n    project_A[\"A\"]\n"), diagram);
+        assertTrue(diagram.contains("  subgraph project_B_cluster[\"B #quot;beta#quot;\"]\n"), diagram);
+        assertEquals(2, diagram.lines().filter(line -> line.equals("  end")).count());
+    }
+
+    @Test
+    void sanitizeMatchesTheRegexItReplaced() {
+        String emoji = new String(Character.toChars(0x1F600));
+        for (String value : List.of("project:\"Demo\":form:frmMain", "Mod_1.Calc", "", "中文", "a" + emoji + "b",
+                "x\ud83dy", "\ude00", "é")) {
+            assertEquals(value.replaceAll("[^A-Za-z0-9_]", "_"), MermaidRenderer.sanitize(value), value);
+        }
+        assertEquals("a_b", MermaidRenderer.sanitize("a" + emoji + "b"));
+    }
+
+    // Project A: five routines calling Log; project B: Main calling its own Log.
+    private static GraphModel sample() {
+        GraphModel graph = new GraphModel();
+        int a = graph.addNode(new GraphNode("project:A", GraphNodeType.PROJECT, "A"));
+        int log = graph.addNode(new GraphNode("project:A:call:Log", GraphNodeType.CALL_TARGET, "Log"));
+        for (int r = 0; r < 5; r++) {
+            int routine = graph.addNode(new GraphNode("project:A:routine:R" + r, GraphNodeType.ROUTINE, "R" + r));
+            graph.addEdge(a, routine, "SUB");
+            graph.addEdge(routine, log, "CALL");
+        }
+        int b = graph.addNode(new GraphNode("project:B", GraphNodeType.PROJECT, "B \"beta\""));
+        int main = graph.addNode(new GraphNode("project:B:routine:Main", GraphNodeType.ROUTINE, "Main"));
+        int bLog = graph.addNode(new GraphNode("project:B:call:Log", GraphNodeType.CALL_TARGET, "Log"));
+        graph.addEdge(b, main, "SUB");
+        graph.addEdge(main, bLog, "CALL");
+        return graph;
+    }
+
+    private static List<String> edgeLines(List<String> diagrams) {
+        List<String> lines = new ArrayList<>();
+        for (String diagram : diagrams) {
+            diagram.lines().filter(line -> line.contains("->")).forEach(lines::add);
+        }
+        return lines;
+    }
+
+    private static List<String> nodeLines(String diagram) {
+        return diagram.lines().filter(line -> line.endsWith("\"]") && !line.contains("subgraph")).toList();
+    }
+}
@@ -0,0 +1,60 @@
+package com.codex.vb6.graph;
+
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectAnalyzer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotTest {
+    @TempDir
+    Path root;
+
+    @Test
+    void damagedHeaderIsReportedAsCorrupt() throws IOException {
+        Files.write(root.resolve("Demo.vbp"), List.of("Type=Exe", "Name=\"Demo\"", "Module=Main; Main.bas"),
+                StandardCharsets.UTF_8);
+        Files.write(root.resolve("Main.bas"), List.of("Attribute VB_Name = \"Main\"", "Public Sub Main()",
+                "    Call Helper", "End Sub", "Private Sub Helper()", "End Sub"), StandardCharsets.UTF_8);
+        ProjectAnalysis analysis = ProjectAnalyzer.analyze(root);
+        GraphModel graph = GraphBuilder.build(analysis);
+        Path file = root.resolve("analysis.snap");
+        Snapshot.write(file, analysis, graph);
+        assertEquals(graph.nodeCount(), Snapshot.open(file).nodeCount());
+        byte[] valid = Files.readAllBytes(file);
+
+        // Edge section offset beyond the file.
+        assertCorrupt(file, patch(valid, 32 + 4 * 3, Integer.MAX_VALUE));
+        // A node count whose sections cannot fit in the file.
+        assertCorrupt(file, patch(valid, 16, 1 << 20));
+        // A negative edge count.
+        assertCorrupt(file, patch(valid, 20, -1));
+        // Lookup table too small to terminate a probe.
+        assertCorrupt(file, patch(valid, 28, 1));
+        // Truncated string data.
+        assertCorrupt(file, Arrays.copyOf(valid, valid.length - 1));
+    }
+
+    private static byte[] patch(byte[] bytes, int offset, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(offset, value);
+        return copy;
+    }
+
+    private static void assertCorrupt(Path file, byte[] content) throws IOException {
+        Files.write(file, content);
+        IOException e = assertThrows(IOException.class, () -> Snapshot.open(file));
+        assertTrue(e.getMessage().startsWith("Corrupt snapshot " + file), e.getMessage());
+    }
+}
@@ -0,0 +1,50 @@
+package com.codex.vb6.graph;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SymbolTableTest {
+    @Test
+    void callingModuleIsSearchedFirst() {
+        SymbolTable symbols = new SymbolTable();
+        symbols.addRoutine("Util", "Init", 1);
+        symbols.addRoutine("Main", "Init", 2);
+        symbols.addRoutine("Main", "Start", 3);
+
+        assertEquals(2, symbols.routine("Init", "Main"));
+        assertEquals(1, symbols.routine("init", "UTIL"));
+        assertEquals(3, symbols.routine("Start", "Util"));
+        assertEquals(3, symbols.routine("START", null));
+    }
+
+    @Test
+    void nameDeclaredInSeveralModulesIsAmbiguous() {
+        SymbolTable symbols = new SymbolTable();
+        symbols.addRoutine("Util", "Init", 1);
+        symbols.addRoutine("Main", "Init", 2);
+        symbols.addRoutine("Util", "Init", 5);
+
+        assertEquals(SymbolTable.UNRESOLVED, symbols.routine("Init", null));
+        assertEquals(SymbolTable.UNRESOLVED, symbols.routine("Init", "Other"));
+        assertEquals(1, symbols.routine("Util.Init", null));
+        assertEquals(2, symbols.routine("main.init", "Other"));
+    }
+
+    @Test
+    void unknownNamesStayUnresolved() {
+        SymbolTable symbols = new SymbolTable();
+        symbols.addRoutine("Util", "Init", 1);
+        symbols.addRoutine(null, "Orphan", 2);
+        symbols.addForm("frmMain", 4);
+        symbols.addForm("FRMMAIN", 6);
+        symbols.addForm(null, 7);
+
+        assertEquals(SymbolTable.UNRESOLVED, symbols.routine("Missing", "Util"));
+        assertEquals(SymbolTable.UNRESOLVED, symbols.routine("Missing.Init", null));
+        assertEquals(SymbolTable.UNRESOLVED, symbols.routine("Util.Missing", null));
+        assertEquals(SymbolTable.UNRESOLVED, symbols.routine("Orphan", null));
+        assertEquals(4, symbols.form("FrmMain"));
+        assertEquals(SymbolTable.UNRESOLVED, symbols.form("frmOther"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.codex.vb6.parser;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class DecodeStats {
+    private final Map<String, Counters> byCharset = new ConcurrentHashMap<>();
+
+    void record(String charset, long bytes, long nanos) {
+        Counters counters = byCharset.computeIfAbsent(charset, key -> new Counters());
+        counters.files.increment();
+        counters.bytes.add(bytes);
+        counters.nanos.add(nanos);
+    }
+
+    public List<CharsetThroughput> snapshot() {
+        List<CharsetThroughput> result = new ArrayList<>();
+        for (Map.Entry<String, Counters> entry : byCharset.entrySet()) {
+            Counters counters = entry.getValue();
+            result.add(new CharsetThroughput(entry.getKey(), counters.files.sum(),
+                    counters.bytes.sum(), counters.nanos.sum()));
+        }
+        result.sort(Comparator.comparing(CharsetThroughput::charset));
+        return result;
+    }
+
+    public record CharsetThroughput(String charset, long files, long bytes, long nanos) {
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : (bytes / 1_048_576.0) / (nanos / 1_000_000_000.0);
+        }
+    }
+
+    private static final class Counters {
+        private final LongAdder files = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+}
@@ -0,0 +1,115 @@
+package com.codex.vb6.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-run charset policy for VB6 sources.
+ *
+ * <p>The VB6 IDE saves files in the ANSI code page of the machine, so the run's default code page
+ * is used unless the head of a file says otherwise: a byte-order mark, or high bytes that form
+ * valid UTF-8. Files whose sampled head is plain ASCII also use the default code page, because
+ * every supported code page is ASCII-compatible and non-ASCII text may appear further down.
+ */
+public final class SourceEncoding {
+    private static final int SAMPLE_BYTES = 8 * 1024;
+    private static final Map<String, String> ALIASES = Map.of(
+            "cp950", "x-windows-950",
+            "big5", "x-windows-950",
+            "ms950", "x-windows-950",
+            "cp932", "windows-31j",
+            "shift-jis", "windows-31j",
+            "shift_jis", "windows-31j",
+            "sjis", "windows-31j",
+            "cp1252", "windows-1252");
+
+    private final Charset codePage;
+    private final DecodeStats stats = new DecodeStats();
+
+    private SourceEncoding(Charset codePage) {
+        this.codePage = codePage;
+    }
+
+    public static SourceEncoding defaults() {
+        return new SourceEncoding(StandardCharsets.UTF_8);
+    }
+
+    public static SourceEncoding withCodePage(Charset codePage) {
+        return new SourceEncoding(codePage);
+    }
+
+    /**
+     * Resolves a code page name. {@code cp950}/{@code big5} map to {@code x-windows-950} and
+     * {@code cp932}/{@code shift-jis} to {@code windows-31j}, the variants the VB6 IDE writes.
+     */
+    public static Charset charsetFor(String name) {
+        String alias = ALIASES.get(name.toLowerCase(Locale.ROOT));
+        return Charset.forName(alias != null ? alias : name);
+    }
+
+    public Charset codePage() {
+        return codePage;
+    }
+
+    public DecodeStats stats() {
+        return stats;
+    }
+
+    /**
+     * Picks the charset for a file from its first bytes and skips a UTF-8 byte-order mark.
+     * Only the buffer position may change; the content is not copied.
+     */
+    Charset detect(ByteBuffer head) {
+        int start = head.position();
+        int limit = Math.min(head.limit(), start + SAMPLE_BYTES);
+        int length = limit - start;
+
+        if (length >= 3 && (head.get(start) & 0xFF) == 0xEF && (head.get(start + 1) & 0xFF) == 0xBB
+                && (head.get(start + 2) & 0xFF) == 0xBF) {
+            head.position(start + 3);
+            return StandardCharsets.UTF_8;
+        }
+        if (length >= 2) {
+            int first = head.get(start) & 0xFF;
+            int second = head.get(start + 1) & 0xFF;
+            if ((first == 0xFF && second == 0xFE) || (first == 0xFE && second == 0xFF)) {
+                return StandardCharsets.UTF_16;
+            }
+        }
+
+        boolean multiByte = false;
+        int i = start;
+        while (i < limit) {
+            int b = head.get(i) & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+            int continuation;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+            } else {
+                return codePage;
+            }
+            for (int j = 1; j <= continuation; j++) {
+                if (i + j >= limit) {
+                    // A sequence cut off by the end of the sample is not evidence either way.
+                    return multiByte ? StandardCharsets.UTF_8 : codePage;
+                }
+                if ((head.get(i + j) & 0xC0) != 0x80) {
+                    return codePage;
+                }
+            }
+            multiByte = true;
+            i += continuation + 1;
+        }
+        return multiByte ? StandardCharsets.UTF_8 : codePage;
+    }
+}
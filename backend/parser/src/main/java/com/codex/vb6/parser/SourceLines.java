@@ -0,0 +1,202 @@
+package com.codex.vb6.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the lines of a source file without materializing them as {@code String}s.
+ *
+ * <p>The file is read in chunks of at most 64 KB and decoded into one reusable char buffer that
+ * only grows to fit the longest line, so heap use per file does not depend on the file size.
+ * Each line is handed to the visitor as a view into that buffer.
+ * Line splitting matches {@link java.io.BufferedReader#readLine()}; the charset is chosen per file
+ * by {@link SourceEncoding} and undecodable bytes become U+FFFD instead of failing the file.
+ */
+public final class SourceLines {
+    private static final int BYTE_CHUNK = 64 * 1024;
+    private static final int INITIAL_CHARS = 8 * 1024;
+
+    public interface Visitor {
+        /**
+         * Receives one line without its terminator. The sequence is only valid during the
+         * call; copy what needs to be kept with {@code subSequence}/{@code toString}.
+         */
+        void line(CharSequence line, int lineNumber);
+    }
+
+    private SourceLines() {
+    }
+
+    public static void forEach(Path path, SourceEncoding encoding, Visitor visitor) throws IOException {
+        Splitter splitter = new Splitter(visitor);
+        CharsetDecoder decoder = null;
+        long bytesRead = 0;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(BYTE_CHUNK, Math.max(channel.size(), 16)));
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                int read = channel.read(bytes);
+                endOfInput = read < 0;
+                bytesRead += Math.max(read, 0);
+                bytes.flip();
+                if (decoder == null) {
+                    // The first chunk doubles as the detection sample, so nothing is read twice.
+                    decoder = encoding.detect(bytes).newDecoder()
+                            .onMalformedInput(CodingErrorAction.REPLACE)
+                            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                }
+                splitter.decode(decoder, bytes, endOfInput);
+                // Bytes of a character split across chunks stay in the buffer for the next read.
+                bytes.compact();
+            }
+        }
+        splitter.finish(decoder);
+        encoding.stats().record(decoder.charset().name(), bytesRead, splitter.decodeNanos);
+    }
+
+    /**
+     * Same as {@link #forEach(Path, SourceEncoding, Visitor)} for a file that was already read into
+     * memory, e.g. by a read-ahead stage. {@code content} itself is not modified.
+     */
+    public static void forEach(ByteBuffer content, SourceEncoding encoding, Visitor visitor) throws IOException {
+        Splitter splitter = new Splitter(visitor);
+        ByteBuffer bytes = content.duplicate();
+        long size = bytes.remaining();
+        CharsetDecoder decoder = encoding.detect(bytes).newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        splitter.decode(decoder, bytes, true);
+        splitter.finish(decoder);
+        encoding.stats().record(decoder.charset().name(), size, splitter.decodeNanos);
+    }
+
+    private static final class Splitter {
+        private final Visitor visitor;
+        private final LineView view = new LineView();
+        private CharBuffer chars = CharBuffer.allocate(INITIAL_CHARS);
+        private boolean skipLineFeed;
+        private int lineNumber;
+        private long decodeNanos;
+
+        Splitter(Visitor visitor) {
+            this.visitor = visitor;
+        }
+
+        void decode(CharsetDecoder decoder, ByteBuffer bytes, boolean endOfInput) throws IOException {
+            while (true) {
+                long started = System.nanoTime();
+                CoderResult result = decoder.decode(bytes, chars, endOfInput);
+                decodeNanos += System.nanoTime() - started;
+                if (result.isError()) {
+                    result.throwException();
+                }
+                drain();
+                if (result.isUnderflow()) {
+                    return;
+                }
+            }
+        }
+
+        void finish(CharsetDecoder decoder) throws IOException {
+            while (true) {
+                CoderResult result = decoder.flush(chars);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                drain();
+                if (result.isUnderflow()) {
+                    break;
+                }
+            }
+            chars.flip();
+            if (chars.hasRemaining()) {
+                emit(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+            }
+        }
+
+        // Emits every complete line in the buffer and keeps the unterminated tail for the next round.
+        private void drain() {
+            chars.flip();
+            char[] array = chars.array();
+            int base = chars.arrayOffset();
+            int start = chars.position();
+            int limit = chars.limit();
+            for (int i = start; i < limit; i++) {
+                char c = array[base + i];
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (c == '\n') {
+                        start = i + 1;
+                        continue;
+                    }
+                }
+                if (c == '\n' || c == '\r') {
+                    emit(array, base + start, i - start);
+                    skipLineFeed = c == '\r';
+                    start = i + 1;
+                }
+            }
+            chars.position(start);
+            chars.compact();
+            // Two free slots at least: a supplementary character decodes as a surrogate pair, and
+            // with one slot left the decoder reports overflow without making progress.
+            if (chars.remaining() < 2) {
+                CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2);
+                chars.flip();
+                larger.put(chars);
+                chars = larger;
+            }
+        }
+
+        private void emit(char[] array, int offset, int length) {
+            view.reset(array, offset, length);
+            visitor.line(view, ++lineNumber);
+        }
+    }
+
+    private static final class LineView implements CharSequence {
+        private char[] array;
+        private int offset;
+        private int length;
+
+        void reset(char[] array, int offset, int length) {
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return array[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return new String(array, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(array, offset, length);
+        }
+    }
+}
@@ -1,47 +1,22 @@
 package com.codex.vb6.parser;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
 public final class VbpIndex {
     private VbpIndex() {
     }
 
     public static VbpProject parse(Path vbpPath) throws IOException {
-        List<String> lines = Files.readAllLines(vbpPath, StandardCharsets.UTF_8);
-        List<VbpEntry> entries = new ArrayList<>();
-        String name = null;
-        String startup = null;
-
-        for (String rawLine : lines) {
-            String line = rawLine.trim();
-            if (line.isEmpty() || line.startsWith("'")) {
-                continue;
-            }
-            int equals = line.indexOf('=');
-            if (equals < 0) {
-                continue;
-            }
-            String key = line.substring(0, equals).trim();
-            String value = line.substring(equals + 1).trim();
-
-            switch (key.toLowerCase(Locale.ROOT)) {
-                case "name" -> name = value;
-                case "startup" -> startup = value;
-                case "form" -> entries.add(buildEntry(VbpEntryType.FORM, value));
-                case "module" -> entries.add(buildEntry(VbpEntryType.MODULE, value));
-                case "class" -> entries.add(buildEntry(VbpEntryType.CLASS, value));
-                default -> {
-                }
-            }
-        }
+        return parse(vbpPath, SourceEncoding.defaults());
+    }
 
-        return new VbpProject(name, startup, List.copyOf(entries));
+    public static VbpProject parse(Path vbpPath, SourceEncoding encoding) throws IOException {
+        Parser parser = new Parser();
+        SourceLines.forEach(vbpPath, encoding, parser);
+        return new VbpProject(parser.name, parser.startup, List.copyOf(parser.entries));
     }
 
     private static VbpEntry buildEntry(VbpEntryType type, String value) {
@@ -56,4 +31,77 @@ public final class VbpIndex {
 
         return new VbpEntry(type, name, path);
     }
+
+    private static final class Parser implements SourceLines.Visitor {
+        private final List<VbpEntry> entries = new ArrayList<>();
+        private String name;
+        private String startup;
+
+        @Override
+        public void line(CharSequence line, int lineNumber) {
+            int start = 0;
+            int end = line.length();
+            while (start < end && line.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && line.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start == end || line.charAt(start) == '\'') {
+                return;
+            }
+            int equals = indexOf(line, '=', start, end);
+            if (equals < 0) {
+                return;
+            }
+
+            // Only the keys we keep are compared; values are copied out for those alone.
+            int keyStart = start;
+            int keyEnd = equals;
+            while (keyStart < keyEnd && line.charAt(keyStart) <= ' ') {
+                keyStart++;
+            }
+            while (keyEnd > keyStart && line.charAt(keyEnd - 1) <= ' ') {
+                keyEnd--;
+            }
+
+            if (isKey(line, keyStart, keyEnd, "name")) {
+                name = value(line, equals, end);
+            } else if (isKey(line, keyStart, keyEnd, "startup")) {
+                startup = value(line, equals, end);
+            } else if (isKey(line, keyStart, keyEnd, "form")) {
+                entries.add(buildEntry(VbpEntryType.FORM, value(line, equals, end)));
+            } else if (isKey(line, keyStart, keyEnd, "module")) {
+                entries.add(buildEntry(VbpEntryType.MODULE, value(line, equals, end)));
+            } else if (isKey(line, keyStart, keyEnd, "class")) {
+                entries.add(buildEntry(VbpEntryType.CLASS, value(line, equals, end)));
+            }
+        }
+
+        private static String value(CharSequence line, int equals, int end) {
+            return line.subSequence(equals + 1, end).toString().trim();
+        }
+
+        private static int indexOf(CharSequence line, char c, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (line.charAt(i) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static boolean isKey(CharSequence line, int start, int end, String lowerKey) {
+            if (end - start != lowerKey.length()) {
+                return false;
+            }
+            for (int i = 0; i < lowerKey.length(); i++) {
+                char c = line.charAt(start + i);
+                if (Character.toLowerCase(c) != lowerKey.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package com.codex.vb6.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class SourceLinesTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void supplementaryCharacterAtCharBufferBoundary() throws IOException {
+        // 8191 chars leave exactly one free slot in the initial 8K char buffer.
+        String text = "a".repeat(8191) + "😀" + "b\r\nsecond";
+        assertLines(text, List.of("a".repeat(8191) + "😀b", "second"));
+    }
+
+    @Test
+    void multiByteSequenceSplitAcrossByteChunk() throws IOException {
+        // U+4E2D is three UTF-8 bytes starting one byte before the 64K read boundary; the first
+        // line ends early so the sample still detects UTF-8.
+        String head = "中\n" + "a".repeat(64 * 1024 - 5);
+        String text = head + "中é\nlast";
+        assertLines(text, List.of("中", "a".repeat(64 * 1024 - 5) + "中é", "last"));
+    }
+
+    @Test
+    void supplementaryCharacterSplitAcrossByteChunk() throws IOException {
+        String text = "中\n" + "x".repeat(64 * 1024 - 6) + "😀\n" + "y".repeat(20000);
+        assertLines(text, List.of("中", "x".repeat(64 * 1024 - 6) + "😀", "y".repeat(20000)));
+    }
+
+    private void assertLines(String text, List<String> expected) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Path file = temp.resolve("source.bas");
+        Files.write(file, bytes);
+
+        List<String> fromFile = assertTimeoutPreemptively(TIMEOUT, () -> {
+            List<String> lines = new ArrayList<>();
+            SourceLines.forEach(file, SourceEncoding.defaults(), (line, number) -> lines.add(line.toString()));
+            return lines;
+        });
+        assertEquals(expected, fromFile);
+
+        List<String> fromBuffer = assertTimeoutPreemptively(TIMEOUT, () -> {
+            List<String> lines = new ArrayList<>();
+            SourceLines.forEach(ByteBuffer.wrap(bytes), SourceEncoding.defaults(),
+                    (line, number) -> lines.add(line.toString()));
+            return lines;
+        });
+        assertEquals(expected, fromBuffer);
+    }
+}
@@ -0,0 +1,265 @@
+package com.codex.vb6.server;
+
+import com.codex.vb6.cli.AnalysisJson;
+import com.codex.vb6.cli.JsonWriter;
+import com.codex.vb6.extractor.AnalyzerOptions;
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectSummary;
+import com.codex.vb6.extractor.VbBuiltins;
+import com.codex.vb6.parser.SourceEncoding;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP front end for {@link JobManager}, serving the same {@code /api/wiki/jobs} routes as the
+ * Python backend so the frontend can point at either.
+ */
+public final class AnalysisServer {
+    private static final String USAGE = "Usage: AnalysisServer [--port N] [--workers N] [--threads N] "
+            + "[--charset CODEPAGE] [--builtins drop|tag|keep] <root-dir>";
+    private static final String PREFIX = "/api/wiki/jobs";
+
+    private final Path root;
+    private final JobManager jobs;
+
+    private AnalysisServer(Path root, JobManager jobs) {
+        this.root = root;
+        this.jobs = jobs;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        String rootArg = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--port") || arg.equals("--workers") || arg.equals("--threads") || arg.equals("--charset")
+                    || arg.equals("--builtins")) {
+                if (i + 1 >= args.length) {
+                    fail("Missing value for " + arg);
+                }
+                options.put(arg, args[++i]);
+            } else if (arg.startsWith("--") || rootArg != null) {
+                fail(arg.startsWith("--") ? "Unknown option " + arg : null);
+            } else {
+                rootArg = arg;
+            }
+        }
+        if (rootArg == null) {
+            fail(null);
+        }
+        Path root = Path.of(rootArg).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            fail("Not a directory: " + root);
+        }
+        int port = intOption(options, "--port", 8000, 0);
+        int workers = intOption(options, "--workers", 2, 1);
+        AnalyzerOptions analyzerOptions = AnalyzerOptions.defaults()
+                .withParallelism(intOption(options, "--threads", 1, 1))
+                .withEncoding(encoding(options.get("--charset")))
+                .withBuiltins(builtins(options.get("--builtins")));
+
+        JobManager jobs = new JobManager(analyzerOptions, workers);
+        AnalysisServer server = new AnalysisServer(root, jobs);
+        HttpServer http = HttpServer.create(new InetSocketAddress(port), 0);
+        ExecutorService handlers = Executors.newFixedThreadPool(Math.max(4, workers * 2));
+        http.setExecutor(handlers);
+        http.createContext(PREFIX, server::handle);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            http.stop(0);
+            handlers.shutdownNow();
+            jobs.shutdown();
+        }));
+        http.start();
+        System.err.println("Serving " + root + " on port " + http.getAddress().getPort());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            String rest = exchange.getRequestURI().getPath().substring(PREFIX.length());
+            if (rest.isEmpty() || rest.equals("/")) {
+                switch (method) {
+                    case "GET" -> listJobs(exchange);
+                    case "POST" -> createJob(exchange);
+                    default -> detail(exchange, 405, "Method Not Allowed");
+                }
+                return;
+            }
+            String[] parts = rest.substring(1).split("/", -1);
+            Job job = parts.length <= 2 ? jobs.get(parts[0]) : null;
+            if (job == null || (parts.length == 2 && !parts[1].equals("result"))) {
+                detail(exchange, 404, parts.length <= 2 ? "Job not found" : "Not Found");
+                return;
+            }
+            if (parts.length == 2) {
+                if (method.equals("GET")) {
+                    result(exchange, job);
+                } else {
+                    detail(exchange, 405, "Method Not Allowed");
+                }
+                return;
+            }
+            switch (method) {
+                case "GET" -> respond(exchange, 200, json -> writeJob(json, job));
+                case "DELETE" -> {
+                    Job canceled = jobs.cancel(job.id());
+                    respond(exchange, 200, json -> writeJob(json, canceled));
+                }
+                default -> detail(exchange, 405, "Method Not Allowed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            // The client may already have the headers; there is nothing more useful to send.
+            System.err.println("Request failed: " + e);
+        }
+    }
+
+    private void listJobs(HttpExchange exchange) throws IOException {
+        respond(exchange, 200, json -> {
+            json.beginObject().name("jobs").beginArray();
+            for (Job job : jobs.list()) {
+                writeJob(json, job);
+            }
+            json.endArray().endObject();
+        });
+    }
+
+    // ?root= is resolved against the served root and must stay inside it; ?refresh=true skips the cache.
+    private void createJob(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        Path target = root.resolve(query.getOrDefault("root", "")).toAbsolutePath().normalize();
+        if (!target.startsWith(root)) {
+            detail(exchange, 400, "root must be inside " + root);
+            return;
+        }
+        if (!Files.isDirectory(target)) {
+            detail(exchange, 400, "Not a directory: " + target);
+            return;
+        }
+        Job job = jobs.submit(target, Boolean.parseBoolean(query.get("refresh")));
+        respond(exchange, 200, json -> json.beginObject().name("job_id").value(job.id()).endObject());
+    }
+
+    private static void result(HttpExchange exchange, Job job) throws IOException {
+        if (job.status() != Job.Status.COMPLETED) {
+            detail(exchange, 409, "Job is " + job.status().jsonName());
+            return;
+        }
+        ProjectAnalysis analysis = job.result();
+        respond(exchange, 200, json -> {
+            json.beginObject().name("root").value(job.root().toString()).name("projects").beginArray();
+            for (ProjectSummary project : analysis.projects()) {
+                AnalysisJson.writeSummary(json, project);
+            }
+            json.endArray().endObject();
+        });
+    }
+
+    private static void writeJob(JsonWriter json, Job job) throws IOException {
+        json.beginObject()
+                .name("job_id").value(job.id())
+                .name("status").value(job.status().jsonName())
+                .name("progress").value(job.progress())
+                .name("root").value(job.root().toString());
+        if (job.detail() != null) {
+            json.name("detail").value(job.detail());
+        }
+        json.endObject();
+    }
+
+    private interface Body {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    private static void detail(HttpExchange exchange, int status, String message) throws IOException {
+        respond(exchange, status, json -> json.beginObject().name("detail").value(message).endObject());
+    }
+
+    // Chunked, so large results stream straight from the analysis without buffering the document.
+    private static void respond(HttpExchange exchange, int status, Body body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        try (JsonWriter json = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)))) {
+            body.write(json);
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> values = new HashMap<>();
+        if (raw == null) {
+            return values;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            values.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue, int minimum) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= minimum) {
+                return parsed;
+            }
+            fail(name + " must be >= " + minimum);
+        } catch (NumberFormatException e) {
+            fail("Invalid number for " + name + ": " + value);
+        }
+        return defaultValue;
+    }
+
+    private static SourceEncoding encoding(String name) {
+        if (name == null) {
+            return SourceEncoding.defaults();
+        }
+        try {
+            return SourceEncoding.withCodePage(SourceEncoding.charsetFor(name));
+        } catch (IllegalArgumentException e) {
+            fail("Unsupported charset: " + name);
+            return null;
+        }
+    }
+
+    private static VbBuiltins builtins(String mode) {
+        if (mode == null) {
+            return VbBuiltins.defaults();
+        }
+        try {
+            return VbBuiltins.defaults().withMode(VbBuiltins.Mode.valueOf(mode.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            fail("Invalid value for --builtins: " + mode);
+            return null;
+        }
+    }
+
+    private static void fail(String message) {
+        if (message != null) {
+            System.err.println(message);
+        }
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+}
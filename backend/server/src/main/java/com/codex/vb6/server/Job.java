@@ -0,0 +1,123 @@
+package com.codex.vb6.server;
+
+import com.codex.vb6.extractor.ProjectAnalysis;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One analysis request. State is written by the worker running it and read by HTTP threads.
+ */
+final class Job {
+    enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELED;
+
+        boolean isFinal() {
+            return this == COMPLETED || this == FAILED || this == CANCELED;
+        }
+
+        String jsonName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final String id;
+    private final Path root;
+    private final boolean refresh;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile Status status = Status.QUEUED;
+    private volatile int progress;
+    private volatile String detail;
+    private volatile boolean cancelRequested;
+    private volatile ProjectAnalysis result;
+
+    Job(String id, Path root, boolean refresh) {
+        this.id = id;
+        this.root = root;
+        this.refresh = refresh;
+    }
+
+    String id() {
+        return id;
+    }
+
+    Path root() {
+        return root;
+    }
+
+    boolean refresh() {
+        return refresh;
+    }
+
+    Status status() {
+        return status;
+    }
+
+    int progress() {
+        return progress;
+    }
+
+    String detail() {
+        return detail;
+    }
+
+    /** The analysis of a completed job; kept until the job is evicted from the history. */
+    ProjectAnalysis result() {
+        return result;
+    }
+
+    boolean cancelRequested() {
+        return cancelRequested;
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+
+    /** Moves a queued job to RUNNING; false when it was canceled or finished first. */
+    synchronized boolean start() {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        status = Status.RUNNING;
+        return true;
+    }
+
+    /** Cancels a job no worker has started yet; false once it runs or has finished. */
+    synchronized boolean cancelQueued(String message) {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        finish(Status.CANCELED, message);
+        return true;
+    }
+
+    void progress(int percent) {
+        progress = percent;
+    }
+
+    // Does nothing once the job is final, e.g. canceled while its last file was extracted.
+    synchronized void complete(ProjectAnalysis analysis, String message) {
+        if (status.isFinal()) {
+            return;
+        }
+        result = analysis;
+        progress = 100;
+        finish(Status.COMPLETED, message);
+    }
+
+    synchronized void finish(Status finalStatus, String message) {
+        if (status.isFinal()) {
+            return;
+        }
+        detail = message;
+        status = finalStatus;
+        finished.countDown();
+    }
+
+    boolean awaitFinished(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+}
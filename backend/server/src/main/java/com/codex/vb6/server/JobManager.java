@@ -0,0 +1,175 @@
+package com.codex.vb6.server;
+
+import com.codex.vb6.extractor.AnalysisCache;
+import com.codex.vb6.extractor.AnalyzerOptions;
+import com.codex.vb6.extractor.ProjectAnalysis;
+import com.codex.vb6.extractor.ProjectAnalyzer;
+import com.codex.vb6.extractor.ProjectListener;
+import com.codex.vb6.extractor.ProjectSummary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs analysis jobs on a fixed number of workers and keeps an in-memory {@link AnalysisCache}
+ * per root, so a repeated request for the same root only extracts the files whose size or
+ * modification time changed since the last scan.
+ *
+ * <p>Memory is bounded by two limits. Only the latest {@value #MAX_FINISHED_JOBS} finished jobs
+ * and their results are kept; older ones are forgotten when a new job is submitted. Caches are
+ * kept for the {@value #MAX_CACHED_ROOTS} most recently scanned roots, and each scan drops the
+ * entries of files the previous scan of its root did not see.
+ */
+final class JobManager {
+    private static final long CANCEL_WAIT_SECONDS = 30;
+    static final int MAX_FINISHED_JOBS = 100;
+    static final int MAX_CACHED_ROOTS = 16;
+
+    private final AnalyzerOptions options;
+    private final ExecutorService workers;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    // Access order, so the least recently scanned root goes first.
+    private final Map<Path, AnalysisCache> caches = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, AnalysisCache> eldest) {
+            return size() > MAX_CACHED_ROOTS;
+        }
+    };
+
+    JobManager(AnalyzerOptions options, int workerCount) {
+        this.options = options;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, task -> {
+            Thread thread = new Thread(task, "analysis-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    Job submit(Path root, boolean refresh) {
+        Job job = new Job(UUID.randomUUID().toString(), root, refresh);
+        synchronized (jobs) {
+            jobs.put(job.id(), job);
+            evictFinished();
+        }
+        workers.execute(() -> run(job));
+        return job;
+    }
+
+    // Drops the oldest finished jobs beyond the limit; queued and running jobs are never dropped.
+    private void evictFinished() {
+        int finished = 0;
+        for (Job job : jobs.values()) {
+            if (job.status().isFinal()) {
+                finished++;
+            }
+        }
+        Iterator<Job> iterator = jobs.values().iterator();
+        while (finished > MAX_FINISHED_JOBS && iterator.hasNext()) {
+            if (iterator.next().status().isFinal()) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+
+    List<Job> list() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    Job get(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    /**
+     * Requests cancellation and waits for the job to stop, like the original Python service.
+     * The analysis polls for cancellation before each project and file, so a file that is being
+     * extracted is finished first; the wait is bounded by {@value #CANCEL_WAIT_SECONDS} seconds.
+     */
+    Job cancel(String id) throws InterruptedException {
+        Job job = get(id);
+        if (job == null || job.status().isFinal()) {
+            return job;
+        }
+        job.requestCancel();
+        job.cancelQueued("Canceled by user");
+        job.awaitFinished(CANCEL_WAIT_SECONDS, TimeUnit.SECONDS);
+        return job;
+    }
+
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void run(Job job) {
+        if (job.cancelRequested() || !job.start()) {
+            job.finish(Job.Status.CANCELED, "Canceled by user");
+            return;
+        }
+        AnalysisCache cache = cache(job);
+        long reusedBefore = cache.hits();
+        try {
+            ProjectAnalysis analysis = ProjectAnalyzer.analyze(job.root(),
+                    options.withCache(cache).withCancellation(job::cancelRequested), new ProgressListener(job));
+            synchronized (caches) {
+                caches.put(job.root(), cache);
+            }
+            job.complete(analysis, "Analyzed " + analysis.projects().size() + " projects, "
+                    + (cache.hits() - reusedBefore) + " files reused from cache");
+        } catch (CancellationException e) {
+            job.finish(Job.Status.CANCELED, "Canceled by user");
+        } catch (IOException | RuntimeException e) {
+            job.finish(Job.Status.FAILED, "Job failed: " + e);
+        }
+    }
+
+    // refresh=true starts from an empty cache; the new one replaces the old for later jobs.
+    private AnalysisCache cache(Job job) {
+        if (job.refresh()) {
+            return AnalysisCache.inMemory(options.fingerprint());
+        }
+        AnalysisCache cache;
+        synchronized (caches) {
+            cache = caches.computeIfAbsent(job.root(), root -> AnalysisCache.inMemory(options.fingerprint()));
+        }
+        cache.startScan();
+        return cache;
+    }
+
+    private static final class ProgressListener implements ProjectListener {
+        private final Job job;
+        private int total;
+        private int done;
+
+        ProgressListener(Job job) {
+            this.job = job;
+        }
+
+        @Override
+        public void projectsFound(int count) {
+            total = count;
+        }
+
+        @Override
+        public void projectAnalyzed(ProjectSummary project) {
+            done++;
+            // 100 is reserved for the completed state.
+            job.progress(Math.min(99, done * 100 / Math.max(total, 1)));
+        }
+    }
+}